@@ -5,53 +5,72 @@ import com.amazonaws.services.lambda.runtime.LambdaLogger;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayCustomAuthorizerEvent;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
 import playkosmos.utils.JwtUtils;
 
-import javax.crypto.SecretKey;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+// The policy covers the whole stage rather than the invoked method, so API Gateway can cache it per token for the
+// authorizer's resultTtl and serve every other route without invoking this function. Keep that TTL below the
+// token lifetime, since a cached Allow outlives the token's expiry until the TTL runs out.
 public class AuthenticationHandler implements RequestHandler<APIGatewayCustomAuthorizerEvent, Map<String, Object>> {
 
-    private static final SecretKey SECRET_KEY = JwtUtils.getSecretKey();
+    private final VerifiedTokenCache verifiedTokens;
+
+    public AuthenticationHandler() {
+        this.verifiedTokens = VerifiedTokenCache.getInstance();
+        AuthorizerPriming.register();
+    }
 
     @Override
     public Map<String, Object> handleRequest(APIGatewayCustomAuthorizerEvent request, Context context) {
 
         LambdaLogger logger = context.getLogger();
         String authToken = request.getAuthorizationToken();
-
-        logger.log("authToken is: "  + authToken);
+        String resource = apiWideResource(request.getMethodArn());
 
         if(authToken == null || !authToken.startsWith("Bearer ")){
             logger.log("missing authToken!!");
-            return generatePolicy("user", "Deny", request.getMethodArn(), "Authorization incorrect");
+            return generatePolicy("user", "Deny", resource, "Authorization incorrect");
         }
 
-
         String token = authToken.substring(7);
 
-        try{
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+        String username = verifiedTokens.get(token);
+        if (username != null) {
+            return generatePolicy(username, "Allow", resource);
+        }
 
-            String username = claims.getSubject();
-            logger.log("Extracted username: " + username);
+        try{
+            Claims claims = JwtUtils.parseClaims(token);
 
+            username = claims.getSubject();
             if(username == null){
                 logger.log("Username is null, invalid token.");
                 throw new RuntimeException("Invalid token: Missing subject");
             }
-            return generatePolicy(username, "Allow", request.getMethodArn());
+            if (claims.getExpiration() != null) {
+                verifiedTokens.put(token, username, claims.getExpiration().getTime());
+            }
+            return generatePolicy(username, "Allow", resource);
         }catch (Exception e){
             logger.log("Token validation error: " + e.getMessage());
-            return generatePolicy("user", "Deny", request.getMethodArn(), e.getMessage());
+            return generatePolicy("user", "Deny", resource, e.getMessage());
+        }
+    }
+
+    // arn:aws:execute-api:{region}:{account}:{apiId}/{stage}/{method}/{path} becomes arn:...:{apiId}/{stage}/*
+    static String apiWideResource(String methodArn) {
+        if (methodArn == null) {
+            return null;
+        }
+        int pathStart = methodArn.lastIndexOf(':') + 1;
+        String[] path = methodArn.substring(pathStart).split("/", 3);
+        if (path.length < 2) {
+            return methodArn;
         }
+        return methodArn.substring(0, pathStart) + path[0] + "/" + path[1] + "/*";
     }
 
     private Map<String, Object> generatePolicy(String user, String effect, String resource) {
@@ -0,0 +1,46 @@
+package playkosmos.authorizer;
+
+import com.amazonaws.services.lambda.runtime.LambdaRuntime;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import playkosmos.utils.JwtUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// The authorizer ships without the common module, so it has its own SnapStart resource that only warms up JJWT
+public class AuthorizerPriming implements Resource {
+
+    private static final AuthorizerPriming INSTANCE = new AuthorizerPriming();
+    private static final AtomicBoolean registered = new AtomicBoolean(false);
+
+    public static void register() {
+        if (registered.compareAndSet(false, true)) {
+            Core.getGlobalContext().register(INSTANCE);
+        }
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        LambdaRuntime.getLogger().log("SnapStart priming took " + prime());
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        // Token validation holds no sockets or random state
+    }
+
+    public static Map<String, Long> prime() {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        try {
+            JwtUtils.prime();
+        } catch (RuntimeException | LinkageError e) {
+            LambdaRuntime.getLogger().log("SnapStart priming step jwt failed: " + e.getMessage() + "\n");
+        }
+        timings.put("jwt", (System.nanoTime() - start) / 1_000_000);
+        return timings;
+    }
+}
@@ -0,0 +1,84 @@
+package playkosmos.authorizer;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Per-container LRU of tokens that already passed signature verification, so a repeat token skips the HMAC and
+// the JSON parse. Entries are keyed by a SHA-256 of the token, never the token itself, and expire with the token.
+public class VerifiedTokenCache {
+
+    private static VerifiedTokenCache instance;
+    private final long maxTtlMillis;
+    private final Map<String, Entry> entries;
+
+    public VerifiedTokenCache(int maxEntries, long maxTtlMillis) {
+        this.maxTtlMillis = maxTtlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    // The subject of a still-valid verified token, or null when it has to be verified again
+    public synchronized String get(String token) {
+        String key = hash(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiresAt) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.subject;
+    }
+
+    public synchronized void put(String token, String subject, long tokenExpiresAt) {
+        long expiresAt = Math.min(tokenExpiresAt, System.currentTimeMillis() + maxTtlMillis);
+        if (expiresAt > System.currentTimeMillis()) {
+            entries.put(hash(token), new Entry(subject, expiresAt));
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+
+    public static synchronized VerifiedTokenCache getInstance() {
+        if (instance == null) {
+            instance = new VerifiedTokenCache(intEnv("AUTH_TOKEN_CACHE_MAX_ENTRIES", 10_000),
+                    intEnv("AUTH_TOKEN_CACHE_TTL_SECONDS", 300) * 1000L);
+        }
+        return instance;
+    }
+
+    private static int intEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static final class Entry {
+        private final String subject;
+        private final long expiresAt;
+
+        private Entry(String subject, long expiresAt) {
+            this.subject = subject;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
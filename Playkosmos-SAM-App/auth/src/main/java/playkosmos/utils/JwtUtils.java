@@ -1,5 +1,7 @@
 package playkosmos.utils;
 
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 
@@ -12,8 +14,12 @@ public class JwtUtils {
 
     private static final SecretKey SECRET_KEY;
 
+    // Built parsers are immutable and thread-safe, so one instance serves every request in the container
+    private static final JwtParser PARSER;
+
     static {
         SECRET_KEY = Keys.hmacShaKeyFor(SECRET_KEY_STRING.getBytes());
+        PARSER = Jwts.parserBuilder().setSigningKey(SECRET_KEY).build();
     }
 
     public static String generateToken(String username) {
@@ -29,4 +35,14 @@ public class JwtUtils {
         return SECRET_KEY;
     }
 
+    // Verifies the signature and expiry, throwing a JwtException when either check fails
+    public static Claims parseClaims(String token) {
+        return PARSER.parseClaimsJws(token).getBody();
+    }
+
+    // Signs and parses a throwaway token so JJWT and its JSON and crypto classes are loaded before a snapshot
+    public static void prime() {
+        parseClaims(generateToken("snapstart-priming"));
+    }
+
 }
\ No newline at end of file
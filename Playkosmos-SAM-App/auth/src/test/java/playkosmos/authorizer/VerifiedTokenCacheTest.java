@@ -0,0 +1,45 @@
+package playkosmos.authorizer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class VerifiedTokenCacheTest {
+
+    @Test
+    public void servesVerifiedTokensUntilTheyExpire() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 60_000);
+        long now = System.currentTimeMillis();
+
+        cache.put("valid", "alice", now + 30_000);
+        cache.put("expired", "bob", now - 1);
+
+        assertEquals("alice", cache.get("valid"));
+        assertNull(cache.get("expired"));
+        assertNull(cache.get("unknown"));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedTokens() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, 60_000);
+        long expiresAt = System.currentTimeMillis() + 30_000;
+
+        cache.put("a", "alice", expiresAt);
+        cache.put("b", "bob", expiresAt);
+        cache.get("a");
+        cache.put("c", "carol", expiresAt);
+
+        assertEquals(2, cache.size());
+        assertEquals("alice", cache.get("a"));
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    public void widensMethodArnToTheWholeStage() {
+        assertEquals("arn:aws:execute-api:af-south-1:123456789012:abc123/Prod/*",
+                AuthenticationHandler.apiWideResource("arn:aws:execute-api:af-south-1:123456789012:abc123/Prod/GET/posts/42"));
+        assertEquals("arn:aws:execute-api:af-south-1:123456789012:abc123/Prod/*",
+                AuthenticationHandler.apiWideResource("arn:aws:execute-api:af-south-1:123456789012:abc123/Prod/POST/"));
+    }
+}
@@ -0,0 +1,23 @@
+package playkosmos.cache;
+
+import playkosmos.entity.User;
+
+// Rough retained-size estimates used to enforce LocalCache byte budgets without serializing the value. PostCache
+// keeps posts in L1 as CBOR bytes, so it weighs them by their length instead.
+public final class EntityWeigher {
+
+    private static final long OBJECT_OVERHEAD = 16;
+    private static final long REFERENCE = 8;
+
+    private EntityWeigher() {
+    }
+
+    public static long weigh(User user) {
+        return OBJECT_OVERHEAD + 7 * REFERENCE + string(user.getUsername()) + string(user.getEmail())
+                + string(user.getPhoneNumber()) + string(user.getCountryCode()) + string(user.getPassword()) + 48;
+    }
+
+    private static long string(String value) {
+        return value == null ? 0 : 40 + value.length();
+    }
+}
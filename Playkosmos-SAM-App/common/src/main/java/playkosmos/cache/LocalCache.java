@@ -0,0 +1,118 @@
+package playkosmos.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+// Per-container LRU cache bounded by entry count and by an estimated byte budget, with a fixed TTL.
+// It lives as long as the execution environment, so warm invocations re-serve hot entries without any I/O.
+public class LocalCache<K, V> {
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final ToLongFunction<V> weigher;
+    private final CacheStats stats;
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public LocalCache(String tier, int maxEntries, long maxBytes, long ttlMillis, ToLongFunction<V> weigher) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+        this.stats = new CacheStats(tier);
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            stats.recordMiss();
+            return null;
+        }
+        if (System.currentTimeMillis() >= entry.expiresAt) {
+            removeEntry(key);
+            stats.recordMiss();
+            return null;
+        }
+        stats.recordHit();
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        if (value == null || maxEntries <= 0) {
+            return;
+        }
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxBytes) {
+            // A single oversized entry would flush the whole cache
+            removeEntry(key);
+            return;
+        }
+
+        removeEntry(key);
+        entries.put(key, new Entry<>(value, weight, System.currentTimeMillis() + ttlMillis));
+        totalBytes += weight;
+
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || totalBytes > maxBytes) && eldest.hasNext()) {
+            Map.Entry<K, Entry<V>> candidate = eldest.next();
+            totalBytes -= candidate.getValue().weight;
+            eldest.remove();
+            stats.recordEviction();
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        removeEntry(key);
+    }
+
+    public synchronized void invalidateIf(Predicate<V> predicate) {
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry<V> entry = iterator.next();
+            if (predicate.test(entry.value)) {
+                totalBytes -= entry.weight;
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weightedSize() {
+        return totalBytes;
+    }
+
+    public CacheStats getStats() {
+        return stats;
+    }
+
+    private void removeEntry(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.weight;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long weight;
+        private final long expiresAt;
+
+        private Entry(V value, long weight, long expiresAt) {
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package playkosmos.cache;
+
+import com.google.gson.Gson;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+import playkosmos.cbor.EntityCbor;
+import playkosmos.dbutil.RedisConnectionManager;
+import playkosmos.entity.Post;
+import playkosmos.utils.ETags;
+import playkosmos.utils.EnvConfig;
+import playkosmos.utils.MetricsReporter;
+import playkosmos.utils.RuntimeLog;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Two-tier read-through cache for assembled Post aggregates: a short-TTL per-container L1 in front of Redis (L2),
+// falling through to the loader (MySQL). Concurrent misses for the same post collapse onto one load inside a
+// container, and across containers a short SET NX lock lets one loader hit MySQL while the others briefly poll
+// Redis for the result. Redis errors never fail a read; they fall through to the loader.
+// L1 invalidation is local to this container, so other containers may serve an entry for up to the L1 TTL.
+// Each post's strong ETag is kept next to it in both tiers, so conditional reads can be answered without loading
+// or serialising the aggregate. invalidate() bumps a per-post generation in both tiers, and a load only writes its
+// result back while the generation it read before loading is still current, so a load that raced an invalidation
+// cannot put the old aggregate back. L1 holds each post as CBOR bytes and decodes a fresh copy for every caller, so
+// no caller can change the cached aggregate or another caller's post.
+public class PostCache {
+
+    private static final String KEY_PREFIX = "post:";
+    private static final String LOCK_SUFFIX = ":lock";
+    private static final String ETAG_SUFFIX = ":etag";
+    private static final String GENERATION_SUFFIX = ":gen";
+    private static final int GENERATION_STRIPES = 1024;
+    private static final long LOCK_TTL_MILLIS = 3_000;
+    private static final int LOCK_POLL_ATTEMPTS = 10;
+    private static final long LOCK_POLL_INTERVAL_MILLIS = 50;
+
+    // KEYS: post, ETag and generation keys; ARGV: the generation read before the load, TTL, post JSON, ETag
+    static final String WRITE_BACK_SCRIPT =
+            "if (redis.call('GET', KEYS[3]) or '0') ~= ARGV[1] then\n" +
+            "  return 0\n" +
+            "end\n" +
+            "redis.call('SETEX', KEYS[1], ARGV[2], ARGV[3])\n" +
+            "redis.call('SETEX', KEYS[2], ARGV[2], ARGV[4])\n" +
+            "return 1\n";
+
+    private static PostCache instance;
+
+    private final RedisCommands<String, String> commands;
+    private final Gson gson;
+    private final long ttlSeconds;
+    private final LocalCache<Long, byte[]> localCache;
+    private final LocalCache<Long, String> etagCache;
+    private final CacheStats redisStats = new CacheStats("post.l2");
+    private final LongAdder loads = new LongAdder();
+    private final ConcurrentMap<Long, CompletableFuture<Post>> inFlight = new ConcurrentHashMap<>();
+    // Container-local generations, striped by post ID so they need no per-post entry
+    private final AtomicLongArray localGenerations = new AtomicLongArray(GENERATION_STRIPES);
+    private volatile String writeBackSha;
+
+    public PostCache(RedisCommands<String, String> commands, Gson gson, long ttlSeconds, LocalCache<Long, byte[]> localCache,
+                     LocalCache<Long, String> etagCache) {
+        this.commands = commands;
+        this.gson = gson;
+        this.ttlSeconds = ttlSeconds;
+        this.localCache = localCache;
+        this.etagCache = etagCache;
+    }
+
+    public Post get(long postId, PostLoader loader) throws SQLException {
+        Post local = getLocal(postId);
+        if (local != null) {
+            return local;
+        }
+
+        Post cached = readQuietly(postId);
+        if (commands != null) {
+            if (cached != null) {
+                redisStats.recordHit();
+            } else {
+                redisStats.recordMiss();
+            }
+        }
+        if (cached != null) {
+            putLocal(postId, cached);
+            return cached;
+        }
+
+        CompletableFuture<Post> ownLoad = new CompletableFuture<>();
+        CompletableFuture<Post> existing = inFlight.putIfAbsent(postId, ownLoad);
+        if (existing != null) {
+            // The loading caller keeps the loaded post, so waiters get their own copy
+            return copy(await(existing));
+        }
+
+        try {
+            Post post = loadCollapsed(postId, loader);
+            ownLoad.complete(post);
+            return post;
+        } catch (SQLException | RuntimeException e) {
+            ownLoad.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(postId, ownLoad);
+        }
+    }
+
+    // Batch read for full aggregates: L1, then one Redis MGET for the rest, then a single loader call for whatever
+    // is still missing. Results keep the order of postIds and skip posts that do not exist. Unlike get(), concurrent
+    // batch misses are not collapsed; a feed page rarely repeats the exact same set of posts.
+    public List<Post> getAll(Collection<Long> postIds, BatchPostLoader loader) throws SQLException {
+        Map<Long, Post> resolved = new LinkedHashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long postId : new LinkedHashSet<>(postIds)) {
+            Post local = getLocal(postId);
+            resolved.put(postId, local);
+            if (local == null) {
+                missing.add(postId);
+            }
+        }
+
+        if (!missing.isEmpty() && commands != null) {
+            List<Long> stillMissing = new ArrayList<>();
+            try {
+                String[] keys = missing.stream().map(PostCache::key).toArray(String[]::new);
+                List<KeyValue<String, String>> values = commands.mget(keys);
+                for (int i = 0; i < missing.size(); i++) {
+                    KeyValue<String, String> value = values.get(i);
+                    if (value.hasValue()) {
+                        Post cached = gson.fromJson(value.getValue(), Post.class);
+                        redisStats.recordHit();
+                        putLocal(cached.getPostId(), cached);
+                        etagCache.put(cached.getPostId(), ETags.strong(value.getValue()));
+                        resolved.put(missing.get(i), cached);
+                    } else {
+                        redisStats.recordMiss();
+                        stillMissing.add(missing.get(i));
+                    }
+                }
+                missing = stillMissing;
+            } catch (RuntimeException e) {
+                RuntimeLog.log("Failed to read cached posts: " + e.getMessage());
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<Long, Generation> generations = generations(missing);
+            for (Post post : loader.load(missing)) {
+                loads.increment();
+                writeBack(post, generations.get(post.getPostId()));
+                resolved.put(post.getPostId(), post);
+            }
+        }
+
+        List<Post> posts = new ArrayList<>(resolved.size());
+        for (Post post : resolved.values()) {
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return posts;
+    }
+
+    public void put(Post post) {
+        if (post == null || post.getPostId() == null) {
+            return;
+        }
+        putLocal(post.getPostId(), post);
+        if (commands == null) {
+            // Computed on demand by getETag(Post) rather than serialising every loaded post here
+            etagCache.invalidate(post.getPostId());
+            return;
+        }
+        String json = gson.toJson(post);
+        String etag = ETags.strong(json);
+        etagCache.put(post.getPostId(), etag);
+        try {
+            commands.setex(key(post.getPostId()), ttlSeconds, json);
+            commands.setex(key(post.getPostId()) + ETAG_SUFFIX, ttlSeconds, etag);
+        } catch (RuntimeException e) {
+            RuntimeLog.log("Failed to cache post " + post.getPostId() + ": " + e.getMessage());
+        }
+    }
+
+    // Call after any write that changes a post's aggregate (new post, like, comment, review, ...)
+    public void invalidate(long postId) {
+        localGenerations.incrementAndGet(stripe(postId));
+        localCache.invalidate(postId);
+        etagCache.invalidate(postId);
+        if (commands == null) {
+            return;
+        }
+        try {
+            // Bumped before the delete, so a write-back that lands in between is rejected rather than left behind
+            String generationKey = key(postId) + GENERATION_SUFFIX;
+            commands.incr(generationKey);
+            commands.expire(generationKey, ttlSeconds);
+            commands.del(key(postId), key(postId) + ETAG_SUFFIX);
+        } catch (RuntimeException e) {
+            RuntimeLog.log("Failed to invalidate cached post " + postId + ": " + e.getMessage());
+        }
+    }
+
+    // The current ETag of a post if either tier knows it, without touching the aggregate. Only for answering
+    // If-None-Match; the Redis value is not copied into L1 because it may be newer than the post held there.
+    public String getETag(long postId) {
+        String local = etagCache.get(postId);
+        if (local != null || commands == null) {
+            return local;
+        }
+        try {
+            return commands.get(key(postId) + ETAG_SUFFIX);
+        } catch (RuntimeException e) {
+            RuntimeLog.log("Failed to read ETag of post " + postId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // The ETag of the representation of a post returned by get()
+    public String getETag(Post post) {
+        String etag = etagCache.get(post.getPostId());
+        if (etag == null) {
+            etag = ETags.strong(gson.toJson(post));
+            etagCache.put(post.getPostId(), etag);
+        }
+        return etag;
+    }
+
+    // The ETag of a list response of full posts. It is derived from the posts' own tags plus whatever else the body
+    // carries (a feed's next cursor), so cached posts are not serialised again.
+    public String getListETag(List<Post> posts, String extra) {
+        List<String> etags = new ArrayList<>();
+        for (Post post : posts) {
+            etags.add(getETag(post));
+        }
+        return listETag(etags, extra);
+    }
+
+    // The same tag from the cached ETags of postIds, or null when one is unknown and the posts have to be loaded
+    public String getCachedListETag(Collection<Long> postIds, String extra) {
+        List<String> etags = new ArrayList<>();
+        for (Long postId : new LinkedHashSet<>(postIds)) {
+            String etag = getETag(postId);
+            if (etag == null) {
+                return null;
+            }
+            etags.add(etag);
+        }
+        return listETag(etags, extra);
+    }
+
+    private static String listETag(List<String> etags, String extra) {
+        return ETags.strong(String.join(",", etags) + ";" + extra);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put(localCache.getStats().getTier(), localCache.getStats().snapshot());
+        stats.put(etagCache.getStats().getTier(), etagCache.getStats().snapshot());
+        stats.put(redisStats.getTier(), redisStats.snapshot());
+        stats.put("post.db.loads", loads.sum());
+        return stats;
+    }
+
+    private Post loadCollapsed(long postId, PostLoader loader) throws SQLException {
+        if (commands == null) {
+            Generation generation = generations(List.of(postId)).get(postId);
+            Post post = loader.load(postId);
+            loads.increment();
+            writeBack(post, generation);
+            return post;
+        }
+
+        String lockKey = key(postId) + LOCK_SUFFIX;
+        boolean locked = tryLock(lockKey);
+        if (!locked) {
+            for (int attempt = 0; attempt < LOCK_POLL_ATTEMPTS; attempt++) {
+                sleep(LOCK_POLL_INTERVAL_MILLIS);
+                Post cached = readQuietly(postId);
+                if (cached != null) {
+                    putLocal(postId, cached);
+                    return cached;
+                }
+            }
+        }
+
+        try {
+            Generation generation = generations(List.of(postId)).get(postId);
+            Post post = loader.load(postId);
+            loads.increment();
+            writeBack(post, generation);
+            return post;
+        } finally {
+            if (locked) {
+                unlockQuietly(lockKey);
+            }
+        }
+    }
+
+    // Read before loading; see writeBack
+    private Map<Long, Generation> generations(List<Long> postIds) {
+        List<String> redisGenerations = null;
+        if (commands != null) {
+            try {
+                String[] keys = postIds.stream().map(postId -> key(postId) + GENERATION_SUFFIX).toArray(String[]::new);
+                redisGenerations = new ArrayList<>();
+                for (KeyValue<String, String> value : commands.mget(keys)) {
+                    redisGenerations.add(value.getValueOrElse("0"));
+                }
+            } catch (RuntimeException e) {
+                RuntimeLog.log("Failed to read post cache generations: " + e.getMessage());
+                redisGenerations = null;
+            }
+        }
+        Map<Long, Generation> generations = new HashMap<>();
+        for (int i = 0; i < postIds.size(); i++) {
+            long postId = postIds.get(i);
+            generations.put(postId, new Generation(localGenerations.get(stripe(postId)),
+                    redisGenerations == null ? null : redisGenerations.get(i)));
+        }
+        return generations;
+    }
+
+    // Caches a loaded post unless the post was invalidated since its generation was read. When Redis could not be
+    // read beforehand, only L1 is filled.
+    private void writeBack(Post post, Generation generation) {
+        if (post == null || post.getPostId() == null || generation == null) {
+            return;
+        }
+        long postId = post.getPostId();
+        if (localGenerations.get(stripe(postId)) != generation.local) {
+            return;
+        }
+        putLocal(postId, post);
+        if (commands == null || generation.redis == null) {
+            etagCache.invalidate(postId);
+        } else {
+            String json = gson.toJson(post);
+            String etag = ETags.strong(json);
+            etagCache.put(postId, etag);
+            try {
+                String key = key(postId);
+                if (evalWriteBack(new String[]{key, key + ETAG_SUFFIX, key + GENERATION_SUFFIX},
+                        generation.redis, String.valueOf(ttlSeconds), json, etag) == 0) {
+                    // Another container invalidated the post while it was loading
+                    localCache.invalidate(postId);
+                    etagCache.invalidate(postId);
+                    return;
+                }
+            } catch (RuntimeException e) {
+                RuntimeLog.log("Failed to cache post " + postId + ": " + e.getMessage());
+            }
+        }
+        // An invalidation that ran while L1 was being filled is honoured here
+        if (localGenerations.get(stripe(postId)) != generation.local) {
+            localCache.invalidate(postId);
+            etagCache.invalidate(postId);
+        }
+    }
+
+    private long evalWriteBack(String[] keys, String... args) {
+        String sha = writeBackSha;
+        if (sha == null) {
+            sha = commands.scriptLoad(WRITE_BACK_SCRIPT);
+            writeBackSha = sha;
+        }
+        try {
+            return commands.evalsha(sha, ScriptOutputType.INTEGER, keys, args);
+        } catch (RedisNoScriptException e) {
+            // The script cache was flushed, e.g. by a failover
+            writeBackSha = null;
+            return commands.eval(WRITE_BACK_SCRIPT, ScriptOutputType.INTEGER, keys, args);
+        }
+    }
+
+    private Post getLocal(long postId) {
+        byte[] cbor = localCache.get(postId);
+        if (cbor == null) {
+            return null;
+        }
+        try {
+            return EntityCbor.readPost(cbor);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to decode cached post " + postId, e);
+        }
+    }
+
+    private void putLocal(long postId, Post post) {
+        try {
+            localCache.put(postId, EntityCbor.toBytes(post));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to encode post " + postId, e);
+        }
+    }
+
+    private static Post copy(Post post) {
+        if (post == null) {
+            return null;
+        }
+        try {
+            return EntityCbor.readPost(EntityCbor.toBytes(post));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to copy post " + post.getPostId(), e);
+        }
+    }
+
+    private static int stripe(long postId) {
+        return (int) Math.floorMod(postId, (long) GENERATION_STRIPES);
+    }
+
+    private Post readQuietly(long postId) {
+        if (commands == null) {
+            return null;
+        }
+        try {
+            String json = commands.get(key(postId));
+            if (json == null) {
+                return null;
+            }
+            Post post = gson.fromJson(json, Post.class);
+            // Callers keep the post in L1, so its ETag goes there too
+            etagCache.put(postId, ETags.strong(json));
+            return post;
+        } catch (RuntimeException e) {
+            RuntimeLog.log("Failed to read cached post " + postId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean tryLock(String lockKey) {
+        try {
+            return "OK".equals(commands.set(lockKey, "1", SetArgs.Builder.nx().px(LOCK_TTL_MILLIS)));
+        } catch (RuntimeException e) {
+            return true;
+        }
+    }
+
+    private void unlockQuietly(String lockKey) {
+        try {
+            commands.del(lockKey);
+        } catch (RuntimeException ignored) {
+            // The lock expires on its own
+        }
+    }
+
+    private static Post await(CompletableFuture<Post> future) throws SQLException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String key(long postId) {
+        return KEY_PREFIX + postId;
+    }
+
+    // Without REDIS_URL the cache is a pass-through so handlers work unchanged in environments with no Redis
+    public static synchronized PostCache getInstance(Gson gson) {
+        if (instance == null) {
+            long ttlSeconds = EnvConfig.longEnv("POST_CACHE_TTL_SECONDS", 300);
+            RedisCommands<String, String> commands = null;
+            if (RedisConnectionManager.isConfigured()) {
+                try {
+                    commands = RedisConnectionManager.getInstance().sync();
+                } catch (RuntimeException e) {
+                    RuntimeLog.log("Post cache disabled, Redis is unavailable: " + e.getMessage());
+                }
+            }
+            LocalCache<Long, byte[]> localCache = new LocalCache<>("post.l1",
+                    EnvConfig.intEnv("POST_L1_MAX_ENTRIES", 256),
+                    EnvConfig.longEnv("POST_L1_MAX_BYTES", 16L * 1024 * 1024),
+                    EnvConfig.longEnv("POST_L1_TTL_MS", 10_000),
+                    cbor -> cbor.length);
+            LocalCache<Long, String> etagCache = new LocalCache<>("post.etag.l1",
+                    EnvConfig.intEnv("POST_L1_MAX_ENTRIES", 256),
+                    Long.MAX_VALUE,
+                    EnvConfig.longEnv("POST_L1_TTL_MS", 10_000),
+                    etag -> etag.length());
+            instance = new PostCache(commands, gson, ttlSeconds, localCache, etagCache);
+            MetricsReporter.getInstance().register("postCache", instance::getStats);
+        }
+        return instance;
+    }
+
+    private static final class Generation {
+
+        private final long local;
+        // Null when Redis could not be read
+        private final String redis;
+
+        private Generation(long local, String redis) {
+            this.local = local;
+            this.redis = redis;
+        }
+    }
+
+    @FunctionalInterface
+    public interface PostLoader {
+        Post load(long postId) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface BatchPostLoader {
+        List<Post> load(List<Long> postIds) throws SQLException;
+    }
+}
@@ -0,0 +1,68 @@
+package playkosmos.cache;
+
+import playkosmos.entity.User;
+import playkosmos.utils.EnvConfig;
+import playkosmos.utils.MetricsReporter;
+
+import java.util.Map;
+
+// Per-container L1 for UserDAO lookups by username and email. The password hash is never cached: a reset in one
+// container must take effect everywhere at once, so login reads it from MySQL on every attempt. Entries are stored
+// and handed out as copies so one caller cannot change the User another caller sees.
+// The short TTL bounds how stale the profile fields can get across containers.
+public class UserCache {
+
+    private static UserCache instance;
+
+    private final LocalCache<String, User> localCache;
+
+    public UserCache(LocalCache<String, User> localCache) {
+        this.localCache = localCache;
+    }
+
+    public User getByUsername(String username) {
+        return copyWithoutCredentials(localCache.get("username:" + username));
+    }
+
+    public User getByEmail(String email) {
+        return copyWithoutCredentials(localCache.get("email:" + email));
+    }
+
+    public void putByUsername(String username, User user) {
+        localCache.put("username:" + username, copyWithoutCredentials(user));
+    }
+
+    public void putByEmail(String email, User user) {
+        localCache.put("email:" + email, copyWithoutCredentials(user));
+    }
+
+    public void invalidateUser(String username) {
+        localCache.invalidateIf(user -> username.equals(user.getUsername()));
+    }
+
+    private static User copyWithoutCredentials(User user) {
+        if (user == null) {
+            return null;
+        }
+        User copy = new User(user.getUsername(), user.getEmail(), user.getPhoneNumber(), user.getCountryCode(),
+                user.getDateOfBirth(), null);
+        copy.setId(user.getId());
+        return copy;
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(localCache.getStats().getTier(), localCache.getStats().snapshot());
+    }
+
+    public static synchronized UserCache getInstance() {
+        if (instance == null) {
+            instance = new UserCache(new LocalCache<>("user.l1",
+                    EnvConfig.intEnv("USER_L1_MAX_ENTRIES", 1024),
+                    EnvConfig.longEnv("USER_L1_MAX_BYTES", 2L * 1024 * 1024),
+                    EnvConfig.longEnv("USER_L1_TTL_MS", 30_000),
+                    EntityWeigher::weigh));
+            MetricsReporter.getInstance().register("userCache", instance::getStats);
+        }
+        return instance;
+    }
+}
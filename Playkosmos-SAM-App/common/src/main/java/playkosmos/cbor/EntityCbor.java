@@ -0,0 +1,499 @@
+package playkosmos.cbor;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORParser;
+import playkosmos.dao.Page;
+import playkosmos.entity.Answer;
+import playkosmos.entity.Comment;
+import playkosmos.entity.Like;
+import playkosmos.entity.Post;
+import playkosmos.entity.PostCounters;
+import playkosmos.entity.Question;
+import playkosmos.entity.Review;
+import playkosmos.utils.LongList;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// CBOR wire format for the post entities, served as application/cbor. Each entity is a definite-length array whose
+// positions follow the field order of the JSON form, so no field names are repeated per row, and timestamps are
+// integer epoch milliseconds in UTC instead of ISO strings. Pages and plain maps stay CBOR maps with string keys.
+// New fields are only ever appended: readers skip positions they do not know and leave missing trailing ones null.
+public final class EntityCbor {
+
+    public static final String CONTENT_TYPE = "application/cbor";
+
+    private static final CBORFactory FACTORY = CBORFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private EntityCbor() {
+    }
+
+    // True when write can encode the whole value, so StreamingResponse falls back to JSON for anything else
+    // instead of failing halfway through the body. Maps, collections and pages are checked element by element.
+    public static boolean supports(Object value) {
+        return (isEntity(value) || value instanceof Page || value instanceof Map || value instanceof Collection)
+                && canWrite(value);
+    }
+
+    private static boolean isEntity(Object value) {
+        return value instanceof Post || value instanceof Comment || value instanceof Like || value instanceof Review
+                || value instanceof Question || value instanceof Answer || value instanceof PostCounters;
+    }
+
+    private static boolean canWrite(Object value) {
+        if (value == null || isEntity(value) || value instanceof LongList || value instanceof String
+                || value instanceof Number || value instanceof Boolean || value instanceof LocalDateTime) {
+            return true;
+        }
+        if (value instanceof Page) {
+            return canWrite(((Page<?>) value).getItems());
+        }
+        if (value instanceof Map) {
+            for (Object element : ((Map<?, ?>) value).values()) {
+                if (!canWrite(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                if (!canWrite(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public static void write(OutputStream output, Object value) throws IOException {
+        try (CBORGenerator generator = FACTORY.createGenerator(output)) {
+            writeValue(generator, value);
+        }
+    }
+
+    public static byte[] toBytes(Object value) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        write(output, value);
+        return output.toByteArray();
+    }
+
+    public static Post readPost(InputStream input) throws IOException {
+        try (CBORParser parser = FACTORY.createParser(input)) {
+            parser.nextToken();
+            return readPost(parser);
+        }
+    }
+
+    public static Post readPost(byte[] bytes) throws IOException {
+        try (CBORParser parser = FACTORY.createParser(bytes)) {
+            parser.nextToken();
+            return readPost(parser);
+        }
+    }
+
+    private static void writeValue(CBORGenerator out, Object value) throws IOException {
+        if (value == null) {
+            out.writeNull();
+        } else if (value instanceof Post) {
+            writePost(out, (Post) value);
+        } else if (value instanceof Comment) {
+            writeComment(out, (Comment) value);
+        } else if (value instanceof Like) {
+            writeLike(out, (Like) value);
+        } else if (value instanceof Review) {
+            writeReview(out, (Review) value);
+        } else if (value instanceof Question) {
+            writeQuestion(out, (Question) value);
+        } else if (value instanceof Answer) {
+            writeAnswer(out, (Answer) value);
+        } else if (value instanceof PostCounters) {
+            writeCounters(out, (PostCounters) value);
+        } else if (value instanceof Page) {
+            Page<?> page = (Page<?>) value;
+            out.writeStartObject(2);
+            out.writeFieldName("items");
+            writeValue(out, page.getItems());
+            out.writeFieldName("nextCursor");
+            out.writeString(page.getNextCursor());
+            out.writeEndObject();
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            out.writeStartObject(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                out.writeFieldName(String.valueOf(entry.getKey()));
+                writeValue(out, entry.getValue());
+            }
+            out.writeEndObject();
+        } else if (value instanceof LongList) {
+            LongList values = (LongList) value;
+            out.writeStartArray(values, values.size());
+            for (int i = 0; i < values.size(); i++) {
+                out.writeNumber(values.getLong(i));
+            }
+            out.writeEndArray();
+        } else if (value instanceof Collection) {
+            Collection<?> values = (Collection<?>) value;
+            out.writeStartArray(values, values.size());
+            for (Object element : values) {
+                writeValue(out, element);
+            }
+            out.writeEndArray();
+        } else if (value instanceof String) {
+            out.writeString((String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            out.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            out.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof LocalDateTime) {
+            writeDateTime(out, (LocalDateTime) value);
+        } else {
+            throw new IllegalArgumentException("No CBOR encoding for " + value.getClass().getName());
+        }
+    }
+
+    private static void writePost(CBORGenerator out, Post post) throws IOException {
+        out.writeStartArray(post, 16);
+        writeLong(out, post.getPostId());
+        writeLong(out, post.getUserId());
+        out.writeString(post.getCaption());
+        writeValue(out, post.getMediaUrls());
+        writeValue(out, post.getMediaTypes());
+        writeValue(out, post.getTaggedUserIds());
+        writeValue(out, post.getAttendingUserIds());
+        writeValue(out, post.getComments());
+        writeValue(out, post.getQuestions());
+        writeValue(out, post.getAnswers());
+        writeValue(out, post.getLikes());
+        writeValue(out, post.getReviews());
+        writeValue(out, post.getParticipantIds());
+        out.writeNumber(post.getShares());
+        writeValue(out, post.getCounters());
+        writeValue(out, post.getNextCursors());
+        out.writeEndArray();
+    }
+
+    private static void writeComment(CBORGenerator out, Comment comment) throws IOException {
+        out.writeStartArray(comment, 5);
+        writeLong(out, comment.getCommentId());
+        writeLong(out, comment.getPostId());
+        writeLong(out, comment.getUserId());
+        out.writeString(comment.getCommentText());
+        writeDateTime(out, comment.getCreatedAt());
+        out.writeEndArray();
+    }
+
+    private static void writeLike(CBORGenerator out, Like like) throws IOException {
+        out.writeStartArray(like, 5);
+        writeLong(out, like.getId());
+        writeLong(out, like.getPostId());
+        writeLong(out, like.getUserId());
+        out.writeString(like.getLikeType());
+        writeDateTime(out, like.getLikedAt());
+        out.writeEndArray();
+    }
+
+    private static void writeReview(CBORGenerator out, Review review) throws IOException {
+        out.writeStartArray(review, 6);
+        writeLong(out, review.getId());
+        writeLong(out, review.getPostId());
+        writeLong(out, review.getUserId());
+        out.writeString(review.getReviewText());
+        writeLong(out, review.getRating() == null ? null : review.getRating().longValue());
+        writeDateTime(out, review.getCreatedAt());
+        out.writeEndArray();
+    }
+
+    private static void writeQuestion(CBORGenerator out, Question question) throws IOException {
+        out.writeStartArray(question, 6);
+        writeLong(out, question.getQuestionId());
+        writeLong(out, question.getPostId());
+        writeLong(out, question.getUserId());
+        out.writeString(question.getQuestionText());
+        writeDateTime(out, question.getCreatedAt());
+        writeValue(out, question.getAnswers());
+        out.writeEndArray();
+    }
+
+    private static void writeAnswer(CBORGenerator out, Answer answer) throws IOException {
+        out.writeStartArray(answer, 5);
+        writeLong(out, answer.getAnswerId());
+        writeLong(out, answer.getQuestionId());
+        writeLong(out, answer.getUserId());
+        out.writeString(answer.getAnswerText());
+        writeDateTime(out, answer.getCreatedAt());
+        out.writeEndArray();
+    }
+
+    private static void writeCounters(CBORGenerator out, PostCounters counters) throws IOException {
+        out.writeStartArray(counters, 7);
+        out.writeNumber(counters.getLikes());
+        out.writeNumber(counters.getComments());
+        out.writeNumber(counters.getShares());
+        out.writeNumber(counters.getReviews());
+        out.writeNumber(counters.getQuestions());
+        out.writeNumber(counters.getAnswers());
+        out.writeNumber(counters.getParticipants());
+        out.writeEndArray();
+    }
+
+    private static void writeLong(CBORGenerator out, Long value) throws IOException {
+        if (value == null) {
+            out.writeNull();
+        } else {
+            out.writeNumber(value);
+        }
+    }
+
+    private static void writeDateTime(CBORGenerator out, LocalDateTime value) throws IOException {
+        if (value == null) {
+            out.writeNull();
+        } else {
+            out.writeNumber(value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    // Readers are positioned on the value's first token and leave the parser on its last one
+
+    private static Post readPost(CBORParser in) throws IOException {
+        if (!startArray(in)) {
+            return null;
+        }
+        Post post = new Post();
+        int index = 0;
+        while (in.nextToken() != JsonToken.END_ARRAY) {
+            switch (index++) {
+                case 0: post.setPostId(readLong(in)); break;
+                case 1: post.setUserId(readLong(in)); break;
+                case 2: post.setCaption(readString(in)); break;
+                case 3: post.setMediaUrls(readStrings(in)); break;
+                case 4: post.setMediaTypes(readStrings(in)); break;
+                case 5: post.setTaggedUserIds(readLongs(in)); break;
+                case 6: post.setAttendingUserIds(readLongs(in)); break;
+                case 7: post.setComments(readList(in, EntityCbor::readComment)); break;
+                case 8: post.setQuestions(readList(in, EntityCbor::readQuestion)); break;
+                case 9: post.setAnswers(readList(in, EntityCbor::readAnswer)); break;
+                case 10: post.setLikes(readList(in, EntityCbor::readLike)); break;
+                case 11: post.setReviews(readList(in, EntityCbor::readReview)); break;
+                case 12: post.setParticipantIds(readLongs(in)); break;
+                case 13: post.setShares((int) readPrimitive(in)); break;
+                case 14: post.setCounters(readCounters(in)); break;
+                case 15: post.setNextCursors(readStringMap(in)); break;
+                default: in.skipChildren();
+            }
+        }
+        return post;
+    }
+
+    private static Comment readComment(CBORParser in) throws IOException {
+        if (!startArray(in)) {
+            return null;
+        }
+        Comment comment = new Comment();
+        int index = 0;
+        while (in.nextToken() != JsonToken.END_ARRAY) {
+            switch (index++) {
+                case 0: comment.setCommentId(readLong(in)); break;
+                case 1: comment.setPostId(readLong(in)); break;
+                case 2: comment.setUserId(readLong(in)); break;
+                case 3: comment.setCommentText(readString(in)); break;
+                case 4: comment.setCreatedAt(readDateTime(in)); break;
+                default: in.skipChildren();
+            }
+        }
+        return comment;
+    }
+
+    private static Like readLike(CBORParser in) throws IOException {
+        if (!startArray(in)) {
+            return null;
+        }
+        Like like = new Like();
+        int index = 0;
+        while (in.nextToken() != JsonToken.END_ARRAY) {
+            switch (index++) {
+                case 0: like.setId(readLong(in)); break;
+                case 1: like.setPostId(readLong(in)); break;
+                case 2: like.setUserId(readLong(in)); break;
+                case 3: like.setLikeType(readString(in)); break;
+                case 4: like.setLikedAt(readDateTime(in)); break;
+                default: in.skipChildren();
+            }
+        }
+        return like;
+    }
+
+    private static Review readReview(CBORParser in) throws IOException {
+        if (!startArray(in)) {
+            return null;
+        }
+        Review review = new Review();
+        int index = 0;
+        while (in.nextToken() != JsonToken.END_ARRAY) {
+            switch (index++) {
+                case 0: review.setId(readLong(in)); break;
+                case 1: review.setPostId(readLong(in)); break;
+                case 2: review.setUserId(readLong(in)); break;
+                case 3: review.setReviewText(readString(in)); break;
+                case 4: {
+                    Long rating = readLong(in);
+                    review.setRating(rating == null ? null : rating.intValue());
+                    break;
+                }
+                case 5: review.setCreatedAt(readDateTime(in)); break;
+                default: in.skipChildren();
+            }
+        }
+        return review;
+    }
+
+    private static Question readQuestion(CBORParser in) throws IOException {
+        if (!startArray(in)) {
+            return null;
+        }
+        Question question = new Question();
+        int index = 0;
+        while (in.nextToken() != JsonToken.END_ARRAY) {
+            switch (index++) {
+                case 0: question.setQuestionId(readLong(in)); break;
+                case 1: question.setPostId(readLong(in)); break;
+                case 2: question.setUserId(readLong(in)); break;
+                case 3: question.setQuestionText(readString(in)); break;
+                case 4: question.setCreatedAt(readDateTime(in)); break;
+                case 5: question.setAnswers(readList(in, EntityCbor::readAnswer)); break;
+                default: in.skipChildren();
+            }
+        }
+        return question;
+    }
+
+    private static Answer readAnswer(CBORParser in) throws IOException {
+        if (!startArray(in)) {
+            return null;
+        }
+        Answer answer = new Answer();
+        int index = 0;
+        while (in.nextToken() != JsonToken.END_ARRAY) {
+            switch (index++) {
+                case 0: answer.setAnswerId(readLong(in)); break;
+                case 1: answer.setQuestionId(readLong(in)); break;
+                case 2: answer.setUserId(readLong(in)); break;
+                case 3: answer.setAnswerText(readString(in)); break;
+                case 4: answer.setCreatedAt(readDateTime(in)); break;
+                default: in.skipChildren();
+            }
+        }
+        return answer;
+    }
+
+    private static PostCounters readCounters(CBORParser in) throws IOException {
+        if (!startArray(in)) {
+            return null;
+        }
+        PostCounters counters = new PostCounters();
+        int index = 0;
+        while (in.nextToken() != JsonToken.END_ARRAY) {
+            switch (index++) {
+                case 0: counters.setLikes(readPrimitive(in)); break;
+                case 1: counters.setComments(readPrimitive(in)); break;
+                case 2: counters.setShares(readPrimitive(in)); break;
+                case 3: counters.setReviews(readPrimitive(in)); break;
+                case 4: counters.setQuestions(readPrimitive(in)); break;
+                case 5: counters.setAnswers(readPrimitive(in)); break;
+                case 6: counters.setParticipants(readPrimitive(in)); break;
+                default: in.skipChildren();
+            }
+        }
+        return counters;
+    }
+
+    private static boolean startArray(CBORParser in) throws IOException {
+        if (in.currentToken() == JsonToken.VALUE_NULL) {
+            return false;
+        }
+        if (in.currentToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Expected a CBOR array but found " + in.currentToken());
+        }
+        return true;
+    }
+
+    private static Long readLong(CBORParser in) throws IOException {
+        return in.currentToken() == JsonToken.VALUE_NULL ? null : in.getLongValue();
+    }
+
+    // Primitive fields read a null as their default, as they do from JSON
+    private static long readPrimitive(CBORParser in) throws IOException {
+        return in.currentToken() == JsonToken.VALUE_NULL ? 0L : in.getLongValue();
+    }
+
+    private static String readString(CBORParser in) throws IOException {
+        return in.currentToken() == JsonToken.VALUE_NULL ? null : in.getText();
+    }
+
+    private static LocalDateTime readDateTime(CBORParser in) throws IOException {
+        Long millis = readLong(in);
+        return millis == null ? null : LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    private static <T> List<T> readList(CBORParser in, Reader<T> reader) throws IOException {
+        if (!startArray(in)) {
+            return null;
+        }
+        List<T> values = new ArrayList<>();
+        while (in.nextToken() != JsonToken.END_ARRAY) {
+            values.add(reader.read(in));
+        }
+        return values;
+    }
+
+    private static List<String> readStrings(CBORParser in) throws IOException {
+        return readList(in, EntityCbor::readString);
+    }
+
+    private static LongList readLongs(CBORParser in) throws IOException {
+        if (!startArray(in)) {
+            return null;
+        }
+        LongList values = new LongList();
+        while (in.nextToken() != JsonToken.END_ARRAY) {
+            values.addLong(in.getLongValue());
+        }
+        return values;
+    }
+
+    private static Map<String, String> readStringMap(CBORParser in) throws IOException {
+        if (in.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        while (in.nextToken() == JsonToken.FIELD_NAME) {
+            String name = in.getCurrentName();
+            in.nextToken();
+            values.put(name, readString(in));
+        }
+        return values;
+    }
+
+    @FunctionalInterface
+    private interface Reader<T> {
+        T read(CBORParser in) throws IOException;
+    }
+}
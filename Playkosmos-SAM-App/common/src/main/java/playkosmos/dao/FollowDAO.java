@@ -0,0 +1,104 @@
+package playkosmos.dao;
+
+import lombok.RequiredArgsConstructor;
+import playkosmos.dbutil.DatabaseConnectionManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class FollowDAO {
+
+    private final DatabaseConnectionManager dbConnectionManager;
+
+    // Returns false when the follow already existed; follower_count only moves when a row is inserted
+    public boolean follow(long followerId, long followeeId) throws SQLException {
+        return changeFollow("INSERT IGNORE INTO user_follows (follower_id, followee_id) VALUES (?, ?)",
+                "UPDATE user_table SET follower_count = follower_count + 1 WHERE id = ?", followerId, followeeId);
+    }
+
+    public boolean unfollow(long followerId, long followeeId) throws SQLException {
+        return changeFollow("DELETE FROM user_follows WHERE follower_id = ? AND followee_id = ?",
+                "UPDATE user_table SET follower_count = GREATEST(follower_count - 1, 0) WHERE id = ?", followerId, followeeId);
+    }
+
+    private boolean changeFollow(String followQuery, String countQuery, long followerId, long followeeId) throws SQLException {
+        try (Connection connection = dbConnectionManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                boolean changed;
+                try (PreparedStatement preparedStatement = connection.prepareStatement(followQuery)) {
+                    preparedStatement.setLong(1, followerId);
+                    preparedStatement.setLong(2, followeeId);
+                    changed = preparedStatement.executeUpdate() == 1;
+                }
+                if (changed) {
+                    try (PreparedStatement preparedStatement = connection.prepareStatement(countQuery)) {
+                        preparedStatement.setLong(1, followeeId);
+                        preparedStatement.executeUpdate();
+                    }
+                }
+                connection.commit();
+                return changed;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    public long getFollowerCount(long userId) throws SQLException {
+        String query = "SELECT follower_count FROM user_table WHERE id = ?";
+
+        try (Connection connection = dbConnectionManager.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setLong(1, userId);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong("follower_count") : 0;
+            }
+        }
+    }
+
+    // Keyset page over idx_user_follows_followee; pass 0 for the first page and the last ID returned after that
+    public List<Long> getFollowerIds(long followeeId, long afterFollowerId, int limit) throws SQLException {
+        String query = "SELECT follower_id FROM user_follows WHERE followee_id = ? AND follower_id > ? " +
+                "ORDER BY follower_id LIMIT ?";
+
+        try (Connection connection = dbConnectionManager.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setLong(1, followeeId);
+            preparedStatement.setLong(2, afterFollowerId);
+            preparedStatement.setInt(3, limit);
+            return readIds(preparedStatement, "follower_id");
+        }
+    }
+
+    // Followed accounts with at least minFollowers followers; their posts are merged into the feed on read
+    public List<Long> getFolloweeIdsWithMinFollowers(long followerId, long minFollowers) throws SQLException {
+        String query = "SELECT f.followee_id FROM user_follows f JOIN user_table u ON u.id = f.followee_id " +
+                "WHERE f.follower_id = ? AND u.follower_count >= ?";
+
+        try (Connection connection = dbConnectionManager.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setLong(1, followerId);
+            preparedStatement.setLong(2, minFollowers);
+            return readIds(preparedStatement, "followee_id");
+        }
+    }
+
+    private static List<Long> readIds(PreparedStatement preparedStatement, String column) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getLong(column));
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,15 @@
+package playkosmos.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class Page<T> {
+
+    private final List<T> items;
+    // Opaque cursor for the next page, null on the last page
+    private final String nextCursor;
+}
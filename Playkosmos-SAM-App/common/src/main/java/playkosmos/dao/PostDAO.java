@@ -0,0 +1,1024 @@
+package playkosmos.dao;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import lombok.RequiredArgsConstructor;
+import playkosmos.dbutil.DatabaseConnectionManager;
+import playkosmos.entity.*;
+import playkosmos.utils.LongList;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+// Every method does its I/O serially on one pooled connection: a post is written in one transaction and read with
+// one aggregate query, or one IN query per child table for a batch. Fanning these calls out to an executor would
+// hold several pool connections for the same few round trips, so there is no async DAO path.
+@RequiredArgsConstructor
+public class PostDAO {
+
+    private final DatabaseConnectionManager dbConnectionManager;
+
+    // Writes the post and its whole child graph on one connection in one transaction. With
+    // rewriteBatchedStatements enabled on the JDBC URL each child batch is sent as a multi-row INSERT,
+    // so a post costs one round trip per non-empty child table regardless of how many rows it has.
+    public void savePost(Post post) throws SQLException {
+        // Insert into posts table without the shares column
+        String query = "INSERT INTO posts (user_id, caption) VALUES (?, ?)";
+
+        try (Connection connection = dbConnectionManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                long postId;
+                try (PreparedStatement preparedStatement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                    preparedStatement.setLong(1, post.getUserId());
+                    preparedStatement.setString(2, post.getCaption());
+                    preparedStatement.executeUpdate();
+
+                    try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+                        if (!generatedKeys.next()) {
+                            throw new SQLException("Creating post failed, no ID obtained.");
+                        }
+                        postId = generatedKeys.getLong(1);
+                    }
+                }
+
+                saveAssociatedData(connection, postId, post);
+                saveCounters(connection, postId, post);
+                connection.commit();
+                post.setPostId(postId);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void saveAssociatedData(Connection connection, long postId, Post post) throws SQLException {
+        saveMedia(connection, postId, post.getMediaUrls(), post.getMediaTypes());
+        saveTags(connection, postId, post.getTaggedUserIds());
+        saveAttendance(connection, postId, post.getAttendingUserIds());
+        saveComments(connection, postId, post.getComments());
+        saveQuestions(connection, postId, post.getQuestions());
+        saveAnswers(connection, postId, post.getAnswers());
+        saveLikes(connection, postId, post.getLikes());
+        saveReviews(connection, postId, post.getReviews());
+        saveParticipants(connection, postId, post.getParticipantIds());
+    }
+
+    private void saveMedia(Connection connection, long postId, List<String> mediaUrls, List<String> mediaTypes) throws SQLException {
+        if (isEmpty(mediaUrls)) {
+            return;
+        }
+        String query = "INSERT INTO post_media (post_id, media_url, media_type) VALUES (?, ?, ?)";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            for (int i = 0; i < mediaUrls.size(); i++) {
+                preparedStatement.setLong(1, postId);
+                preparedStatement.setString(2, mediaUrls.get(i));
+                preparedStatement.setString(3, mediaTypes != null && i < mediaTypes.size() ? mediaTypes.get(i) : null);
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    private void saveTags(Connection connection, long postId, LongList taggedUserIds) throws SQLException {
+        saveUserIds(connection, "INSERT INTO post_tags (post_id, tagged_user_id) VALUES (?, ?)", postId, taggedUserIds);
+    }
+
+    private void saveAttendance(Connection connection, long postId, LongList attendingUserIds) throws SQLException {
+        saveUserIds(connection, "INSERT INTO post_participants (post_id, user_id) VALUES (?, ?)", postId, attendingUserIds);
+    }
+
+    private void saveParticipants(Connection connection, long postId, LongList participantIds) throws SQLException {
+        saveUserIds(connection, "INSERT INTO post_participants (post_id, user_id) VALUES (?, ?)", postId, participantIds);
+    }
+
+    private void saveUserIds(Connection connection, String query, long postId, LongList userIds) throws SQLException {
+        if (isEmpty(userIds)) {
+            return;
+        }
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            for (int i = 0; i < userIds.size(); i++) {
+                preparedStatement.setLong(1, postId);
+                preparedStatement.setLong(2, userIds.getLong(i));
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    private void saveComments(Connection connection, long postId, List<Comment> comments) throws SQLException {
+        if (isEmpty(comments)) {
+            return;
+        }
+        String query = "INSERT INTO comments (post_id, user_id, comment_text) VALUES (?, ?, ?)";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            for (Comment comment : comments) {
+                preparedStatement.setLong(1, postId);
+                preparedStatement.setLong(2, comment.getUserId());
+                preparedStatement.setString(3, comment.getCommentText());
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    private void saveQuestions(Connection connection, long postId, List<Question> questions) throws SQLException {
+        if (isEmpty(questions)) {
+            return;
+        }
+        String query = "INSERT INTO post_questions (post_id, user_id, question) VALUES (?, ?, ?)";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            for (Question question : questions) {
+                preparedStatement.setLong(1, postId);
+                preparedStatement.setLong(2, question.getUserId()); // Track the user who asked the question
+                preparedStatement.setString(3, question.getQuestionText());
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    private void saveAnswers(Connection connection, long postId, List<Answer> answers) throws SQLException {
+        if (isEmpty(answers)) {
+            return;
+        }
+        String query = "INSERT INTO post_answers (post_id, question_id, user_id, answer) VALUES (?, ?, ?, ?)";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            for (Answer answer : answers) {
+                preparedStatement.setLong(1, postId);
+                preparedStatement.setLong(2, answer.getQuestionId());
+                preparedStatement.setLong(3, answer.getUserId()); // Track the user who answered the question
+                preparedStatement.setString(4, answer.getAnswerText());
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    private void saveLikes(Connection connection, long postId, List<Like> likes) throws SQLException {
+        if (isEmpty(likes)) {
+            return;
+        }
+        String query = "INSERT INTO post_likes (post_id, user_id, like_type) VALUES (?, ?, ?)";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            for (Like like : likes) {
+                preparedStatement.setLong(1, postId);
+                preparedStatement.setLong(2, like.getUserId());
+                preparedStatement.setString(3, like.getLikeType());  // 'A', 'B', 'C' for thumbs up, clap, love
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    private void saveReviews(Connection connection, long postId, List<Review> reviews) throws SQLException {
+        if (isEmpty(reviews)) {
+            return;
+        }
+        String query = "INSERT INTO post_reviews (post_id, user_id, review_text, rating) VALUES (?, ?, ?, ?)";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            for (Review review : reviews) {
+                preparedStatement.setLong(1, postId);
+                preparedStatement.setLong(2, review.getUserId());
+                preparedStatement.setString(3, review.getReviewText());
+                preparedStatement.setInt(4, review.getRating());
+                preparedStatement.addBatch();
+            }
+            preparedStatement.executeBatch();
+        }
+    }
+
+    private void saveCounters(Connection connection, long postId, Post post) throws SQLException {
+        String query = "INSERT INTO post_counters (post_id, likes, comments, shares, reviews, questions, answers, participants) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setLong(1, postId);
+            preparedStatement.setLong(2, size(post.getLikes()));
+            preparedStatement.setLong(3, size(post.getComments()));
+            preparedStatement.setLong(4, 0);
+            preparedStatement.setLong(5, size(post.getReviews()));
+            preparedStatement.setLong(6, size(post.getQuestions()));
+            preparedStatement.setLong(7, size(post.getAnswers()));
+            // Attendance and participants are both stored in post_participants
+            preparedStatement.setLong(8, size(post.getAttendingUserIds()) + size(post.getParticipantIds()));
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    // Adjusts one counter atomically. Pass the connection of the transaction that writes the child row so
+    // the counter and the row commit together. Callers should also invalidate the post in PostCache.
+    public void incrementCounter(Connection connection, long postId, Counter counter, long delta) throws SQLException {
+        String column = counter.column;
+        String query = "INSERT INTO post_counters (post_id, " + column + ") VALUES (?, GREATEST(?, 0)) " +
+                "ON DUPLICATE KEY UPDATE " + column + " = GREATEST(" + column + " + ?, 0)";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setLong(1, postId);
+            preparedStatement.setLong(2, delta);
+            preparedStatement.setLong(3, delta);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    public void incrementCounter(long postId, Counter counter, long delta) throws SQLException {
+        try (Connection connection = dbConnectionManager.getConnection()) {
+            incrementCounter(connection, postId, counter, delta);
+        }
+    }
+
+    public Map<Long, PostCounters> getCounters(long... postIds) throws SQLException {
+        List<Long> ids = new ArrayList<>(postIds.length);
+        for (long postId : postIds) {
+            ids.add(postId);
+        }
+        return getCounters(ids);
+    }
+
+    // Posts without a counters row map to all-zero counters
+    public Map<Long, PostCounters> getCounters(Collection<Long> postIds) throws SQLException {
+        Map<Long, PostCounters> counters = new LinkedHashMap<>();
+        if (postIds.isEmpty()) {
+            return counters;
+        }
+        for (Long postId : postIds) {
+            counters.put(postId, new PostCounters());
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(counters.size(), "?"));
+        String query = "SELECT post_id, likes, comments, shares, reviews, questions, answers, participants " +
+                "FROM post_counters WHERE post_id IN (" + placeholders + ")";
+
+        try (Connection connection = dbConnectionManager.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            int index = 1;
+            for (Long postId : counters.keySet()) {
+                preparedStatement.setLong(index++, postId);
+            }
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    counters.put(resultSet.getLong("post_id"), mapCounters(resultSet));
+                }
+            }
+        }
+        return counters;
+    }
+
+    private static PostCounters mapCounters(ResultSet resultSet) throws SQLException {
+        return new PostCounters(
+                resultSet.getLong("likes"),
+                resultSet.getLong("comments"),
+                resultSet.getLong("shares"),
+                resultSet.getLong("reviews"),
+                resultSet.getLong("questions"),
+                resultSet.getLong("answers"),
+                resultSet.getLong("participants")
+        );
+    }
+
+    private static long size(List<?> values) {
+        return values == null ? 0 : values.size();
+    }
+
+    public enum Counter {
+        LIKES("likes"),
+        COMMENTS("comments"),
+        SHARES("shares"),
+        REVIEWS("reviews"),
+        QUESTIONS("questions"),
+        ANSWERS("answers"),
+        PARTICIPANTS("participants");
+
+        private final String column;
+
+        Counter(String column) {
+            this.column = column;
+        }
+    }
+
+    // Parts of a post that getPostsByIds can project; the paged collections hold their first page only
+    public enum PostField {
+        MEDIA(false),
+        TAGS(false),
+        PARTICIPANTS(false),
+        COUNTERS(false),
+        COMMENTS(true),
+        QUESTIONS(true),
+        ANSWERS(true),
+        LIKES(true),
+        REVIEWS(true);
+
+        public static final Set<PostField> ALL = Collections.unmodifiableSet(EnumSet.allOf(PostField.class));
+        public static final Set<PostField> SUMMARY = Collections.unmodifiableSet(EnumSet.of(MEDIA, TAGS, COUNTERS));
+
+        private final boolean pagedCollection;
+
+        PostField(boolean pagedCollection) {
+            this.pagedCollection = pagedCollection;
+        }
+
+        // Accepts "all", "summary" or a comma-separated list such as "media,counters,comments"
+        public static Set<PostField> parse(String value) {
+            if (value == null || value.isBlank() || "all".equalsIgnoreCase(value.trim())) {
+                return ALL;
+            }
+            if ("summary".equalsIgnoreCase(value.trim())) {
+                return SUMMARY;
+            }
+            Set<PostField> fields = EnumSet.noneOf(PostField.class);
+            for (String name : value.split(",")) {
+                if (!name.isBlank()) {
+                    fields.add(PostField.valueOf(name.trim().toUpperCase()));
+                }
+            }
+            return fields;
+        }
+    }
+
+    private static boolean isEmpty(List<?> values) {
+        return values == null || values.isEmpty();
+    }
+
+    public static final int EMBEDDED_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_BATCH_SIZE = 100;
+
+    private static final String ISO_DATE_TIME = "'%Y-%m-%dT%H:%i:%s'";
+    // MySQL's documented "no limit" value for LIMIT
+    private static final String ALL_ROWS = "18446744073709551615";
+
+    // Each paged collection embeds one row more than the page size so the first page knows whether a next
+    // cursor is needed. The derived tables reference the outer post (MySQL 8.0.14+). JSON_OBJECT keys are the
+    // column names, so the rows go through the same mappers as getPostsByIds and the page queries. MySQL only
+    // keeps a derived table's ORDER BY when it has a LIMIT, hence ALL_ROWS on the unpaged lists.
+    static final String POST_AGGREGATE_QUERY = "SELECT p.post_id, p.user_id, p.caption, p.shares, " +
+            "(SELECT JSON_ARRAYAGG(m.media_url) FROM (SELECT media_url FROM post_media " +
+            "WHERE post_id = p.post_id ORDER BY media_id LIMIT " + ALL_ROWS + ") m) AS media_urls, " +
+            "(SELECT JSON_ARRAYAGG(t.tagged_user_id) FROM (SELECT tagged_user_id FROM post_tags " +
+            "WHERE post_id = p.post_id ORDER BY post_tag_id LIMIT " + ALL_ROWS + ") t) AS tagged_user_ids, " +
+            "(SELECT JSON_ARRAYAGG(pp.user_id) FROM (SELECT user_id FROM post_participants " +
+            "WHERE post_id = p.post_id ORDER BY participant_id LIMIT " + ALL_ROWS + ") pp) AS participant_ids, " +
+            "(SELECT JSON_ARRAYAGG(JSON_OBJECT('comment_id', c.comment_id, 'post_id', c.post_id, 'user_id', c.user_id, " +
+            "'comment_text', c.comment_text, 'created_at', DATE_FORMAT(c.created_at, " + ISO_DATE_TIME + "))) " +
+            "FROM (SELECT * FROM comments WHERE post_id = p.post_id ORDER BY created_at DESC, comment_id DESC LIMIT " +
+            (EMBEDDED_PAGE_SIZE + 1) + ") c) AS comments, " +
+            "(SELECT JSON_ARRAYAGG(JSON_OBJECT('question_id', q.question_id, 'post_id', q.post_id, 'user_id', q.user_id, " +
+            "'question', q.question, 'created_at', DATE_FORMAT(q.created_at, " + ISO_DATE_TIME + "))) " +
+            "FROM (SELECT * FROM post_questions WHERE post_id = p.post_id ORDER BY created_at DESC, question_id DESC LIMIT " +
+            (EMBEDDED_PAGE_SIZE + 1) + ") q) AS questions, " +
+            "(SELECT JSON_ARRAYAGG(JSON_OBJECT('answer_id', a.answer_id, 'question_id', a.question_id, 'user_id', a.user_id, " +
+            "'answer', a.answer, 'created_at', DATE_FORMAT(a.created_at, " + ISO_DATE_TIME + "))) " +
+            "FROM (SELECT * FROM post_answers WHERE post_id = p.post_id ORDER BY created_at DESC, answer_id DESC LIMIT " +
+            (EMBEDDED_PAGE_SIZE + 1) + ") a) AS answers, " +
+            "(SELECT JSON_ARRAYAGG(JSON_OBJECT('like_id', l.like_id, 'post_id', l.post_id, 'user_id', l.user_id, " +
+            "'like_type', l.like_type, 'liked_at', DATE_FORMAT(l.liked_at, " + ISO_DATE_TIME + "))) " +
+            "FROM (SELECT * FROM post_likes WHERE post_id = p.post_id ORDER BY liked_at DESC, like_id DESC LIMIT " +
+            (EMBEDDED_PAGE_SIZE + 1) + ") l) AS likes, " +
+            "(SELECT JSON_ARRAYAGG(JSON_OBJECT('review_id', r.review_id, 'post_id', r.post_id, 'user_id', r.user_id, " +
+            "'review_text', r.review_text, 'rating', r.rating, 'created_at', DATE_FORMAT(r.created_at, " + ISO_DATE_TIME + "))) " +
+            "FROM (SELECT * FROM post_reviews WHERE post_id = p.post_id ORDER BY created_at DESC, review_id DESC LIMIT " +
+            (EMBEDDED_PAGE_SIZE + 1) + ") r) AS reviews, " +
+            "COALESCE(pc.likes, 0) AS likes_count, COALESCE(pc.comments, 0) AS comments_count, " +
+            "COALESCE(pc.shares, p.shares, 0) AS shares_count, COALESCE(pc.reviews, 0) AS reviews_count, " +
+            "COALESCE(pc.questions, 0) AS questions_count, COALESCE(pc.answers, 0) AS answers_count, " +
+            "COALESCE(pc.participants, 0) AS participants_count " +
+            "FROM posts p LEFT JOIN post_counters pc ON pc.post_id = p.post_id WHERE p.post_id = ?";
+
+    // Loads the post, the first page of each paged child collection and its post_counters row in a single
+    // round trip on one connection. Returns null when the post does not exist.
+    public Post getPostAggregateById(long postId) throws SQLException {
+        try (Connection connection = dbConnectionManager.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(POST_AGGREGATE_QUERY)) {
+            preparedStatement.setLong(1, postId);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+
+                Post post = new Post();
+                post.setPostId(resultSet.getLong("post_id"));
+                post.setUserId(resultSet.getLong("user_id"));
+                post.setCaption(resultSet.getString("caption"));
+                post.setShares(resultSet.getInt("shares"));
+
+                post.setMediaUrls(readStringArray(resultSet.getString("media_urls")));
+
+                post.setTaggedUserIds(readLongArray(resultSet.getString("tagged_user_ids")));
+
+                LongList participantIds = readLongArray(resultSet.getString("participant_ids"));
+                post.setAttendingUserIds(participantIds);
+                post.setParticipantIds(participantIds.copy());
+
+                Map<String, String> nextCursors = new HashMap<>();
+                post.setComments(firstPage(jsonArray(resultSet, "comments"), "comments", "comment_id", "created_at",
+                        nextCursors, PostDAO::mapComment));
+                post.setQuestions(firstPage(jsonArray(resultSet, "questions"), "questions", "question_id", "created_at",
+                        nextCursors, PostDAO::mapQuestion));
+                post.setAnswers(firstPage(jsonArray(resultSet, "answers"), "answers", "answer_id", "created_at",
+                        nextCursors, PostDAO::mapAnswer));
+                post.setLikes(firstPage(jsonArray(resultSet, "likes"), "likes", "like_id", "liked_at",
+                        nextCursors, PostDAO::mapLike));
+                post.setReviews(firstPage(jsonArray(resultSet, "reviews"), "reviews", "review_id", "created_at",
+                        nextCursors, PostDAO::mapReview));
+                post.setNextCursors(nextCursors);
+
+                post.setCounters(new PostCounters(
+                        resultSet.getLong("likes_count"),
+                        resultSet.getLong("comments_count"),
+                        resultSet.getLong("shares_count"),
+                        resultSet.getLong("reviews_count"),
+                        resultSet.getLong("questions_count"),
+                        resultSet.getLong("answers_count"),
+                        resultSet.getLong("participants_count")
+                ));
+                post.setShares((int) post.getCounters().getShares());
+
+                return post;
+            }
+        }
+    }
+
+    public List<Post> getPostsByIds(Collection<Long> postIds) throws SQLException {
+        return getPostsByIds(postIds, PostField.ALL);
+    }
+
+    // Loads many posts with one IN query per requested child table instead of one aggregate query per post, and
+    // groups the rows in memory. Posts come back in the order of postIds; missing posts are skipped. Fields that
+    // are not requested are left null, so a summary projection never touches the paged collections. With
+    // PostField.ALL each post equals what getPostAggregateById builds: both read the lists in the same order and
+    // map child rows with the same mappers, so PostCache entries and their ETags do not depend on the path.
+    public List<Post> getPostsByIds(Collection<Long> postIds, Set<PostField> fields) throws SQLException {
+        Map<Long, Post> posts = new LinkedHashMap<>();
+        if (postIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(postIds));
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " posts can be fetched at once");
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+
+        try (Connection connection = dbConnectionManager.getConnection()) {
+            String query = fields.contains(PostField.COUNTERS)
+                    ? "SELECT p.post_id, p.user_id, p.caption, p.shares, pc.likes, pc.comments, pc.shares AS counter_shares, " +
+                    "pc.reviews, pc.questions, pc.answers, pc.participants " +
+                    "FROM posts p LEFT JOIN post_counters pc ON pc.post_id = p.post_id WHERE p.post_id IN (" + placeholders + ")"
+                    : "SELECT post_id, user_id, caption, shares FROM posts WHERE post_id IN (" + placeholders + ")";
+
+            Map<Long, Post> found = new HashMap<>();
+            try (PreparedStatement preparedStatement = prepareIn(connection, query, ids)) {
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        Post post = new Post();
+                        post.setPostId(resultSet.getLong("post_id"));
+                        post.setUserId(resultSet.getLong("user_id"));
+                        post.setCaption(resultSet.getString("caption"));
+                        post.setShares(resultSet.getInt("shares"));
+                        if (fields.contains(PostField.COUNTERS)) {
+                            // A post without a counters row reads as zeros, with shares falling back to posts.shares
+                            post.setCounters(new PostCounters(
+                                    resultSet.getLong("likes"),
+                                    resultSet.getLong("comments"),
+                                    resultSet.getObject("counter_shares") != null ? resultSet.getLong("counter_shares") : post.getShares(),
+                                    resultSet.getLong("reviews"),
+                                    resultSet.getLong("questions"),
+                                    resultSet.getLong("answers"),
+                                    resultSet.getLong("participants")
+                            ));
+                            post.setShares((int) post.getCounters().getShares());
+                        }
+                        found.put(post.getPostId(), post);
+                    }
+                }
+            }
+            for (Long postId : ids) {
+                Post post = found.get(postId);
+                if (post != null) {
+                    posts.put(postId, post);
+                }
+            }
+            if (posts.isEmpty()) {
+                return new ArrayList<>();
+            }
+            List<Long> foundIds = new ArrayList<>(posts.keySet());
+
+            if (fields.contains(PostField.MEDIA)) {
+                Map<Long, List<String>> mediaUrls = loadValues(connection,
+                        "SELECT post_id, media_url FROM post_media WHERE post_id IN (%s) ORDER BY post_id, media_id",
+                        foundIds, row -> row.getString("media_url"));
+                posts.forEach((postId, post) -> post.setMediaUrls(mediaUrls.getOrDefault(postId, new ArrayList<>())));
+            }
+            if (fields.contains(PostField.TAGS)) {
+                Map<Long, LongList> taggedUserIds = loadIds(connection,
+                        "SELECT post_id, tagged_user_id FROM post_tags WHERE post_id IN (%s) ORDER BY post_id, post_tag_id",
+                        foundIds, "tagged_user_id");
+                posts.forEach((postId, post) -> post.setTaggedUserIds(taggedUserIds.getOrDefault(postId, new LongList())));
+            }
+            if (fields.contains(PostField.PARTICIPANTS)) {
+                Map<Long, LongList> participantIds = loadIds(connection,
+                        "SELECT post_id, user_id FROM post_participants WHERE post_id IN (%s) ORDER BY post_id, participant_id",
+                        foundIds, "user_id");
+                posts.forEach((postId, post) -> {
+                    LongList participants = participantIds.getOrDefault(postId, new LongList());
+                    post.setAttendingUserIds(participants);
+                    post.setParticipantIds(participants.copy());
+                });
+            }
+
+            boolean anyPaged = false;
+            for (PostField field : fields) {
+                anyPaged |= field.pagedCollection;
+            }
+            if (anyPaged) {
+                posts.values().forEach(post -> post.setNextCursors(new HashMap<>()));
+            }
+            if (fields.contains(PostField.COMMENTS)) {
+                loadEmbeddedPages(connection, "comments", "comment_id", "created_at", "comments", posts,
+                        PostDAO::mapComment, Post::setComments);
+            }
+            if (fields.contains(PostField.QUESTIONS)) {
+                loadEmbeddedPages(connection, "post_questions", "question_id", "created_at", "questions", posts,
+                        PostDAO::mapQuestion, Post::setQuestions);
+            }
+            if (fields.contains(PostField.ANSWERS)) {
+                loadEmbeddedPages(connection, "post_answers", "answer_id", "created_at", "answers", posts,
+                        PostDAO::mapAnswer, Post::setAnswers);
+            }
+            if (fields.contains(PostField.LIKES)) {
+                loadEmbeddedPages(connection, "post_likes", "like_id", "liked_at", "likes", posts,
+                        PostDAO::mapLike, Post::setLikes);
+            }
+            if (fields.contains(PostField.REVIEWS)) {
+                loadEmbeddedPages(connection, "post_reviews", "review_id", "created_at", "reviews", posts,
+                        PostDAO::mapReview, Post::setReviews);
+            }
+        }
+        return new ArrayList<>(posts.values());
+    }
+
+    private <T> Map<Long, List<T>> loadValues(Connection connection, String queryTemplate, List<Long> postIds,
+                                              RowMapper<T> mapper) throws SQLException {
+        String query = String.format(queryTemplate, String.join(", ", Collections.nCopies(postIds.size(), "?")));
+        Map<Long, List<T>> values = new HashMap<>();
+        try (PreparedStatement preparedStatement = prepareIn(connection, query, postIds);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                values.computeIfAbsent(resultSet.getLong("post_id"), id -> new ArrayList<>()).add(mapper.map(Row.of(resultSet)));
+            }
+        }
+        return values;
+    }
+
+    // Like loadValues, but the IDs are read with getLong straight into each post's LongList without boxing
+    private Map<Long, LongList> loadIds(Connection connection, String queryTemplate, List<Long> postIds,
+                                        String column) throws SQLException {
+        String query = String.format(queryTemplate, String.join(", ", Collections.nCopies(postIds.size(), "?")));
+        Map<Long, LongList> values = new HashMap<>();
+        try (PreparedStatement preparedStatement = prepareIn(connection, query, postIds);
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            int postIdIndex = resultSet.findColumn("post_id");
+            int valueIndex = resultSet.findColumn(column);
+            LongList current = null;
+            long currentPostId = 0;
+            while (resultSet.next()) {
+                long postId = resultSet.getLong(postIdIndex);
+                // Rows come ordered by post_id, so the map is only consulted when the post changes
+                if (current == null || postId != currentPostId) {
+                    current = values.computeIfAbsent(postId, id -> new LongList());
+                    currentPostId = postId;
+                }
+                current.addLong(resultSet.getLong(valueIndex));
+            }
+        }
+        return values;
+    }
+
+    // A LATERAL derived table runs one "ORDER BY time DESC, id DESC LIMIT page + 1" per post, and each of those
+    // stops after page + 1 entries of the (post_id, time, id) index, so a post with thousands of comments costs the
+    // same as one with twenty. The extra row only marks that a next cursor is needed. (MySQL 8.0.14+)
+    private <T> void loadEmbeddedPages(Connection connection, String table, String idColumn, String timeColumn,
+                                       String collection, Map<Long, Post> posts, RowMapper<T> mapper,
+                                       BiConsumer<Post, List<T>> setter) throws SQLException {
+        String query = embeddedPagesQuery(table, idColumn, timeColumn, posts.size());
+
+        Map<Long, List<T>> pages = new HashMap<>();
+        Map<Long, PageCursor> lastCursors = new HashMap<>();
+        try (PreparedStatement preparedStatement = prepareIn(connection, query, new ArrayList<>(posts.keySet()));
+             ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                long postId = resultSet.getLong("post_id");
+                List<T> page = pages.computeIfAbsent(postId, id -> new ArrayList<>());
+                if (page.size() == EMBEDDED_PAGE_SIZE) {
+                    posts.get(postId).getNextCursors().put(collection, lastCursors.get(postId).encode());
+                    continue;
+                }
+                page.add(mapper.map(Row.of(resultSet)));
+                lastCursors.put(postId, new PageCursor(resultSet.getTimestamp(timeColumn).toLocalDateTime(), resultSet.getLong(idColumn)));
+            }
+        }
+        posts.forEach((postId, post) -> setter.accept(post, pages.getOrDefault(postId, new ArrayList<>())));
+    }
+
+    static String embeddedPagesQuery(String table, String idColumn, String timeColumn, int postCount) {
+        return "SELECT t.* FROM posts p, LATERAL (SELECT * FROM " + table + " c WHERE c.post_id = p.post_id " +
+                "ORDER BY c." + timeColumn + " DESC, c." + idColumn + " DESC LIMIT " + (EMBEDDED_PAGE_SIZE + 1) + ") t " +
+                "WHERE p.post_id IN (" + String.join(", ", Collections.nCopies(postCount, "?")) + ") " +
+                "ORDER BY t.post_id, t." + timeColumn + " DESC, t." + idColumn + " DESC";
+    }
+
+    private static PreparedStatement prepareIn(Connection connection, String query, List<Long> ids) throws SQLException {
+        PreparedStatement preparedStatement = connection.prepareStatement(query);
+        try {
+            int index = 1;
+            for (Long id : ids) {
+                preparedStatement.setLong(index++, id);
+            }
+            return preparedStatement;
+        } catch (SQLException e) {
+            preparedStatement.close();
+            throw e;
+        }
+    }
+
+    // Pull-model timeline straight from MySQL, newest first: posts by followed accounts, the user's own posts and
+    // posts the user is tagged in. Used to rebuild a cold Redis feed and when Redis is not configured.
+    public List<Long> getTimelinePostIds(long userId, Long beforePostId, int limit) throws SQLException {
+        String query = "SELECT post_id FROM (" +
+                "(SELECT p.post_id FROM user_follows f JOIN posts p ON p.user_id = f.followee_id " +
+                "WHERE f.follower_id = ? AND p.post_id < ? ORDER BY p.post_id DESC LIMIT ?) " +
+                "UNION (SELECT post_id FROM posts WHERE user_id = ? AND post_id < ? ORDER BY post_id DESC LIMIT ?) " +
+                "UNION (SELECT post_id FROM post_tags WHERE tagged_user_id = ? AND post_id < ? ORDER BY post_id DESC LIMIT ?)" +
+                ") timeline ORDER BY post_id DESC LIMIT ?";
+        long before = beforePostId == null ? Long.MAX_VALUE : beforePostId;
+
+        try (Connection connection = dbConnectionManager.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            int index = 1;
+            for (int branch = 0; branch < 3; branch++) {
+                preparedStatement.setLong(index++, userId);
+                preparedStatement.setLong(index++, before);
+                preparedStatement.setInt(index++, limit);
+            }
+            preparedStatement.setInt(index, limit);
+
+            List<Long> postIds = new ArrayList<>();
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    postIds.add(resultSet.getLong("post_id"));
+                }
+            }
+            return postIds;
+        }
+    }
+
+    public Page<Comment> getCommentsPage(long postId, PageCursor cursor, int limit) throws SQLException {
+        return getPage("comments", "comment_id", "created_at", postId, cursor, limit, PostDAO::mapComment);
+    }
+
+    public Page<Like> getLikesPage(long postId, PageCursor cursor, int limit) throws SQLException {
+        return getPage("post_likes", "like_id", "liked_at", postId, cursor, limit, PostDAO::mapLike);
+    }
+
+    public Page<Review> getReviewsPage(long postId, PageCursor cursor, int limit) throws SQLException {
+        return getPage("post_reviews", "review_id", "created_at", postId, cursor, limit, PostDAO::mapReview);
+    }
+
+    public Page<Question> getQuestionsPage(long postId, PageCursor cursor, int limit) throws SQLException {
+        return getPage("post_questions", "question_id", "created_at", postId, cursor, limit, PostDAO::mapQuestion);
+    }
+
+    public Page<Answer> getAnswersPage(long postId, PageCursor cursor, int limit) throws SQLException {
+        return getPage("post_answers", "answer_id", "created_at", postId, cursor, limit, PostDAO::mapAnswer);
+    }
+
+    // Shared by the aggregate, batch and page queries; see Row
+    static Comment mapComment(Row row) throws SQLException {
+        Comment comment = new Comment();
+        comment.setCommentId(row.getLong("comment_id"));
+        comment.setPostId(row.getLong("post_id"));
+        comment.setUserId(row.getLong("user_id"));
+        comment.setCommentText(row.getString("comment_text"));
+        comment.setCreatedAt(row.getDateTime("created_at"));
+        return comment;
+    }
+
+    static Like mapLike(Row row) throws SQLException {
+        Like like = new Like();
+        like.setId(row.getLong("like_id"));
+        like.setPostId(row.getLong("post_id"));
+        like.setUserId(row.getLong("user_id"));
+        like.setLikeType(row.getString("like_type"));
+        like.setLikedAt(row.getDateTime("liked_at"));
+        return like;
+    }
+
+    static Review mapReview(Row row) throws SQLException {
+        Review review = new Review();
+        review.setId(row.getLong("review_id"));
+        review.setPostId(row.getLong("post_id"));
+        review.setUserId(row.getLong("user_id"));
+        review.setReviewText(row.getString("review_text"));
+        review.setRating(row.getInt("rating"));
+        review.setCreatedAt(row.getDateTime("created_at"));
+        return review;
+    }
+
+    static Question mapQuestion(Row row) throws SQLException {
+        Question question = new Question();
+        question.setQuestionId(row.getLong("question_id"));
+        question.setPostId(row.getLong("post_id"));
+        question.setUserId(row.getLong("user_id"));
+        question.setQuestionText(row.getString("question"));
+        question.setCreatedAt(row.getDateTime("created_at"));
+        return question;
+    }
+
+    static Answer mapAnswer(Row row) throws SQLException {
+        Answer answer = new Answer();
+        answer.setAnswerId(row.getLong("answer_id"));
+        answer.setQuestionId(row.getLong("question_id"));
+        answer.setUserId(row.getLong("user_id"));
+        answer.setAnswerText(row.getString("answer"));
+        answer.setCreatedAt(row.getDateTime("created_at"));
+        return answer;
+    }
+
+    // Table and column names are constants supplied by the callers above, never request input
+    private <T> Page<T> getPage(String table, String idColumn, String timeColumn, long postId, PageCursor cursor,
+                                int limit, RowMapper<T> mapper) throws SQLException {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        String query = pageQuery(table, idColumn, timeColumn, cursor != null);
+
+        try (Connection connection = dbConnectionManager.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            int index = 1;
+            preparedStatement.setLong(index++, postId);
+            if (cursor != null) {
+                Timestamp createdAt = Timestamp.valueOf(cursor.getCreatedAt());
+                preparedStatement.setTimestamp(index++, createdAt);
+                preparedStatement.setTimestamp(index++, createdAt);
+                preparedStatement.setLong(index++, cursor.getId());
+            }
+            preparedStatement.setInt(index, pageSize + 1);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                List<T> items = new ArrayList<>();
+                PageCursor last = null;
+                while (resultSet.next()) {
+                    if (items.size() == pageSize) {
+                        return new Page<>(items, last.encode());
+                    }
+                    items.add(mapper.map(Row.of(resultSet)));
+                    last = new PageCursor(resultSet.getTimestamp(timeColumn).toLocalDateTime(), resultSet.getLong(idColumn));
+                }
+                return new Page<>(items, null);
+            }
+        }
+    }
+
+    // Served by the (post_id, time, id) index on each child table; see SchemaMigrations version 3
+    static String pageQuery(String table, String idColumn, String timeColumn, boolean withCursor) {
+        StringBuilder query = new StringBuilder("SELECT * FROM ").append(table).append(" WHERE post_id = ?");
+        if (withCursor) {
+            query.append(" AND (").append(timeColumn).append(" < ? OR (")
+                    .append(timeColumn).append(" = ? AND ").append(idColumn).append(" < ?))");
+        }
+        query.append(" ORDER BY ").append(timeColumn).append(" DESC, ").append(idColumn).append(" DESC LIMIT ?");
+        return query.toString();
+    }
+
+    // Trims an embedded page fetched with one extra row and records the next cursor when that row exists
+    private static <T> List<T> firstPage(JsonArray rows, String collection, String idColumn, String timeColumn,
+                                         Map<String, String> nextCursors, RowMapper<T> mapper) throws SQLException {
+        List<T> items = new ArrayList<>();
+        Row last = null;
+        for (JsonElement element : rows) {
+            Row row = Row.of(element.getAsJsonObject());
+            if (items.size() == EMBEDDED_PAGE_SIZE) {
+                nextCursors.put(collection, new PageCursor(last.getDateTime(timeColumn), last.getLong(idColumn)).encode());
+                break;
+            }
+            items.add(mapper.map(row));
+            last = row;
+        }
+        return items;
+    }
+
+    // JSON_ARRAYAGG yields NULL rather than an empty array when a post has no child rows
+    private static JsonArray jsonArray(ResultSet resultSet, String column) throws SQLException {
+        String json = resultSet.getString(column);
+        return json == null ? new JsonArray() : JsonParser.parseString(json).getAsJsonArray();
+    }
+
+    // The ID and URL columns are read token by token rather than through a JsonArray, so each ID goes straight from
+    // the JSON text into the LongList without a JsonPrimitive or boxed number in between
+    static LongList readLongArray(String json) throws SQLException {
+        LongList values = new LongList();
+        if (json == null) {
+            return values;
+        }
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                values.addLong(reader.nextLong());
+            }
+            reader.endArray();
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new SQLException("Malformed ID array: " + json, e);
+        }
+        return values;
+    }
+
+    static List<String> readStringArray(String json) throws SQLException {
+        List<String> values = new ArrayList<>();
+        if (json == null) {
+            return values;
+        }
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                values.add(reader.nextString());
+            }
+            reader.endArray();
+        } catch (IOException | IllegalStateException e) {
+            throw new SQLException("Malformed string array: " + json, e);
+        }
+        return values;
+    }
+
+    private static LongList readIds(PreparedStatement preparedStatement, String column) throws SQLException {
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+            int index = resultSet.findColumn(column);
+            LongList ids = new LongList();
+            while (resultSet.next()) {
+                ids.addLong(resultSet.getLong(index));
+            }
+            return ids;
+        }
+    }
+
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(Row row) throws SQLException;
+    }
+
+    // Column access over either a JDBC row or a JSON_OBJECT row of POST_AGGREGATE_QUERY, which uses the column
+    // names as keys. SQL NULL reads as null for every type.
+    interface Row {
+        Long getLong(String column) throws SQLException;
+
+        Integer getInt(String column) throws SQLException;
+
+        String getString(String column) throws SQLException;
+
+        LocalDateTime getDateTime(String column) throws SQLException;
+
+        static Row of(ResultSet resultSet) {
+            return new Row() {
+                @Override
+                public Long getLong(String column) throws SQLException {
+                    long value = resultSet.getLong(column);
+                    return resultSet.wasNull() ? null : value;
+                }
+
+                @Override
+                public Integer getInt(String column) throws SQLException {
+                    int value = resultSet.getInt(column);
+                    return resultSet.wasNull() ? null : value;
+                }
+
+                @Override
+                public String getString(String column) throws SQLException {
+                    return resultSet.getString(column);
+                }
+
+                @Override
+                public LocalDateTime getDateTime(String column) throws SQLException {
+                    Timestamp value = resultSet.getTimestamp(column);
+                    return value == null ? null : value.toLocalDateTime();
+                }
+            };
+        }
+
+        static Row of(JsonObject object) {
+            return new Row() {
+                @Override
+                public Long getLong(String column) {
+                    JsonElement value = object.get(column);
+                    return value == null || value.isJsonNull() ? null : value.getAsLong();
+                }
+
+                @Override
+                public Integer getInt(String column) {
+                    JsonElement value = object.get(column);
+                    return value == null || value.isJsonNull() ? null : value.getAsInt();
+                }
+
+                @Override
+                public String getString(String column) {
+                    JsonElement value = object.get(column);
+                    return value == null || value.isJsonNull() ? null : value.getAsString();
+                }
+
+                @Override
+                public LocalDateTime getDateTime(String column) {
+                    String value = getString(column);
+                    return value == null ? null : LocalDateTime.parse(value);
+                }
+            };
+        }
+    }
+
+    public Post getPostById(long postId) throws SQLException {
+        String query = "SELECT * FROM posts WHERE post_id = ?";
+        try (Connection connection = dbConnectionManager.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setLong(1, postId);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    Post post = new Post();
+                    post.setPostId(resultSet.getLong("post_id"));
+                    post.setUserId(resultSet.getLong("user_id"));
+                    post.setCaption(resultSet.getString("caption"));
+                    post.setShares(Integer.parseInt(resultSet.getString("shares")));
+                    return post;
+                } else {
+                    throw new SQLException("Post not found");
+                }
+            }
+        }
+    }
+
+    public List<String> getMediaUrlsByPostId(long postId) throws SQLException {
+        String query = "SELECT media_url FROM post_media WHERE post_id = ?";
+        List<String> mediaUrls = new ArrayList<>();
+
+        try (Connection connection = dbConnectionManager.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setLong(1, postId);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    mediaUrls.add(resultSet.getString("media_url"));
+                }
+            }
+        }
+        return mediaUrls;
+    }
+
+    public LongList getTaggedUserIdsByPostId(long postId) throws SQLException {
+        String query = "SELECT tagged_user_id FROM post_tags WHERE post_id = ?";
+        try (Connection connection = dbConnectionManager.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setLong(1, postId);
+            return readIds(preparedStatement, "tagged_user_id");
+        }
+    }
+
+    public LongList getAttendingUserIdsByPostId(long postId) throws SQLException {
+        String query = "SELECT user_id FROM post_participants WHERE post_id = ?";
+        try (Connection connection = dbConnectionManager.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setLong(1, postId);
+            return readIds(preparedStatement, "user_id");
+        }
+    }
+
+    public LongList getParticipantIdsByPostId(long postId) throws SQLException {
+        String query = "SELECT user_id FROM post_participants WHERE post_id = ?";
+        try (Connection connection = dbConnectionManager.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setLong(1, postId);
+            return readIds(preparedStatement, "user_id");
+        }
+    }
+}
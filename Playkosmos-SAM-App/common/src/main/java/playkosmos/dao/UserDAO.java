@@ -3,6 +3,7 @@ package playkosmos.dao;
 import java.sql.*;
 import java.time.LocalDateTime;
 
+import playkosmos.cache.UserCache;
 import playkosmos.dbutil.DatabaseConnectionManager;
 import lombok.RequiredArgsConstructor;
 import playkosmos.entity.User;
@@ -10,12 +11,19 @@ import playkosmos.entity.User;
 @RequiredArgsConstructor
 public class UserDAO {
 
+    // Each lookup is served by an index added in SchemaMigrations version 3. The user lookups leave out the
+    // password hash, which is only read by findPasswordHash so it is never cached.
+    static final String FIND_BY_EMAIL_QUERY = "SELECT id, username, email, phoneNumber, countryCode, dateOfBirth FROM user_table WHERE email = ?";
+    static final String FIND_BY_PHONE_NUMBER_QUERY = "SELECT id, username, email, phoneNumber, countryCode, dateOfBirth FROM user_table WHERE phoneNumber = ?";
+    static final String LATEST_OTP_QUERY = "SELECT otp, expiry_time FROM otp_table WHERE user_id = ? ORDER BY expiry_time DESC LIMIT 1";
+    static final String FIND_BY_USERNAME_QUERY = "SELECT id, username, email, phoneNumber, countryCode, dateOfBirth FROM user_table WHERE username = ?";
+    static final String FIND_PASSWORD_QUERY = "SELECT password FROM user_table WHERE id = ?";
+
     private final DatabaseConnectionManager dbConnectionManager;
+    private final UserCache userCache = UserCache.getInstance();
 
     public void saveUserToDatabase(User user) throws SQLException {
 
-        ensureUserTableExists();
-
         String query =
                 "INSERT INTO user_table (username, email, phoneNumber, countryCode, dateOfBirth, password) VALUES (?, ?, ?, ?, ?, ?)";
 
@@ -33,27 +41,13 @@ public class UserDAO {
 
     }
 
-    private void ensureUserTableExists() throws SQLException{
-
-        String createTableQuery = "CREATE TABLE IF NOT EXISTS user_table (" +
-                "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
-                "username VARCHAR(255) NOT NULL, " +
-                "email VARCHAR(255), " +
-                "phoneNumber VARCHAR(255), " +
-                "countryCode VARCHAR(10), " +
-                "dateOfBirth DATE NOT NULL, " +
-                "password VARCHAR(255) NOT NULL" +
-                ")";
-
-        try(Connection connection = dbConnectionManager.getConnection();
-            Statement statement = connection.createStatement()){
-            statement.execute(createTableQuery);
-        }
-    }
-
     public User findUserByEmail(String email) throws SQLException {
+        User cached = userCache.getByEmail(email);
+        if (cached != null) {
+            return cached;
+        }
 
-        String query = "SELECT id, username, email, phoneNumber, countryCode, dateOfBirth, password FROM user_table WHERE email = ?";
+        String query = FIND_BY_EMAIL_QUERY;
 
         try (Connection connection = dbConnectionManager.getConnection();
              PreparedStatement preparedStatement = connection.prepareStatement(query)) {
@@ -68,9 +62,10 @@ public class UserDAO {
                             resultSet.getString("phoneNumber"),
                             resultSet.getString("countryCode"),
                             resultSet.getDate("dateOfBirth").toLocalDate(),
-                            resultSet.getString("password")
+                            null
                     );
                     user.setId(resultSet.getLong("id"));
+                    userCache.putByEmail(email, user);
                     return user;
                 } else {
                     return null;
@@ -86,7 +81,7 @@ public class UserDAO {
 //            phoneNumber = "+234" + phoneNumber.substring(1);
 //        }
 
-        String query = "SELECT id, username, email, phoneNumber, countryCode, dateOfBirth, password FROM user_table WHERE phoneNumber = ?";
+        String query = FIND_BY_PHONE_NUMBER_QUERY;
 
         try (Connection connection = dbConnectionManager.getConnection();
              PreparedStatement preparedStatement = connection.prepareStatement(query)) {
@@ -101,7 +96,7 @@ public class UserDAO {
                             resultSet.getString("phoneNumber"),
                             resultSet.getString("countryCode"),
                             resultSet.getDate("dateOfBirth").toLocalDate(),
-                            resultSet.getString("password")
+                            null
                     );
                     user.setId(resultSet.getLong("id"));
                     return user;
@@ -113,8 +108,6 @@ public class UserDAO {
     }
 
     public void saveOtpToDatabase(User user, String otp) throws SQLException {
-        ensureOtpTableExists();
-
         String query = "INSERT INTO otp_table (user_id, otp, expiry_time) VALUES (?, ?, ?)";
 
         try (Connection connection = dbConnectionManager.getConnection();
@@ -128,24 +121,9 @@ public class UserDAO {
         }
     }
 
-    private void ensureOtpTableExists() throws SQLException {
-        String createOtpTableQuery = "CREATE TABLE IF NOT EXISTS otp_table (" +
-                "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
-                "user_id BIGINT NOT NULL, " +
-                "otp VARCHAR(6) NOT NULL, " +
-                "expiry_time TIMESTAMP NOT NULL, " +
-                "FOREIGN KEY (user_id) REFERENCES user_table(id)" +
-                ")";
-
-        try (Connection connection = dbConnectionManager.getConnection();
-             Statement statement = connection.createStatement()) {
-            statement.execute(createOtpTableQuery);
-        }
-    }
-
     public boolean isOtpValid(User user, String otp) throws SQLException {
 
-        String query = "SELECT otp, expiry_time FROM otp_table WHERE user_id = ? ORDER BY expiry_time DESC LIMIT 1";
+        String query = LATEST_OTP_QUERY;
 
         try (Connection connection = dbConnectionManager.getConnection();
              PreparedStatement preparedStatement = connection.prepareStatement(query)) {
@@ -167,7 +145,12 @@ public class UserDAO {
     }
 
     public User findUserByUsername(String username) throws SQLException {
-        String query = "SELECT * FROM user_table WHERE username = ?";
+        User cached = userCache.getByUsername(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        String query = FIND_BY_USERNAME_QUERY;
 
         try (Connection connection = dbConnectionManager.getConnection();
              PreparedStatement preparedStatement = connection.prepareStatement(query)) {
@@ -176,14 +159,17 @@ public class UserDAO {
 
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 if (resultSet.next()) {
-                    return new User(
+                    User user = new User(
                             resultSet.getString("username"),
                             resultSet.getString("email"),
                             resultSet.getString("phoneNumber"),
                             resultSet.getString("countryCode"),
                             resultSet.getDate("dateOfBirth").toLocalDate(),
-                            resultSet.getString("password")
+                            null
                     );
+                    user.setId(resultSet.getLong("id"));
+                    userCache.putByUsername(username, user);
+                    return user;
                 } else {
                     return null;
                 }
@@ -191,6 +177,19 @@ public class UserDAO {
         }
     }
 
+    // Always read from MySQL, so a password change is seen by every container immediately
+    public String findPasswordHash(long userId) throws SQLException {
+        try (Connection connection = dbConnectionManager.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(FIND_PASSWORD_QUERY)) {
+
+            preparedStatement.setLong(1, userId);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString("password") : null;
+            }
+        }
+    }
+
     public void updateUserPassword(String username, String newPassword) throws SQLException {
         String query = "UPDATE user_table SET password = ? WHERE username = ?";
 
@@ -204,6 +203,8 @@ public class UserDAO {
             if (rowsUpdated == 0) {
                 throw new SQLException("Updating password failed, no rows affected.");
             }
+        } finally {
+            userCache.invalidateUser(username);
         }
     }
 
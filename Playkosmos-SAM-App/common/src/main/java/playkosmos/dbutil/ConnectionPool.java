@@ -0,0 +1,315 @@
+package playkosmos.dbutil;
+
+import playkosmos.utils.RuntimeLog;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Bounded pool of physical MySQL connections. Housekeeping (idle eviction, lifetime recycling and leak
+// detection) runs on the borrowing thread instead of a background timer, because Lambda freezes the
+// execution environment between invocations.
+public class ConnectionPool implements AutoCloseable {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    // A leaking code path usually leaks on every invocation, so its borrow stack trace is logged at most this often
+    private static final long LEAK_TRACE_INTERVAL_MILLIS = 60_000;
+
+    private final String dbUrl;
+    private final String username;
+    private final String password;
+    private final PoolConfig config;
+    private final PoolMetrics metrics = new PoolMetrics();
+
+    private final Semaphore permits;
+    private final Deque<PooledEntry> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledEntry> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final AtomicLong nextLeakTraceAt = new AtomicLong(Long.MIN_VALUE);
+
+    public ConnectionPool(String dbUrl, String username, String password, PoolConfig config) {
+        if (config.getMaxPoolSize() < 1) {
+            throw new IllegalArgumentException("maxPoolSize must be at least 1");
+        }
+        this.dbUrl = dbUrl;
+        this.username = username;
+        this.password = password;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxPoolSize(), true);
+    }
+
+    public Connection getConnection() throws SQLException {
+        if (closed.get()) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(config.getConnectionTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        if (!acquired) {
+            metrics.recordTimeout();
+            throw new SQLException("Timed out after " + config.getConnectionTimeoutMillis()
+                    + "ms waiting for a database connection (pool size " + config.getMaxPoolSize() + ")");
+        }
+        metrics.recordWait(System.nanoTime() - start);
+
+        try {
+            detectLeaks();
+
+            PooledEntry entry;
+            while ((entry = idle.pollFirst()) != null) {
+                if (isUsable(entry)) {
+                    metrics.recordHit();
+                    return lease(entry);
+                }
+                metrics.recordEviction();
+                entry.closeQuietly();
+            }
+
+            metrics.recordMiss();
+            return lease(openEntry());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Opens connections until minIdle are available; used to pre-warm the pool outside the request path.
+    public void fillToMinimum() throws SQLException {
+        while (!closed.get() && idle.size() + borrowed.size() < config.getMinIdle()) {
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            try {
+                idle.offerLast(openEntry());
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    // Closes every idle connection, e.g. before a SnapStart snapshot; the pool stays open and reconnects on demand
+    public void evictIdle() {
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            metrics.recordEviction();
+            entry.closeQuietly();
+        }
+    }
+
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    public Map<String, Object> getMetricsSnapshot() {
+        return metrics.snapshot(borrowed.size(), idle.size(), config.getMaxPoolSize());
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    // Stops lending connections and closes the idle ones, but leaves borrowed connections to finish their work;
+    // each is closed when it is handed back. Used when rotated credentials replace the pool mid-flight.
+    public void drain() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        evictIdle();
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            entry.closeQuietly();
+        }
+        for (PooledEntry leased : borrowed) {
+            leased.closeQuietly();
+        }
+        borrowed.clear();
+    }
+
+    private PooledEntry openEntry() throws SQLException {
+        return new PooledEntry(DriverManager.getConnection(dbUrl, username, password));
+    }
+
+    private boolean isUsable(PooledEntry entry) {
+        long now = System.currentTimeMillis();
+        if (config.getMaxLifetimeMillis() > 0 && now - entry.createdAt >= config.getMaxLifetimeMillis()) {
+            return false;
+        }
+
+        long idleMillis = now - entry.lastReturnedAt;
+        if (config.getIdleTimeoutMillis() > 0 && idleMillis >= config.getIdleTimeoutMillis()
+                && idle.size() >= config.getMinIdle()) {
+            return false;
+        }
+
+        if (idleMillis >= config.getValidationIntervalMillis()) {
+            try {
+                return entry.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Connection lease(PooledEntry entry) {
+        entry.borrowedAt = System.currentTimeMillis();
+        entry.leakReported = false;
+        entry.borrowSite = config.getLeakDetectionThresholdMillis() > 0
+                ? new Throwable("Connection borrowed here")
+                : null;
+        borrowed.add(entry);
+        return entry.newHandle();
+    }
+
+    private void release(PooledEntry entry) {
+        if (!borrowed.remove(entry)) {
+            return;
+        }
+        try {
+            boolean reusable = !closed.get() && !entry.physical.isClosed();
+            if (reusable && !entry.physical.getAutoCommit()) {
+                entry.physical.rollback();
+                entry.physical.setAutoCommit(true);
+            }
+            long age = System.currentTimeMillis() - entry.createdAt;
+            if (reusable && (config.getMaxLifetimeMillis() <= 0 || age < config.getMaxLifetimeMillis())) {
+                entry.lastReturnedAt = System.currentTimeMillis();
+                idle.offerFirst(entry);
+                if (closed.get()) {
+                    // Drained or closed while this connection was on its way back
+                    evictIdle();
+                }
+            } else {
+                metrics.recordEviction();
+                entry.closeQuietly();
+            }
+        } catch (SQLException e) {
+            metrics.recordEviction();
+            entry.closeQuietly();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void detectLeaks() {
+        long threshold = config.getLeakDetectionThresholdMillis();
+        if (threshold <= 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Iterator<PooledEntry> iterator = borrowed.iterator();
+        while (iterator.hasNext()) {
+            PooledEntry entry = iterator.next();
+            if (!entry.leakReported && now - entry.borrowedAt > threshold) {
+                entry.leakReported = true;
+                metrics.recordLeak();
+                String message = "Possible connection leak: connection held for " + (now - entry.borrowedAt) + "ms";
+                long due = nextLeakTraceAt.get();
+                if (entry.borrowSite != null && now >= due && nextLeakTraceAt.compareAndSet(due, now + LEAK_TRACE_INTERVAL_MILLIS)) {
+                    RuntimeLog.log(message + ", borrowed at:", entry.borrowSite);
+                } else {
+                    RuntimeLog.log(message);
+                }
+            }
+        }
+    }
+
+    private final class PooledEntry {
+
+        private final Connection physical;
+        private final long createdAt;
+        private volatile long lastReturnedAt;
+        private volatile long borrowedAt;
+        private volatile boolean leakReported;
+        private volatile Throwable borrowSite;
+
+        private PooledEntry(Connection physical) {
+            this.physical = physical;
+            this.createdAt = System.currentTimeMillis();
+            this.lastReturnedAt = createdAt;
+        }
+
+        private Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new HandleInvocationHandler(this));
+        }
+
+        private void closeQuietly() {
+            try {
+                physical.close();
+            } catch (SQLException ignored) {
+                // The connection is being discarded either way
+            }
+        }
+    }
+
+    // Each borrow gets its own handle so a stale reference cannot touch a connection after it was returned.
+    private final class HandleInvocationHandler implements InvocationHandler {
+
+        private final PooledEntry entry;
+        private final AtomicBoolean returned = new AtomicBoolean(false);
+
+        private HandleInvocationHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (returned.compareAndSet(false, true)) {
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned.get() || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + "]";
+                default:
+                    break;
+            }
+
+            if (returned.get()) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
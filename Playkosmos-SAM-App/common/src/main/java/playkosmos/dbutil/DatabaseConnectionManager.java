@@ -0,0 +1,84 @@
+package playkosmos.dbutil;
+
+import playkosmos.utils.DatabaseCredentials;
+import playkosmos.utils.MetricsReporter;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+public class DatabaseConnectionManager {
+
+    private static DatabaseConnectionManager instance;
+    private final DatabaseCredentials credentials;
+    private final ConnectionPool connectionPool;
+    private volatile boolean schemaVerified;
+
+    public DatabaseConnectionManager(Map<String, Object> secretMap) {
+        this(DatabaseCredentials.fromSecretMap(secretMap));
+    }
+
+    public DatabaseConnectionManager(DatabaseCredentials credentials) {
+        this.credentials = credentials;
+        this.connectionPool = new ConnectionPool(credentials.getJdbcUrl(), credentials.getUsername(),
+                credentials.getPassword(), PoolConfig.fromEnvironment());
+        MetricsReporter.getInstance().register("pool", connectionPool::getMetricsSnapshot);
+    }
+
+    // Returns a pooled connection; closing it hands the physical connection back to the pool
+    public Connection getConnection() throws SQLException {
+        return connectionPool.getConnection();
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    public Map<String, Object> getPoolMetrics() {
+        return connectionPool.getMetricsSnapshot();
+    }
+
+    // Runs pending schema migrations once per execution environment unless SCHEMA_MIGRATION_MODE=deploy,
+    // in which case the SchemaMigrationHandler is expected to have run them as a deployment step. Deploy-only
+    // migrations are always left to SchemaMigrationHandler.
+    public void ensureSchema() {
+        if (schemaVerified || "deploy".equalsIgnoreCase(System.getenv("SCHEMA_MIGRATION_MODE"))) {
+            return;
+        }
+        try {
+            new SchemaMigrator(this).migrate(false);
+            schemaVerified = true;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to apply schema migrations", e);
+        }
+    }
+
+    // The instance built by an earlier getInstance call, or null; never creates one
+    public static synchronized DatabaseConnectionManager getCurrentInstance() {
+        return instance;
+    }
+
+    public static synchronized DatabaseConnectionManager getInstance(Map<String, Object> secretMap) {
+        if (instance == null) {
+            instance = new DatabaseConnectionManager(secretMap);
+        }
+        instance.ensureSchema();
+        MetricsReporter.getInstance().maybeReport();
+        return instance;
+    }
+
+    // Rebuilds the pool when the cached secret has been rotated to new credentials. The old pool is drained rather
+    // than closed, so requests still holding one of its connections can finish with it.
+    public static synchronized DatabaseConnectionManager getInstance(DatabaseCredentials credentials) {
+        if (instance != null && !instance.credentials.equals(credentials)) {
+            instance.connectionPool.drain();
+            instance = null;
+        }
+        if (instance == null) {
+            instance = new DatabaseConnectionManager(credentials);
+        }
+        instance.ensureSchema();
+        MetricsReporter.getInstance().maybeReport();
+        return instance;
+    }
+}
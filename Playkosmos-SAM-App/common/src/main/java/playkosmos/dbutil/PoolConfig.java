@@ -0,0 +1,37 @@
+package playkosmos.dbutil;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import playkosmos.utils.EnvConfig;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class PoolConfig {
+
+    private final int maxPoolSize;
+    private final int minIdle;
+    private final long connectionTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final long validationIntervalMillis;
+    private final long leakDetectionThresholdMillis;
+
+    // Defaults are sized for a single Lambda execution environment; scale DB_POOL_MAX_SIZE against
+    // RDS max_connections divided by the expected number of concurrent environments.
+    public static PoolConfig fromEnvironment() {
+        int maxPoolSize = EnvConfig.intEnv("DB_POOL_MAX_SIZE", 5);
+        int minIdle = Math.min(EnvConfig.intEnv("DB_POOL_MIN_IDLE", 1), maxPoolSize);
+
+        return new PoolConfig(
+                maxPoolSize,
+                minIdle,
+                EnvConfig.longEnv("DB_POOL_CONNECTION_TIMEOUT_MS", 5_000),
+                EnvConfig.longEnv("DB_POOL_IDLE_TIMEOUT_MS", 600_000),
+                EnvConfig.longEnv("DB_POOL_MAX_LIFETIME_MS", 1_800_000),
+                EnvConfig.longEnv("DB_POOL_VALIDATION_INTERVAL_MS", 30_000),
+                EnvConfig.longEnv("DB_POOL_LEAK_DETECTION_MS", 10_000)
+        );
+    }
+}
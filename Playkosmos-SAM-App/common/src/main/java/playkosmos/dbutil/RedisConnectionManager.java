@@ -0,0 +1,56 @@
+package playkosmos.dbutil;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.sync.RedisCommands;
+
+import java.time.Duration;
+
+// One thread-safe Lettuce connection per execution environment, shared by every Redis-backed component
+public class RedisConnectionManager implements AutoCloseable {
+
+    private static RedisConnectionManager instance;
+    private final RedisClient redisClient;
+    private final StatefulRedisConnection<String, String> redisConnection;
+
+    public RedisConnectionManager(String redisUrl, Duration commandTimeout) {
+        this.redisClient = RedisClient.create(redisUrl);
+        this.redisClient.setDefaultTimeout(commandTimeout);
+        this.redisConnection = redisClient.connect();
+    }
+
+    public RedisCommands<String, String> sync() {
+        return redisConnection.sync();
+    }
+
+    public StatefulRedisConnection<String, String> getConnection() {
+        return redisConnection;
+    }
+
+    public static boolean isConfigured() {
+        String redisUrl = System.getenv("REDIS_URL");
+        return redisUrl != null && !redisUrl.isBlank();
+    }
+
+    public static synchronized RedisConnectionManager getInstance() {
+        if (instance == null) {
+            if (!isConfigured()) {
+                throw new RuntimeException("REDIS_URL is not configured");
+            }
+            String timeout = System.getenv("REDIS_TIMEOUT_MS");
+            long timeoutMillis = timeout == null || timeout.isBlank() ? 500 : Long.parseLong(timeout.trim());
+            instance = new RedisConnectionManager(System.getenv("REDIS_URL"), Duration.ofMillis(timeoutMillis));
+        }
+        return instance;
+    }
+
+    @Override
+    public void close() {
+        if (redisConnection != null) {
+            redisConnection.close();
+        }
+        if (redisClient != null) {
+            redisClient.shutdown();
+        }
+    }
+}
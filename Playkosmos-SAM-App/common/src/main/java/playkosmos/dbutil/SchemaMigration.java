@@ -0,0 +1,45 @@
+package playkosmos.dbutil;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+@Getter
+public class SchemaMigration {
+
+    private final int version;
+    private final String description;
+    private final List<String> statements;
+    private final String checksum;
+    // Only applied by SchemaMigrationHandler, never from DatabaseConnectionManager.ensureSchema on a cold start
+    private final boolean deployOnly;
+
+    public SchemaMigration(int version, String description, List<String> statements) {
+        this(version, description, statements, false);
+    }
+
+    public SchemaMigration(int version, String description, List<String> statements, boolean deployOnly) {
+        this.version = version;
+        this.description = description;
+        this.statements = List.copyOf(statements);
+        this.checksum = computeChecksum(this.statements);
+        this.deployOnly = deployOnly;
+    }
+
+    private static String computeChecksum(List<String> statements) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String statement : statements) {
+                digest.update(statement.trim().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) ';');
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+}
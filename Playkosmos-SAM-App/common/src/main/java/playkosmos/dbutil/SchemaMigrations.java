@@ -0,0 +1,186 @@
+package playkosmos.dbutil;
+
+import java.util.List;
+
+// Ordered schema history. Never edit a migration that has shipped: its checksum is recorded in
+// schema_migrations and a mismatch stops the migrator. Append a new version instead.
+public final class SchemaMigrations {
+
+    private SchemaMigrations() {
+    }
+
+    public static final List<SchemaMigration> ALL = List.of(
+            new SchemaMigration(1, "Initial user, otp and post tables", List.of(
+                    "CREATE TABLE IF NOT EXISTS user_table (" +
+                            "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                            "username VARCHAR(255) NOT NULL, " +
+                            "email VARCHAR(255), " +
+                            "phoneNumber VARCHAR(255), " +
+                            "countryCode VARCHAR(10), " +
+                            "dateOfBirth DATE NOT NULL, " +
+                            "password VARCHAR(255) NOT NULL" +
+                            ")",
+
+                    "CREATE TABLE IF NOT EXISTS otp_table (" +
+                            "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                            "user_id BIGINT NOT NULL, " +
+                            "otp VARCHAR(6) NOT NULL, " +
+                            "expiry_time TIMESTAMP NOT NULL, " +
+                            "FOREIGN KEY (user_id) REFERENCES user_table(id)" +
+                            ")",
+
+                    "CREATE TABLE IF NOT EXISTS posts (" +
+                            "post_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                            "user_id BIGINT REFERENCES user_table(id), " +
+                            "caption TEXT, " +
+                            "shares INT DEFAULT 0, " +
+                            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                            "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                            ")",
+
+                    "CREATE TABLE IF NOT EXISTS post_media (" +
+                            "media_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                            "post_id BIGINT REFERENCES posts(post_id) ON DELETE CASCADE, " +
+                            "media_url TEXT, " +
+                            "media_type VARCHAR(10)" +
+                            ")",
+
+                    "CREATE TABLE IF NOT EXISTS post_tags (" +
+                            "post_tag_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                            "post_id BIGINT REFERENCES posts(post_id) ON DELETE CASCADE, " +
+                            "tagged_user_id BIGINT REFERENCES user_table(id) ON DELETE CASCADE" +
+                            ")",
+
+                    "CREATE TABLE IF NOT EXISTS post_likes (" +
+                            "like_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                            "post_id BIGINT REFERENCES posts(post_id) ON DELETE CASCADE, " +
+                            "user_id BIGINT REFERENCES user_table(id) ON DELETE CASCADE, " +
+                            "like_type CHAR(1), " +  // 'A' for thumbs up, 'B' for clap, 'C' for love
+                            "liked_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                            ")",
+
+                    "CREATE TABLE IF NOT EXISTS comments (" +
+                            "comment_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                            "post_id BIGINT REFERENCES posts(post_id) ON DELETE CASCADE, " +
+                            "user_id BIGINT REFERENCES user_table(id) ON DELETE CASCADE, " +
+                            "comment_text TEXT, " +
+                            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                            ")",
+
+                    "CREATE TABLE IF NOT EXISTS post_questions (" +
+                            "question_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                            "post_id BIGINT REFERENCES posts(post_id) ON DELETE CASCADE, " +
+                            "user_id BIGINT REFERENCES user_table(id) ON DELETE CASCADE, " +  // Track the user who asked the question
+                            "question TEXT, " +
+                            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                            ")",
+
+                    "CREATE TABLE IF NOT EXISTS post_answers (" +
+                            "answer_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                            "post_id BIGINT REFERENCES posts(post_id) ON DELETE CASCADE, " +
+                            "question_id BIGINT REFERENCES post_questions(question_id) ON DELETE CASCADE, " +
+                            "user_id BIGINT REFERENCES user_table(id) ON DELETE CASCADE, " +  // Track the user who answered the question
+                            "answer TEXT, " +
+                            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                            ")",
+
+                    "CREATE TABLE IF NOT EXISTS post_reviews (" +
+                            "review_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                            "post_id BIGINT REFERENCES posts(post_id) ON DELETE CASCADE, " +
+                            "user_id BIGINT REFERENCES user_table(id) ON DELETE CASCADE, " +
+                            "review_text TEXT, " +
+                            "rating INT CHECK (rating BETWEEN 1 AND 5), " +
+                            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                            ")",
+
+                    "CREATE TABLE IF NOT EXISTS post_participants (" +
+                            "participant_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                            "post_id BIGINT REFERENCES posts(post_id) ON DELETE CASCADE, " +
+                            "user_id BIGINT REFERENCES user_table(id) ON DELETE CASCADE" +
+                            ")"
+            )),
+
+            new SchemaMigration(2, "Denormalized per-post counters", List.of(
+                    "CREATE TABLE IF NOT EXISTS post_counters (" +
+                            "post_id BIGINT PRIMARY KEY REFERENCES posts(post_id) ON DELETE CASCADE, " +
+                            "likes BIGINT NOT NULL DEFAULT 0, " +
+                            "comments BIGINT NOT NULL DEFAULT 0, " +
+                            "shares BIGINT NOT NULL DEFAULT 0, " +
+                            "reviews BIGINT NOT NULL DEFAULT 0, " +
+                            "questions BIGINT NOT NULL DEFAULT 0, " +
+                            "answers BIGINT NOT NULL DEFAULT 0, " +
+                            "participants BIGINT NOT NULL DEFAULT 0, " +
+                            "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP" +
+                            ")",
+
+                    // Backfill posts written before the counters existed
+                    "INSERT INTO post_counters (post_id, likes, comments, shares, reviews, questions, answers, participants) " +
+                            "SELECT p.post_id, " +
+                            "(SELECT COUNT(*) FROM post_likes WHERE post_id = p.post_id), " +
+                            "(SELECT COUNT(*) FROM comments WHERE post_id = p.post_id), " +
+                            "COALESCE(p.shares, 0), " +
+                            "(SELECT COUNT(*) FROM post_reviews WHERE post_id = p.post_id), " +
+                            "(SELECT COUNT(*) FROM post_questions WHERE post_id = p.post_id), " +
+                            "(SELECT COUNT(*) FROM post_answers WHERE post_id = p.post_id), " +
+                            "(SELECT COUNT(*) FROM post_participants WHERE post_id = p.post_id) " +
+                            "FROM posts p " +
+                            "ON DUPLICATE KEY UPDATE likes = VALUES(likes), comments = VALUES(comments), " +
+                            "shares = VALUES(shares), reviews = VALUES(reviews), questions = VALUES(questions), " +
+                            "answers = VALUES(answers), participants = VALUES(participants)"
+            )),
+
+            // Inline column REFERENCES clauses are parsed but ignored by InnoDB, so none of the child tables had
+            // an index on post_id. Paged collections are indexed on (post_id, time, id) to match their keyset
+            // order. The user_table lookup indexes are plain here so they apply even over duplicate rows;
+            // version 5 makes them unique.
+            new SchemaMigration(3, "Indexes for post child tables and user lookups", List.of(
+                    "ALTER TABLE posts ADD INDEX idx_posts_user_created (user_id, created_at, post_id)",
+                    "ALTER TABLE post_media ADD INDEX idx_post_media_post (post_id, media_id)",
+                    "ALTER TABLE post_tags ADD INDEX idx_post_tags_post (post_id, tagged_user_id), " +
+                            "ADD INDEX idx_post_tags_user (tagged_user_id, post_id)",
+                    "ALTER TABLE post_likes ADD INDEX idx_post_likes_post_time (post_id, liked_at, like_id)",
+                    "ALTER TABLE comments ADD INDEX idx_comments_post_time (post_id, created_at, comment_id)",
+                    "ALTER TABLE post_questions ADD INDEX idx_post_questions_post_time (post_id, created_at, question_id)",
+                    "ALTER TABLE post_answers ADD INDEX idx_post_answers_post_time (post_id, created_at, answer_id)",
+                    "ALTER TABLE post_reviews ADD INDEX idx_post_reviews_post_time (post_id, created_at, review_id)",
+                    "ALTER TABLE post_participants ADD INDEX idx_post_participants_post (post_id, user_id)",
+                    "ALTER TABLE otp_table ADD INDEX idx_otp_user_expiry (user_id, expiry_time)",
+                    "ALTER TABLE user_table ADD INDEX idx_user_username (username), " +
+                            "ADD INDEX idx_user_email (email), " +
+                            "ADD INDEX idx_user_phone (phoneNumber)"
+            )),
+
+            // follower_count is maintained by FollowDAO so the feed can tell celebrity accounts apart without
+            // counting their followers on every post
+            new SchemaMigration(4, "Follow graph for the feed", List.of(
+                    "CREATE TABLE IF NOT EXISTS user_follows (" +
+                            "follower_id BIGINT NOT NULL, " +
+                            "followee_id BIGINT NOT NULL, " +
+                            "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                            "PRIMARY KEY (follower_id, followee_id), " +
+                            "INDEX idx_user_follows_followee (followee_id, follower_id)" +
+                            ")",
+                    "ALTER TABLE user_table ADD COLUMN follower_count BIGINT NOT NULL DEFAULT 0"
+            )),
+
+            // Deploy-only: a failure here must not take down every handler's cold start. The oldest row keeps each
+            // duplicated username, email or phone number; later rows keep their id and foreign keys but get a
+            // "#<id>" suffix so they can be merged or restored by hand. Comparisons use the column collation,
+            // like the unique index does.
+            new SchemaMigration(5, "Unique user keys after renaming duplicates", List.of(
+                    "UPDATE user_table u JOIN (SELECT username, MIN(id) AS keep_id FROM user_table " +
+                            "GROUP BY username HAVING COUNT(*) > 1) d ON u.username = d.username AND u.id <> d.keep_id " +
+                            "SET u.username = CONCAT(u.username, '#', u.id)",
+                    "UPDATE user_table u JOIN (SELECT email, MIN(id) AS keep_id FROM user_table " +
+                            "WHERE email IS NOT NULL GROUP BY email HAVING COUNT(*) > 1) d ON u.email = d.email AND u.id <> d.keep_id " +
+                            "SET u.email = CONCAT(u.email, '#', u.id)",
+                    "UPDATE user_table u JOIN (SELECT phoneNumber, MIN(id) AS keep_id FROM user_table " +
+                            "WHERE phoneNumber IS NOT NULL GROUP BY phoneNumber HAVING COUNT(*) > 1) d ON u.phoneNumber = d.phoneNumber AND u.id <> d.keep_id " +
+                            "SET u.phoneNumber = CONCAT(u.phoneNumber, '#', u.id)",
+                    "ALTER TABLE user_table ADD UNIQUE INDEX uq_user_username (username), " +
+                            "ADD UNIQUE INDEX uq_user_email (email), " +
+                            "ADD UNIQUE INDEX uq_user_phone (phoneNumber), " +
+                            "DROP INDEX idx_user_username, DROP INDEX idx_user_email, DROP INDEX idx_user_phone"
+            ), true)
+    );
+}
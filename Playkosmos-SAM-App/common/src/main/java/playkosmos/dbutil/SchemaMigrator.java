@@ -0,0 +1,156 @@
+package playkosmos.dbutil;
+
+import lombok.RequiredArgsConstructor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Applies SchemaMigrations in version order and records each one in schema_migrations. Concurrent cold
+// starts are serialised with a MySQL named lock so only one environment runs the DDL.
+@RequiredArgsConstructor
+public class SchemaMigrator {
+
+    private static final String LOCK_NAME = "playkosmos_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 30;
+    private static final int ER_DUP_FIELDNAME = 1060;
+    private static final int ER_DUP_KEYNAME = 1061;
+
+    private static final String CREATE_HISTORY_TABLE = "CREATE TABLE IF NOT EXISTS schema_migrations (" +
+            "version INT PRIMARY KEY, " +
+            "description VARCHAR(255) NOT NULL, " +
+            "checksum CHAR(64) NOT NULL, " +
+            "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+            ")";
+
+    private final DatabaseConnectionManager dbConnectionManager;
+    private final List<SchemaMigration> migrations;
+
+    public SchemaMigrator(DatabaseConnectionManager dbConnectionManager) {
+        this(dbConnectionManager, SchemaMigrations.ALL);
+    }
+
+    public List<Integer> migrate() throws SQLException {
+        return migrate(true);
+    }
+
+    // Returns the versions applied by this call; an up-to-date schema costs one SELECT. Without includeDeployOnly
+    // the deploy-only migrations are skipped, and a schema missing only those still counts as up to date.
+    public List<Integer> migrate(boolean includeDeployOnly) throws SQLException {
+        List<SchemaMigration> migrations = new ArrayList<>();
+        for (SchemaMigration migration : this.migrations) {
+            if (includeDeployOnly || !migration.isDeployOnly()) {
+                migrations.add(migration);
+            }
+        }
+
+        try (Connection connection = dbConnectionManager.getConnection()) {
+            Map<Integer, String> applied = readAppliedChecksums(connection);
+            if (applied != null && isUpToDate(migrations, applied)) {
+                return List.of();
+            }
+
+            acquireLock(connection);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(CREATE_HISTORY_TABLE);
+                }
+                applied = readAppliedChecksums(connection);
+
+                List<Integer> appliedNow = new ArrayList<>();
+                for (SchemaMigration migration : migrations) {
+                    String recorded = applied.get(migration.getVersion());
+                    if (recorded != null) {
+                        verifyChecksum(migration, recorded);
+                        continue;
+                    }
+                    apply(connection, migration);
+                    appliedNow.add(migration.getVersion());
+                }
+                return appliedNow;
+            } finally {
+                releaseLock(connection);
+            }
+        }
+    }
+
+    private boolean isUpToDate(List<SchemaMigration> migrations, Map<Integer, String> applied) {
+        for (SchemaMigration migration : migrations) {
+            String recorded = applied.get(migration.getVersion());
+            if (recorded == null) {
+                return false;
+            }
+            verifyChecksum(migration, recorded);
+        }
+        return true;
+    }
+
+    private void verifyChecksum(SchemaMigration migration, String recorded) {
+        if (!recorded.equals(migration.getChecksum())) {
+            throw new RuntimeException("Checksum mismatch for schema migration " + migration.getVersion()
+                    + " (" + migration.getDescription() + "); applied migrations must not be edited");
+        }
+    }
+
+    private void apply(Connection connection, SchemaMigration migration) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : migration.getStatements()) {
+                try {
+                    statement.execute(sql);
+                } catch (SQLException e) {
+                    // MySQL DDL is not transactional; tolerate columns and indexes left behind by an interrupted earlier run
+                    if (e.getErrorCode() != ER_DUP_KEYNAME && e.getErrorCode() != ER_DUP_FIELDNAME) {
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        String query = "INSERT INTO schema_migrations (version, description, checksum) VALUES (?, ?, ?)";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+            preparedStatement.setInt(1, migration.getVersion());
+            preparedStatement.setString(2, migration.getDescription());
+            preparedStatement.setString(3, migration.getChecksum());
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    // Returns null when the history table does not exist yet
+    private Map<Integer, String> readAppliedChecksums(Connection connection) {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (resultSet.next()) {
+                applied.put(resultSet.getInt("version"), resultSet.getString("checksum"));
+            }
+            return applied;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    private void acquireLock(Connection connection) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            preparedStatement.setString(1, LOCK_NAME);
+            preparedStatement.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (!resultSet.next() || resultSet.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for the schema migration lock");
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection connection) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            preparedStatement.setString(1, LOCK_NAME);
+            preparedStatement.execute();
+        }
+    }
+}
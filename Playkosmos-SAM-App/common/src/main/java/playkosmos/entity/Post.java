@@ -1,8 +1,10 @@
 package playkosmos.entity;
 
 import lombok.*;
+import playkosmos.utils.LongList;
 
 import java.util.List;
+import java.util.Map;
 
 @Getter
 @Setter
@@ -16,13 +18,17 @@ public class Post {
     private String caption;
     private List<String> mediaUrls;
     private List<String> mediaTypes;
-    private List<Long> taggedUserIds;
-    private List<Long> attendingUserIds;
+    private LongList taggedUserIds;
+    private LongList attendingUserIds;
     private List<Comment> comments;
     private List<Question> questions;
     private List<Answer> answers;
     private List<Like> likes;
     private List<Review> reviews;
-    private List<Long> participantIds;
+    private LongList participantIds;
     private int shares;
+    private PostCounters counters;
+    // Comments, likes, reviews, questions and answers hold only their first page; this maps each collection
+    // name to the cursor for its next page when more rows exist
+    private Map<String, String> nextCursors;
 }
@@ -0,0 +1,19 @@
+package playkosmos.entity;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class PostCounters {
+
+    private long likes;
+    private long comments;
+    private long shares;
+    private long reviews;
+    private long questions;
+    private long answers;
+    private long participants;
+}
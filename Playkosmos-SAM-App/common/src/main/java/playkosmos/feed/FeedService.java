@@ -0,0 +1,245 @@
+package playkosmos.feed;
+
+import io.lettuce.core.Limit;
+import io.lettuce.core.LettuceFutures;
+import io.lettuce.core.Range;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScoredValue;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.sync.RedisCommands;
+import playkosmos.dao.FollowDAO;
+import playkosmos.dao.Page;
+import playkosmos.dao.PostDAO;
+import playkosmos.dbutil.RedisConnectionManager;
+import playkosmos.entity.Post;
+import playkosmos.utils.EnvConfig;
+import playkosmos.utils.RuntimeLog;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+// Home timelines as Redis sorted sets of post IDs scored by the post ID itself (IDs are AUTO_INCREMENT, so
+// score order is creation order and a post ID doubles as the page cursor).
+//
+// Writes fan out: a new post is pushed to feed:{userId} for the author, the tagged users and every follower.
+// Authors with at least FEED_CELEBRITY_FOLLOWERS followers are not fanned out to their followers; their posts
+// live only in user_posts:{authorId} and are merged into each follower's feed when it is read. Feeds are capped
+// at FEED_MAX_LENGTH entries and expire after FEED_TTL_SECONDS without a new post; an expired or never-built
+// feed is rebuilt from MySQL on its first read. Pushes skip feeds that do not exist, so a new post cannot create
+// a one-entry feed that would hide the missing history from that rebuild. Without REDIS_URL every read is served
+// from MySQL.
+public class FeedService {
+
+    private static final String FEED_PREFIX = "feed:";
+    private static final String AUTHOR_PREFIX = "user_posts:";
+    public static final int MAX_PAGE_SIZE = 50;
+
+    // KEYS[1] feed, ARGV post score, member, max length, TTL seconds
+    static final String PUSH_SCRIPT =
+            "if redis.call('EXISTS', KEYS[1]) == 0 then\n" +
+            "  return 0\n" +
+            "end\n" +
+            "redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2])\n" +
+            "redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -(tonumber(ARGV[3]) + 1))\n" +
+            "redis.call('EXPIRE', KEYS[1], ARGV[4])\n" +
+            "return 1\n";
+
+    private static FeedService instance;
+
+    private final RedisCommands<String, String> commands;
+    private final RedisAsyncCommands<String, String> asyncCommands;
+    private final long celebrityFollowers;
+    private final int maxLength;
+    private final long ttlSeconds;
+    private final int fanOutBatchSize;
+    private final long commandTimeoutMillis;
+    private volatile String pushScriptSha;
+
+    public FeedService(RedisCommands<String, String> commands, RedisAsyncCommands<String, String> asyncCommands,
+                       long celebrityFollowers, int maxLength, long ttlSeconds, int fanOutBatchSize, long commandTimeoutMillis) {
+        this.commands = commands;
+        this.asyncCommands = asyncCommands;
+        this.celebrityFollowers = celebrityFollowers;
+        this.maxLength = maxLength;
+        this.ttlSeconds = ttlSeconds;
+        this.fanOutBatchSize = fanOutBatchSize;
+        this.commandTimeoutMillis = commandTimeoutMillis;
+    }
+
+    // Call after the post is committed. Follower IDs are read in keyset pages and each page is pipelined to Redis.
+    public void publish(FollowDAO followDAO, Post post) throws SQLException {
+        if (commands == null || post.getPostId() == null || post.getUserId() == null) {
+            return;
+        }
+        long postId = post.getPostId();
+        long authorId = post.getUserId();
+
+        List<RedisFuture<?>> futures = new ArrayList<>();
+        futures.add(asyncCommands.zadd(AUTHOR_PREFIX + authorId, postId, String.valueOf(postId)));
+        futures.add(asyncCommands.zremrangebyrank(AUTHOR_PREFIX + authorId, 0, -(maxLength + 1)));
+        await(futures);
+
+        List<Long> direct = new ArrayList<>();
+        direct.add(authorId);
+        if (post.getTaggedUserIds() != null) {
+            direct.addAll(post.getTaggedUserIds());
+        }
+        push(direct, postId);
+
+        if (followDAO.getFollowerCount(authorId) >= celebrityFollowers) {
+            return;
+        }
+        long after = 0;
+        List<Long> followers;
+        do {
+            followers = followDAO.getFollowerIds(authorId, after, fanOutBatchSize);
+            if (!followers.isEmpty()) {
+                push(followers, postId);
+                after = followers.get(followers.size() - 1);
+            }
+        } while (followers.size() == fanOutBatchSize);
+    }
+
+    // Newest first; beforePostId is the nextCursor of the previous page, or null for the first page
+    public Page<Long> read(FollowDAO followDAO, PostDAO postDAO, long userId, Long beforePostId, int limit) throws SQLException {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        if (commands == null) {
+            return toPage(postDAO.getTimelinePostIds(userId, beforePostId, pageSize + 1), pageSize);
+        }
+
+        String feedKey = FEED_PREFIX + userId;
+        if (beforePostId == null && commands.exists(feedKey) == 0) {
+            rebuild(postDAO, userId, feedKey);
+        }
+
+        Range<Long> range = beforePostId == null
+                ? Range.unbounded()
+                : Range.from(Range.Boundary.unbounded(), Range.Boundary.excluding(beforePostId));
+        Limit window = Limit.create(0, pageSize + 1);
+
+        Set<Long> merged = new TreeSet<>(Comparator.reverseOrder());
+        addIds(merged, commands.zrevrangebyscore(feedKey, range, window));
+        for (Long celebrityId : followDAO.getFolloweeIdsWithMinFollowers(userId, celebrityFollowers)) {
+            addIds(merged, commands.zrevrangebyscore(AUTHOR_PREFIX + celebrityId, range, window));
+        }
+        return toPage(new ArrayList<>(merged), pageSize);
+    }
+
+    // Seeds a new follow with the followee's recent posts unless they are a celebrity (merged on read anyway)
+    public void onFollow(FollowDAO followDAO, long followerId, long followeeId) throws SQLException {
+        if (commands == null || followDAO.getFollowerCount(followeeId) >= celebrityFollowers) {
+            return;
+        }
+        String feedKey = FEED_PREFIX + followerId;
+        if (commands.exists(feedKey) == 0) {
+            return;
+        }
+        List<ScoredValue<String>> recent = commands.zrevrangeWithScores(AUTHOR_PREFIX + followeeId, 0, maxLength - 1);
+        if (!recent.isEmpty()) {
+            commands.zadd(feedKey, recent.toArray(new ScoredValue[0]));
+            commands.zremrangebyrank(feedKey, 0, -(maxLength + 1));
+        }
+    }
+
+    // Drops the followee's recent posts; older ones have already been trimmed or expire with the feed
+    public void onUnfollow(long followerId, long followeeId) {
+        if (commands == null) {
+            return;
+        }
+        List<String> recent = commands.zrange(AUTHOR_PREFIX + followeeId, 0, -1);
+        if (!recent.isEmpty()) {
+            commands.zrem(FEED_PREFIX + followerId, recent.toArray(new String[0]));
+        }
+    }
+
+    private void rebuild(PostDAO postDAO, long userId, String feedKey) throws SQLException {
+        List<Long> postIds = postDAO.getTimelinePostIds(userId, null, maxLength);
+        if (postIds.isEmpty()) {
+            return;
+        }
+        List<ScoredValue<String>> values = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) {
+            values.add(ScoredValue.just(postId, String.valueOf(postId)));
+        }
+        commands.zadd(feedKey, values.toArray(new ScoredValue[0]));
+        commands.expire(feedKey, ttlSeconds);
+    }
+
+    private void push(Collection<Long> userIds, long postId) {
+        String sha = pushScriptSha;
+        if (sha == null) {
+            sha = commands.scriptLoad(PUSH_SCRIPT);
+            pushScriptSha = sha;
+        }
+        try {
+            await(pushAll(userIds, postId, sha));
+        } catch (RedisNoScriptException e) {
+            // The script cache was flushed, e.g. by a failover; re-adding a member is a no-op so the batch is resent
+            pushScriptSha = null;
+            await(pushAll(userIds, postId, null));
+        }
+    }
+
+    private List<RedisFuture<?>> pushAll(Collection<Long> userIds, long postId, String sha) {
+        String[] args = {String.valueOf(postId), String.valueOf(postId), String.valueOf(maxLength), String.valueOf(ttlSeconds)};
+        List<RedisFuture<?>> futures = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            String[] feedKey = {FEED_PREFIX + userId};
+            futures.add(sha == null
+                    ? asyncCommands.<Long>eval(PUSH_SCRIPT, ScriptOutputType.INTEGER, feedKey, args)
+                    : asyncCommands.<Long>evalsha(sha, ScriptOutputType.INTEGER, feedKey, args));
+        }
+        return futures;
+    }
+
+    private void await(List<RedisFuture<?>> futures) {
+        if (!LettuceFutures.awaitAll(commandTimeoutMillis, TimeUnit.MILLISECONDS, futures.toArray(new RedisFuture[0]))) {
+            throw new RuntimeException("Timed out pushing post to feeds");
+        }
+    }
+
+    private static void addIds(Set<Long> target, List<String> members) {
+        for (String member : members) {
+            target.add(Long.parseLong(member));
+        }
+    }
+
+    private static Page<Long> toPage(List<Long> postIds, int pageSize) {
+        if (postIds.size() <= pageSize) {
+            return new Page<>(postIds, null);
+        }
+        List<Long> items = new ArrayList<>(postIds.subList(0, pageSize));
+        return new Page<>(items, String.valueOf(items.get(items.size() - 1)));
+    }
+
+    public static synchronized FeedService getInstance() {
+        if (instance == null) {
+            RedisCommands<String, String> commands = null;
+            RedisAsyncCommands<String, String> asyncCommands = null;
+            if (RedisConnectionManager.isConfigured()) {
+                try {
+                    RedisConnectionManager redis = RedisConnectionManager.getInstance();
+                    commands = redis.sync();
+                    asyncCommands = redis.getConnection().async();
+                } catch (RuntimeException e) {
+                    RuntimeLog.log("Feed fan-out disabled, Redis is unavailable: " + e.getMessage());
+                }
+            }
+            instance = new FeedService(commands, asyncCommands,
+                    EnvConfig.longEnv("FEED_CELEBRITY_FOLLOWERS", 10_000),
+                    EnvConfig.intEnv("FEED_MAX_LENGTH", 800),
+                    EnvConfig.longEnv("FEED_TTL_SECONDS", 14L * 24 * 60 * 60),
+                    EnvConfig.intEnv("FEED_FANOUT_BATCH_SIZE", 1_000),
+                    EnvConfig.longEnv("FEED_FANOUT_TIMEOUT_MS", 5_000));
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,49 @@
+package playkosmos.handler;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import playkosmos.dbutil.DatabaseConnectionManager;
+import playkosmos.dbutil.SchemaMigrator;
+import playkosmos.utils.SecretsManagerHelper;
+import software.amazon.awssdk.regions.Region;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+// Deploy-time entry point for schema migrations, e.g. invoked from a pipeline step after `sam deploy`
+public class SchemaMigrationHandler implements RequestHandler<Map<String, Object>, Map<String, Object>> {
+
+    private final SecretsManagerHelper secretsManagerHelper;
+
+    public SchemaMigrationHandler() {
+        Region region = Region.of(System.getenv("REGION_NAME"));
+        String secretName = System.getenv("DB_SECRET");
+
+        this.secretsManagerHelper = SecretsManagerHelper.getInstance(String.valueOf(region), secretName);
+    }
+
+    @Override
+    public Map<String, Object> handleRequest(Map<String, Object> input, Context context) {
+        LambdaLogger logger = context.getLogger();
+
+        try {
+            DatabaseConnectionManager dcm = new DatabaseConnectionManager(secretsManagerHelper.getDatabaseCredentials());
+            List<Integer> applied;
+            try {
+                applied = new SchemaMigrator(dcm).migrate();
+            } finally {
+                dcm.getConnectionPool().close();
+            }
+
+            logger.log("Applied schema migrations: " + applied);
+            return Map.of("status", "success", "applied", applied);
+
+        } catch (SQLException e) {
+            // Fail the invocation so the deploy step and any alarm on function errors see it
+            logger.log("Error applying schema migrations: " + e.getMessage());
+            throw new RuntimeException("Failed to apply schema migrations", e);
+        }
+    }
+}
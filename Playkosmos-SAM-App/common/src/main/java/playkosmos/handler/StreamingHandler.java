@@ -0,0 +1,52 @@
+package playkosmos.handler;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import playkosmos.json.GsonFactory;
+import playkosmos.streaming.ResponseCompression;
+import playkosmos.streaming.StreamingRequest;
+import playkosmos.streaming.StreamingResponse;
+import playkosmos.streaming.WireFormat;
+import playkosmos.utils.EnvConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// Base for API Gateway handlers with large responses. The runtime hands over the raw event and output streams,
+// so only the path, query and header fields are parsed and the response body is serialised straight into the
+// output instead of going through APIGatewayProxyRequestEvent/APIGatewayProxyResponseEvent and a body String.
+// Set RESPONSE_STREAMING=true when the function is invoked with Lambda response streaming. Bodies of at least
+// RESPONSE_COMPRESSION_MIN_BYTES are gzipped for clients that accept it; a negative value turns that off.
+// Clients that send Accept: application/cbor get the post entities as CBOR instead of JSON.
+public abstract class StreamingHandler implements RequestStreamHandler {
+
+    protected final Gson gson;
+    private final boolean responseStreaming;
+    private final int compressionMinBytes;
+
+    protected StreamingHandler() {
+        this.gson = GsonFactory.getInstance();
+        this.responseStreaming = Boolean.parseBoolean(System.getenv("RESPONSE_STREAMING"));
+        this.compressionMinBytes = EnvConfig.intEnv("RESPONSE_COMPRESSION_MIN_BYTES", 1024);
+    }
+
+    @Override
+    public final void handleRequest(InputStream input, OutputStream output, Context context) throws IOException {
+        StreamingRequest request;
+        try {
+            request = StreamingRequest.parse(input);
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            context.getLogger().log("Malformed request event: " + e.getMessage());
+            StreamingResponse.error(400, "Invalid request").writeTo(output, gson, responseStreaming);
+            return;
+        }
+        ResponseCompression compression = ResponseCompression.negotiate(request.getHeader("Accept-Encoding"), compressionMinBytes);
+        WireFormat format = WireFormat.negotiate(request.getHeader("Accept"));
+        handle(request, context).withVary("Accept").writeTo(output, gson, responseStreaming, compression, format);
+    }
+
+    protected abstract StreamingResponse handle(StreamingRequest request, Context context);
+}
@@ -0,0 +1,581 @@
+package playkosmos.json;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import playkosmos.entity.Answer;
+import playkosmos.entity.Comment;
+import playkosmos.entity.Like;
+import playkosmos.entity.Post;
+import playkosmos.entity.PostCounters;
+import playkosmos.entity.Question;
+import playkosmos.entity.Review;
+import playkosmos.entity.User;
+import playkosmos.utils.LongList;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Hand-written streaming adapters for the entity package. They produce the same JSON as Gson's reflective adapter
+// (same field names, nulls dropped unless the Gson serializes nulls, java.time values in ISO form) but write
+// straight to the JsonWriter without reflection or per-field boxing. Any field added to an entity must be added
+// here too; EntityTypeAdaptersTest compares both paths.
+public class EntityTypeAdapters implements TypeAdapterFactory {
+
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ISO_LOCAL_DATE;
+
+    static final TypeAdapter<PostCounters> COUNTERS = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, PostCounters counters) throws IOException {
+            if (counters == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("likes").value(counters.getLikes());
+            out.name("comments").value(counters.getComments());
+            out.name("shares").value(counters.getShares());
+            out.name("reviews").value(counters.getReviews());
+            out.name("questions").value(counters.getQuestions());
+            out.name("answers").value(counters.getAnswers());
+            out.name("participants").value(counters.getParticipants());
+            out.endObject();
+        }
+
+        @Override
+        public PostCounters read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            PostCounters counters = new PostCounters();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "likes": counters.setLikes(readLongOrZero(in)); break;
+                    case "comments": counters.setComments(readLongOrZero(in)); break;
+                    case "shares": counters.setShares(readLongOrZero(in)); break;
+                    case "reviews": counters.setReviews(readLongOrZero(in)); break;
+                    case "questions": counters.setQuestions(readLongOrZero(in)); break;
+                    case "answers": counters.setAnswers(readLongOrZero(in)); break;
+                    case "participants": counters.setParticipants(readLongOrZero(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return counters;
+        }
+    };
+
+    static final TypeAdapter<Comment> COMMENT = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, Comment comment) throws IOException {
+            if (comment == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeNumber(out.name("commentId"), comment.getCommentId());
+            writeNumber(out.name("postId"), comment.getPostId());
+            writeNumber(out.name("userId"), comment.getUserId());
+            out.name("CommentText").value(comment.getCommentText());
+            out.name("createdAt").value(format(comment.getCreatedAt()));
+            out.endObject();
+        }
+
+        @Override
+        public Comment read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Comment comment = new Comment();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "commentId": comment.setCommentId(readLong(in)); break;
+                    case "postId": comment.setPostId(readLong(in)); break;
+                    case "userId": comment.setUserId(readLong(in)); break;
+                    case "CommentText": comment.setCommentText(readString(in)); break;
+                    case "createdAt": comment.setCreatedAt(readDateTime(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return comment;
+        }
+    };
+
+    static final TypeAdapter<Like> LIKE = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, Like like) throws IOException {
+            if (like == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeNumber(out.name("id"), like.getId());
+            writeNumber(out.name("postId"), like.getPostId());
+            writeNumber(out.name("userId"), like.getUserId());
+            out.name("likeType").value(like.getLikeType());
+            out.name("likedAt").value(format(like.getLikedAt()));
+            out.endObject();
+        }
+
+        @Override
+        public Like read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Like like = new Like();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": like.setId(readLong(in)); break;
+                    case "postId": like.setPostId(readLong(in)); break;
+                    case "userId": like.setUserId(readLong(in)); break;
+                    case "likeType": like.setLikeType(readString(in)); break;
+                    case "likedAt": like.setLikedAt(readDateTime(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return like;
+        }
+    };
+
+    static final TypeAdapter<Review> REVIEW = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, Review review) throws IOException {
+            if (review == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeNumber(out.name("id"), review.getId());
+            writeNumber(out.name("postId"), review.getPostId());
+            writeNumber(out.name("userId"), review.getUserId());
+            out.name("reviewText").value(review.getReviewText());
+            writeNumber(out.name("rating"), review.getRating());
+            out.name("createdAt").value(format(review.getCreatedAt()));
+            out.endObject();
+        }
+
+        @Override
+        public Review read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Review review = new Review();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": review.setId(readLong(in)); break;
+                    case "postId": review.setPostId(readLong(in)); break;
+                    case "userId": review.setUserId(readLong(in)); break;
+                    case "reviewText": review.setReviewText(readString(in)); break;
+                    case "rating": review.setRating(readInteger(in)); break;
+                    case "createdAt": review.setCreatedAt(readDateTime(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return review;
+        }
+    };
+
+    static final TypeAdapter<Answer> ANSWER = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, Answer answer) throws IOException {
+            if (answer == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeNumber(out.name("answerId"), answer.getAnswerId());
+            writeNumber(out.name("questionId"), answer.getQuestionId());
+            writeNumber(out.name("userId"), answer.getUserId());
+            out.name("answerText").value(answer.getAnswerText());
+            out.name("createdAt").value(format(answer.getCreatedAt()));
+            out.endObject();
+        }
+
+        @Override
+        public Answer read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Answer answer = new Answer();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "answerId": answer.setAnswerId(readLong(in)); break;
+                    case "questionId": answer.setQuestionId(readLong(in)); break;
+                    case "userId": answer.setUserId(readLong(in)); break;
+                    case "answerText": answer.setAnswerText(readString(in)); break;
+                    case "createdAt": answer.setCreatedAt(readDateTime(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return answer;
+        }
+    };
+
+    static final TypeAdapter<Question> QUESTION = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, Question question) throws IOException {
+            if (question == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeNumber(out.name("questionId"), question.getQuestionId());
+            writeNumber(out.name("postId"), question.getPostId());
+            writeNumber(out.name("userId"), question.getUserId());
+            out.name("questionText").value(question.getQuestionText());
+            out.name("createdAt").value(format(question.getCreatedAt()));
+            out.name("answers");
+            writeList(out, question.getAnswers(), ANSWER);
+            out.endObject();
+        }
+
+        @Override
+        public Question read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Question question = new Question();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "questionId": question.setQuestionId(readLong(in)); break;
+                    case "postId": question.setPostId(readLong(in)); break;
+                    case "userId": question.setUserId(readLong(in)); break;
+                    case "questionText": question.setQuestionText(readString(in)); break;
+                    case "createdAt": question.setCreatedAt(readDateTime(in)); break;
+                    case "answers": question.setAnswers(readList(in, ANSWER)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return question;
+        }
+    };
+
+    static final TypeAdapter<Post> POST = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, Post post) throws IOException {
+            if (post == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeNumber(out.name("postId"), post.getPostId());
+            writeNumber(out.name("userId"), post.getUserId());
+            out.name("caption").value(post.getCaption());
+            out.name("mediaUrls");
+            writeStrings(out, post.getMediaUrls());
+            out.name("mediaTypes");
+            writeStrings(out, post.getMediaTypes());
+            out.name("taggedUserIds");
+            writeLongs(out, post.getTaggedUserIds());
+            out.name("attendingUserIds");
+            writeLongs(out, post.getAttendingUserIds());
+            out.name("comments");
+            writeList(out, post.getComments(), COMMENT);
+            out.name("questions");
+            writeList(out, post.getQuestions(), QUESTION);
+            out.name("answers");
+            writeList(out, post.getAnswers(), ANSWER);
+            out.name("likes");
+            writeList(out, post.getLikes(), LIKE);
+            out.name("reviews");
+            writeList(out, post.getReviews(), REVIEW);
+            out.name("participantIds");
+            writeLongs(out, post.getParticipantIds());
+            out.name("shares").value(post.getShares());
+            out.name("counters");
+            COUNTERS.write(out, post.getCounters());
+            out.name("nextCursors");
+            writeStringMap(out, post.getNextCursors());
+            out.endObject();
+        }
+
+        @Override
+        public Post read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            Post post = new Post();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "postId": post.setPostId(readLong(in)); break;
+                    case "userId": post.setUserId(readLong(in)); break;
+                    case "caption": post.setCaption(readString(in)); break;
+                    case "mediaUrls": post.setMediaUrls(readStrings(in)); break;
+                    case "mediaTypes": post.setMediaTypes(readStrings(in)); break;
+                    case "taggedUserIds": post.setTaggedUserIds(readLongs(in)); break;
+                    case "attendingUserIds": post.setAttendingUserIds(readLongs(in)); break;
+                    case "comments": post.setComments(readList(in, COMMENT)); break;
+                    case "questions": post.setQuestions(readList(in, QUESTION)); break;
+                    case "answers": post.setAnswers(readList(in, ANSWER)); break;
+                    case "likes": post.setLikes(readList(in, LIKE)); break;
+                    case "reviews": post.setReviews(readList(in, REVIEW)); break;
+                    case "participantIds": post.setParticipantIds(readLongs(in)); break;
+                    case "shares": post.setShares(skipNull(in) ? 0 : in.nextInt()); break;
+                    case "counters": post.setCounters(COUNTERS.read(in)); break;
+                    case "nextCursors": post.setNextCursors(readStringMap(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return post;
+        }
+    };
+
+    static final TypeAdapter<User> USER = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, User user) throws IOException {
+            if (user == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            writeNumber(out.name("id"), user.getId());
+            out.name("username").value(user.getUsername());
+            out.name("email").value(user.getEmail());
+            out.name("phoneNumber").value(user.getPhoneNumber());
+            out.name("countryCode").value(user.getCountryCode());
+            out.name("dateOfBirth").value(user.getDateOfBirth() == null ? null : user.getDateOfBirth().format(DATE));
+            out.name("password").value(user.getPassword());
+            out.endObject();
+        }
+
+        @Override
+        public User read(JsonReader in) throws IOException {
+            if (skipNull(in)) {
+                return null;
+            }
+            User user = new User();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": user.setId(readLong(in)); break;
+                    case "username": user.setUsername(readString(in)); break;
+                    case "email": user.setEmail(readString(in)); break;
+                    case "phoneNumber": user.setPhoneNumber(readString(in)); break;
+                    case "countryCode": user.setCountryCode(readString(in)); break;
+                    case "dateOfBirth": {
+                        String date = readString(in);
+                        user.setDateOfBirth(date == null || date.isEmpty() ? null : LocalDate.parse(date, DATE));
+                        break;
+                    }
+                    case "password": user.setPassword(readString(in)); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+            return user;
+        }
+    };
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType == Post.class) {
+            return (TypeAdapter<T>) POST;
+        }
+        if (rawType == Comment.class) {
+            return (TypeAdapter<T>) COMMENT;
+        }
+        if (rawType == Like.class) {
+            return (TypeAdapter<T>) LIKE;
+        }
+        if (rawType == Review.class) {
+            return (TypeAdapter<T>) REVIEW;
+        }
+        if (rawType == Question.class) {
+            return (TypeAdapter<T>) QUESTION;
+        }
+        if (rawType == Answer.class) {
+            return (TypeAdapter<T>) ANSWER;
+        }
+        if (rawType == PostCounters.class) {
+            return (TypeAdapter<T>) COUNTERS;
+        }
+        if (rawType == User.class) {
+            return (TypeAdapter<T>) USER;
+        }
+        if (rawType == LongList.class) {
+            return (TypeAdapter<T>) LONGS;
+        }
+        return null;
+    }
+
+    private static String format(LocalDateTime value) {
+        return value == null ? null : value.format(DATE_TIME);
+    }
+
+    private static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    // JsonWriter.value(Number) re-validates boxed numbers on every call; value(long) is what Gson's own adapters use
+    private static void writeNumber(JsonWriter out, Number value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.value(value.longValue());
+        }
+    }
+
+    private static Long readLong(JsonReader in) throws IOException {
+        return skipNull(in) ? null : in.nextLong();
+    }
+
+    // Reflective Gson leaves a primitive field at its default when the JSON value is null
+    private static long readLongOrZero(JsonReader in) throws IOException {
+        return skipNull(in) ? 0 : in.nextLong();
+    }
+
+    private static Integer readInteger(JsonReader in) throws IOException {
+        return skipNull(in) ? null : in.nextInt();
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        return skipNull(in) ? null : in.nextString();
+    }
+
+    private static LocalDateTime readDateTime(JsonReader in) throws IOException {
+        String value = readString(in);
+        return value == null || value.isEmpty() ? null : LocalDateTime.parse(value, DATE_TIME);
+    }
+
+    private static <T> void writeList(JsonWriter out, List<T> values, TypeAdapter<T> adapter) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (T value : values) {
+            adapter.write(out, value);
+        }
+        out.endArray();
+    }
+
+    private static <T> List<T> readList(JsonReader in, TypeAdapter<T> adapter) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        List<T> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(adapter.read(in));
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static void writeStrings(JsonWriter out, List<String> values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (String value : values) {
+            out.value(value);
+        }
+        out.endArray();
+    }
+
+    private static List<String> readStrings(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.add(readString(in));
+        }
+        in.endArray();
+        return values;
+    }
+
+    static final TypeAdapter<LongList> LONGS = new TypeAdapter<>() {
+        @Override
+        public void write(JsonWriter out, LongList values) throws IOException {
+            writeLongs(out, values);
+        }
+
+        @Override
+        public LongList read(JsonReader in) throws IOException {
+            return readLongs(in);
+        }
+    };
+
+    private static void writeLongs(JsonWriter out, LongList values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (int i = 0; i < values.size(); i++) {
+            out.value(values.getLong(i));
+        }
+        out.endArray();
+    }
+
+    private static LongList readLongs(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        LongList values = new LongList();
+        in.beginArray();
+        while (in.hasNext()) {
+            values.addLong(in.nextLong());
+        }
+        in.endArray();
+        return values;
+    }
+
+    private static void writeStringMap(JsonWriter out, Map<String, String> values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            out.name(entry.getKey()).value(entry.getValue());
+        }
+        out.endObject();
+    }
+
+    private static Map<String, String> readStringMap(JsonReader in) throws IOException {
+        if (skipNull(in)) {
+            return null;
+        }
+        Map<String, String> values = new LinkedHashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            values.put(in.nextName(), readString(in));
+        }
+        in.endObject();
+        return values;
+    }
+}
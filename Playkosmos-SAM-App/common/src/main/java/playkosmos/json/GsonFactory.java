@@ -0,0 +1,28 @@
+package playkosmos.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import playkosmos.utils.LocalDateTimeTypeAdapter;
+import playkosmos.utils.LocalDateTypeAdapter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// One Gson per container for every handler and cache. Gson is thread-safe and caches its adapters, so sharing it
+// means entity adapters are resolved once instead of once per handler instance.
+public class GsonFactory {
+
+    private static final Gson GSON = create();
+
+    public static Gson getInstance() {
+        return GSON;
+    }
+
+    public static Gson create() {
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(new EntityTypeAdapters())
+                .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+                .create();
+    }
+}
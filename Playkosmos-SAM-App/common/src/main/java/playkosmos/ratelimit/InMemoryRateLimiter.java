@@ -0,0 +1,91 @@
+package playkosmos.ratelimit;
+
+import playkosmos.utils.MetricsReporter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// Per-container token buckets with the same semantics as RedisRateLimiter. Used in tests, locally, and as the
+// fallback when Redis is unreachable; limits then hold per container instead of across the fleet.
+public class InMemoryRateLimiter implements RateLimiter {
+
+    private static InMemoryRateLimiter instance;
+    private final LongSupplier clock;
+    private final Map<String, Bucket> buckets;
+    private final RateLimitStats stats = new RateLimitStats();
+
+    public InMemoryRateLimiter(LongSupplier clock, int maxBuckets) {
+        this.clock = clock;
+        // Evicting the least recently used bucket forgets a caller's history, which only ever errs towards admitting
+        this.buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                return size() > maxBuckets;
+            }
+        };
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(List<RateLimitKey> keys) {
+        RateLimitDecision decision = acquire(keys);
+        MetricsReporter.getInstance().maybeReport();
+        return decision;
+    }
+
+    private synchronized RateLimitDecision acquire(List<RateLimitKey> keys) {
+        long now = clock.getAsLong();
+        List<Bucket> acquired = new ArrayList<>(keys.size());
+
+        RateLimitDecision decision = RateLimitDecision.allowed();
+        for (RateLimitKey key : keys) {
+            RateLimitRule rule = key.getRule();
+            Bucket bucket = buckets.computeIfAbsent(key.bucketName(), name -> new Bucket(rule.getCapacity(), now));
+            bucket.refill(rule, now);
+            if (bucket.tokens < 1) {
+                decision = RateLimitDecision.rejected(rule.getName(), (long) Math.ceil((1 - bucket.tokens) / rule.refillPerMilli()));
+                break;
+            }
+            acquired.add(bucket);
+        }
+
+        if (decision.isAllowed()) {
+            for (Bucket bucket : acquired) {
+                bucket.tokens -= 1;
+            }
+        }
+        stats.record(decision);
+        return decision;
+    }
+
+    @Override
+    public RateLimitStats getStats() {
+        return stats;
+    }
+
+    public static synchronized InMemoryRateLimiter getInstance() {
+        if (instance == null) {
+            instance = new InMemoryRateLimiter(System::currentTimeMillis, 10_000);
+            MetricsReporter.getInstance().register("rateLimit.local", instance.stats::snapshot);
+        }
+        return instance;
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long updatedAt;
+
+        private Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+
+        private void refill(RateLimitRule rule, long now) {
+            long elapsed = Math.max(0, now - updatedAt);
+            tokens = Math.min(rule.getCapacity(), tokens + elapsed * rule.refillPerMilli());
+            updatedAt = now;
+        }
+    }
+}
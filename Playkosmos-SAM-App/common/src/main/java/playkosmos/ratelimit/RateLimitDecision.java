@@ -0,0 +1,31 @@
+package playkosmos.ratelimit;
+
+import lombok.Getter;
+
+@Getter
+public class RateLimitDecision {
+
+    private static final RateLimitDecision ALLOWED = new RateLimitDecision(true, null, 0);
+
+    private final boolean allowed;
+    private final String rejectedBy;
+    private final long retryAfterMillis;
+
+    private RateLimitDecision(boolean allowed, String rejectedBy, long retryAfterMillis) {
+        this.allowed = allowed;
+        this.rejectedBy = rejectedBy;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public static RateLimitDecision allowed() {
+        return ALLOWED;
+    }
+
+    public static RateLimitDecision rejected(String rule, long retryAfterMillis) {
+        return new RateLimitDecision(false, rule, Math.max(1, retryAfterMillis));
+    }
+
+    public long getRetryAfterSeconds() {
+        return (retryAfterMillis + 999) / 1000;
+    }
+}
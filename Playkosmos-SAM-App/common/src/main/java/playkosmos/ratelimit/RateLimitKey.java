@@ -0,0 +1,19 @@
+package playkosmos.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Locale;
+
+// One bucket: a rule applied to one caller identity (an IP, an email or a phone number)
+@Getter
+@AllArgsConstructor
+public class RateLimitKey {
+
+    private final RateLimitRule rule;
+    private final String identity;
+
+    public String bucketName() {
+        return "ratelimit:" + rule.getName() + ":" + identity.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,39 @@
+package playkosmos.ratelimit;
+
+import lombok.Getter;
+
+// A token bucket holding up to capacity tokens that refills completely over periodMillis. One request takes
+// one token, so a rule allows short bursts of capacity requests and capacity requests per period sustained.
+@Getter
+public class RateLimitRule {
+
+    private final String name;
+    private final long capacity;
+    private final long periodMillis;
+
+    public RateLimitRule(String name, long capacity, long periodMillis) {
+        if (capacity < 1 || periodMillis < 1) {
+            throw new IllegalArgumentException("Rate limit " + name + " needs a positive capacity and period");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.periodMillis = periodMillis;
+    }
+
+    public double refillPerMilli() {
+        return (double) capacity / periodMillis;
+    }
+
+    // RATE_LIMIT_<NAME> overrides the default as "<capacity>/<period seconds>", e.g. RATE_LIMIT_LOGIN_IP=30/60
+    public static RateLimitRule fromEnv(String name, long defaultCapacity, long defaultPeriodSeconds) {
+        String value = System.getenv("RATE_LIMIT_" + name.toUpperCase().replace('-', '_'));
+        if (value == null || value.isBlank()) {
+            return new RateLimitRule(name, defaultCapacity, defaultPeriodSeconds * 1000);
+        }
+        String[] parts = value.trim().split("/");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid rate limit for " + name + ": " + value);
+        }
+        return new RateLimitRule(name, Long.parseLong(parts[0].trim()), Long.parseLong(parts[1].trim()) * 1000);
+    }
+}
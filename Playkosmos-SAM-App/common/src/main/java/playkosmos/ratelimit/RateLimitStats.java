@@ -0,0 +1,45 @@
+package playkosmos.ratelimit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class RateLimitStats {
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final Map<String, LongAdder> rejectedByRule = new ConcurrentHashMap<>();
+
+    public void record(RateLimitDecision decision) {
+        if (decision.isAllowed()) {
+            admitted.increment();
+        } else {
+            rejected.increment();
+            rejectedByRule.computeIfAbsent(decision.getRejectedBy(), rule -> new LongAdder()).increment();
+        }
+    }
+
+    public long getAdmitted() {
+        return admitted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getRejected(String rule) {
+        LongAdder count = rejectedByRule.get(rule);
+        return count == null ? 0 : count.sum();
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("admitted", getAdmitted());
+        snapshot.put("rejected", getRejected());
+        Map<String, Long> byRule = new LinkedHashMap<>();
+        rejectedByRule.forEach((rule, count) -> byRule.put(rule, count.sum()));
+        snapshot.put("rejectedByRule", byRule);
+        return snapshot;
+    }
+}
@@ -0,0 +1,26 @@
+package playkosmos.ratelimit;
+
+import playkosmos.dbutil.RedisConnectionManager;
+import playkosmos.utils.RuntimeLog;
+
+import java.util.List;
+
+// Checked before any MySQL or BCrypt work so throttled callers cost one Redis round trip at most
+public interface RateLimiter {
+
+    // Takes a token from every bucket, or from none of them when any bucket is empty
+    RateLimitDecision tryAcquire(List<RateLimitKey> keys);
+
+    RateLimitStats getStats();
+
+    static RateLimiter forEnvironment() {
+        if (RedisConnectionManager.isConfigured()) {
+            try {
+                return RedisRateLimiter.getInstance();
+            } catch (RuntimeException e) {
+                RuntimeLog.log("Redis rate limiter unavailable, using local buckets: " + e.getMessage());
+            }
+        }
+        return InMemoryRateLimiter.getInstance();
+    }
+}
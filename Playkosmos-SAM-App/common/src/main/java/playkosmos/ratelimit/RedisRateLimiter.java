@@ -0,0 +1,107 @@
+package playkosmos.ratelimit;
+
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.api.sync.RedisCommands;
+import playkosmos.dbutil.RedisConnectionManager;
+import playkosmos.utils.MetricsReporter;
+import playkosmos.utils.RuntimeLog;
+
+import java.util.List;
+
+// Token buckets shared by every container. A single Lua script refills and checks all of a request's buckets and
+// only takes tokens when every one of them has one, so a request costs one round trip and a rejected request
+// consumes nothing. Bucket time comes from the Redis clock so container clock skew cannot mint tokens.
+public class RedisRateLimiter implements RateLimiter {
+
+    static final String TOKEN_BUCKET_SCRIPT =
+            "local now = redis.call('TIME')\n" +
+            "local nowMs = tonumber(now[1]) * 1000 + math.floor(tonumber(now[2]) / 1000)\n" +
+            "local tokens = {}\n" +
+            "for i, key in ipairs(KEYS) do\n" +
+            "  local capacity = tonumber(ARGV[i * 2 - 1])\n" +
+            "  local periodMs = tonumber(ARGV[i * 2])\n" +
+            "  local rate = capacity / periodMs\n" +
+            "  local bucket = redis.call('HMGET', key, 'tokens', 'ts')\n" +
+            "  local available = tonumber(bucket[1]) or capacity\n" +
+            "  local updatedAt = tonumber(bucket[2]) or nowMs\n" +
+            "  available = math.min(capacity, available + math.max(0, nowMs - updatedAt) * rate)\n" +
+            "  if available < 1 then\n" +
+            "    return {i, math.ceil((1 - available) / rate)}\n" +
+            "  end\n" +
+            "  tokens[i] = available\n" +
+            "end\n" +
+            "for i, key in ipairs(KEYS) do\n" +
+            "  redis.call('HSET', key, 'tokens', tokens[i] - 1, 'ts', nowMs)\n" +
+            "  redis.call('PEXPIRE', key, ARGV[i * 2])\n" +
+            "end\n" +
+            "return {0, 0}\n";
+
+    private static RedisRateLimiter instance;
+    private final RedisCommands<String, String> commands;
+    private final RateLimiter fallback;
+    private final RateLimitStats stats = new RateLimitStats();
+    private volatile String scriptSha;
+
+    public RedisRateLimiter(RedisCommands<String, String> commands, RateLimiter fallback) {
+        this.commands = commands;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(List<RateLimitKey> keys) {
+        String[] bucketNames = new String[keys.size()];
+        String[] args = new String[keys.size() * 2];
+        for (int i = 0; i < keys.size(); i++) {
+            RateLimitRule rule = keys.get(i).getRule();
+            bucketNames[i] = keys.get(i).bucketName();
+            args[i * 2] = String.valueOf(rule.getCapacity());
+            args[i * 2 + 1] = String.valueOf(rule.getPeriodMillis());
+        }
+
+        RateLimitDecision decision;
+        try {
+            List<Object> result = eval(bucketNames, args);
+            int rejectedIndex = ((Long) result.get(0)).intValue();
+            decision = rejectedIndex == 0
+                    ? RateLimitDecision.allowed()
+                    : RateLimitDecision.rejected(keys.get(rejectedIndex - 1).getRule().getName(), (Long) result.get(1));
+            stats.record(decision);
+        } catch (RuntimeException e) {
+            // Fall back to per-container limits rather than failing open or locking everyone out. The fallback
+            // counts that decision in its own stats, so it is not recorded here as well.
+            RuntimeLog.log("Redis rate limiter unavailable, using local buckets: " + e.getMessage());
+            decision = fallback.tryAcquire(keys);
+        }
+        MetricsReporter.getInstance().maybeReport();
+        return decision;
+    }
+
+    private List<Object> eval(String[] bucketNames, String[] args) {
+        String sha = scriptSha;
+        if (sha == null) {
+            sha = commands.scriptLoad(TOKEN_BUCKET_SCRIPT);
+            scriptSha = sha;
+        }
+        try {
+            return commands.evalsha(sha, ScriptOutputType.MULTI, bucketNames, args);
+        } catch (RedisNoScriptException e) {
+            // The script cache was flushed, e.g. by a failover
+            scriptSha = null;
+            return commands.eval(TOKEN_BUCKET_SCRIPT, ScriptOutputType.MULTI, bucketNames, args);
+        }
+    }
+
+    @Override
+    public RateLimitStats getStats() {
+        return stats;
+    }
+
+    public static synchronized RedisRateLimiter getInstance() {
+        if (instance == null) {
+            instance = new RedisRateLimiter(RedisConnectionManager.getInstance().sync(), InMemoryRateLimiter.getInstance());
+            MetricsReporter.getInstance().register("rateLimit.redis", instance.stats::snapshot);
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,29 @@
+package playkosmos.ratelimit;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RequestIdentity {
+
+    // API Gateway's view of the caller; X-Forwarded-For is client-controlled and would let callers pick their bucket
+    public static String sourceIp(APIGatewayProxyRequestEvent requestEvent) {
+        if (requestEvent.getRequestContext() == null || requestEvent.getRequestContext().getIdentity() == null) {
+            return null;
+        }
+        return requestEvent.getRequestContext().getIdentity().getSourceIp();
+    }
+
+    // Buckets for the caller's IP and for the email or phone number it is acting on; either may be absent
+    public static List<RateLimitKey> keys(RateLimitRule ipRule, String sourceIp, RateLimitRule accountRule, String account) {
+        List<RateLimitKey> keys = new ArrayList<>(2);
+        if (sourceIp != null && !sourceIp.isBlank()) {
+            keys.add(new RateLimitKey(ipRule, sourceIp));
+        }
+        if (account != null && !account.isBlank()) {
+            keys.add(new RateLimitKey(accountRule, account));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,62 @@
+package playkosmos.streaming;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Holds back the start of a response body until it is known whether the body reaches the compression threshold.
+// The response head is only written then, so the headers can still say whether the body is compressed.
+class BodyOutputStream extends OutputStream {
+
+    interface Opener {
+        OutputStream open(boolean compressed) throws IOException;
+    }
+
+    private final int compressionThreshold;
+    private final Opener opener;
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private OutputStream target;
+
+    // A negative threshold never compresses
+    BodyOutputStream(int compressionThreshold, Opener opener) {
+        this.compressionThreshold = compressionThreshold;
+        this.opener = opener;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (target != null) {
+            target.write(bytes, offset, length);
+            return;
+        }
+        pending.write(bytes, offset, length);
+        if (compressionThreshold >= 0 && pending.size() >= compressionThreshold) {
+            open(true);
+        }
+    }
+
+    @Override
+    public void flush() {
+        // Nothing may reach the output before the head, and after that the target buffers on its own
+    }
+
+    // Writes out whatever is still held back and finishes the target, leaving the Lambda output open
+    @Override
+    public void close() throws IOException {
+        if (target == null) {
+            open(false);
+        }
+        target.close();
+    }
+
+    private void open(boolean compressed) throws IOException {
+        target = opener.open(compressed);
+        pending.writeTo(target);
+        pending = null;
+    }
+}
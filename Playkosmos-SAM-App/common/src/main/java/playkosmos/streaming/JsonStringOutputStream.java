@@ -0,0 +1,69 @@
+package playkosmos.streaming;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Escapes UTF-8 bytes written through it as the contents of a JSON string, so a response body can be serialised
+// straight into the "body" field of the proxy response instead of being built as a String and escaped afterwards.
+// Only ASCII needs escaping and multi-byte UTF-8 sequences never contain ASCII bytes, so this works byte by byte.
+class JsonStringOutputStream extends OutputStream {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream out;
+
+    JsonStringOutputStream(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        switch (b & 0xff) {
+            case '"': escape('"'); break;
+            case '\\': escape('\\'); break;
+            case '\n': escape('n'); break;
+            case '\r': escape('r'); break;
+            case '\t': escape('t'); break;
+            case '\b': escape('b'); break;
+            case '\f': escape('f'); break;
+            default:
+                if ((b & 0xff) < 0x20) {
+                    out.write(new byte[]{'\\', 'u', '0', '0', HEX[(b >> 4) & 0xf], HEX[b & 0xf]});
+                } else {
+                    out.write(b);
+                }
+        }
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        int end = offset + length;
+        int start = offset;
+        for (int i = offset; i < end; i++) {
+            int b = bytes[i] & 0xff;
+            if (b == '"' || b == '\\' || b < 0x20) {
+                out.write(bytes, start, i - start);
+                write(b);
+                start = i + 1;
+            }
+        }
+        out.write(bytes, start, end - start);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The enclosing response still has to close the string and the object
+        out.flush();
+    }
+
+    private void escape(char c) throws IOException {
+        out.write('\\');
+        out.write(c);
+    }
+}
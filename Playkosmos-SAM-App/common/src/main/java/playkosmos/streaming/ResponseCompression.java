@@ -0,0 +1,66 @@
+package playkosmos.streaming;
+
+import lombok.Getter;
+
+import java.util.Locale;
+
+// Outcome of Accept-Encoding negotiation for one response. Only gzip is offered: the JDK has no Brotli encoder and
+// every client that sends "br" also accepts gzip.
+@Getter
+public class ResponseCompression {
+
+    public static final ResponseCompression NONE = new ResponseCompression(false, false, -1);
+
+    // Whether the response varies on Accept-Encoding at all, i.e. compression is enabled for the handler
+    private final boolean negotiated;
+    private final boolean gzip;
+    private final int minBytes;
+
+    private ResponseCompression(boolean negotiated, boolean gzip, int minBytes) {
+        this.negotiated = negotiated;
+        this.gzip = gzip;
+        this.minBytes = minBytes;
+    }
+
+    // A negative minBytes disables compression
+    public static ResponseCompression negotiate(String acceptEncoding, int minBytes) {
+        if (minBytes < 0) {
+            return NONE;
+        }
+        return new ResponseCompression(true, acceptsGzip(acceptEncoding), minBytes);
+    }
+
+    // Bodies below minBytes are sent as they are; compressing them costs more than it saves
+    public int getCompressionThreshold() {
+        return gzip ? minBytes : -1;
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String part : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] params = part.trim().split(";");
+            String coding = params[0].trim();
+            boolean allowed = true;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        allowed = Double.parseDouble(param.substring(2).trim()) > 0;
+                    } catch (NumberFormatException e) {
+                        allowed = false;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                return allowed;
+            }
+            if (coding.equals("*")) {
+                wildcard = allowed;
+            }
+        }
+        return wildcard;
+    }
+}
@@ -0,0 +1,132 @@
+package playkosmos.streaming;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+// The parts of an API Gateway proxy event the streaming handlers read. Everything else in the event, such as the
+// rest of the request context and the multi-value maps, is skipped token by token without being materialised.
+@Getter
+public class StreamingRequest {
+
+    private String httpMethod;
+    private String path;
+    private Map<String, String> pathParameters = Map.of();
+    private Map<String, String> queryStringParameters = Map.of();
+    // Keys are lower-cased, API Gateway passes them through as the client sent them
+    private Map<String, String> headers = Map.of();
+    private String body;
+    private boolean base64Encoded;
+    // requestContext.authorizer.principalId, the username the Lambda authorizer verified
+    private String principalId;
+
+    public String getPathParameter(String name) {
+        return pathParameters.get(name);
+    }
+
+    public String getQueryParameter(String name) {
+        return queryStringParameters.get(name);
+    }
+
+    public String getHeader(String name) {
+        return headers.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    // API Gateway base64 encodes bodies whose Content-Type is one of the API's binary media types, which with */*
+    // (see StreamingResponse) is every body
+    public byte[] getBodyBytes() {
+        if (body == null) {
+            return new byte[0];
+        }
+        return base64Encoded ? Base64.getDecoder().decode(body) : body.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static StreamingRequest parse(InputStream input) throws IOException {
+        StreamingRequest request = new StreamingRequest();
+        JsonReader reader = new JsonReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new IOException("Expected an API Gateway proxy event");
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "httpMethod": request.httpMethod = readString(reader); break;
+                case "path": request.path = readString(reader); break;
+                case "pathParameters": request.pathParameters = readMap(reader, false); break;
+                case "queryStringParameters": request.queryStringParameters = readMap(reader, false); break;
+                case "headers": request.headers = readMap(reader, true); break;
+                case "body": request.body = readString(reader); break;
+                case "requestContext": request.principalId = readPrincipalId(reader); break;
+                case "isBase64Encoded": {
+                    if (reader.peek() == JsonToken.BOOLEAN) {
+                        request.base64Encoded = reader.nextBoolean();
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                }
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return request;
+    }
+
+    private static String readString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static String readPrincipalId(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        String principalId = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("authorizer") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if (reader.nextName().equals("principalId") && reader.peek() == JsonToken.STRING) {
+                        principalId = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return principalId;
+    }
+
+    private static Map<String, String> readMap(JsonReader reader, boolean lowerCaseKeys) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return Map.of();
+        }
+        Map<String, String> values = new HashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            values.put(lowerCaseKeys ? name.toLowerCase(Locale.ROOT) : name, readString(reader));
+        }
+        reader.endObject();
+        return values;
+    }
+}
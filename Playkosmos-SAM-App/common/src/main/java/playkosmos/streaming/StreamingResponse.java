@@ -0,0 +1,162 @@
+package playkosmos.streaming;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import lombok.Getter;
+import playkosmos.cbor.EntityCbor;
+import playkosmos.utils.ETags;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+// A status, headers and a body object that is only serialised when the response is written, directly into the
+// Lambda output stream
+@Getter
+public class StreamingResponse {
+
+    // Separates the JSON prelude from the raw body in Lambda's HTTP integration streaming format
+    private static final byte[] PRELUDE_DELIMITER = new byte[8];
+    private static final int GZIP_BUFFER_SIZE = 8 * 1024;
+
+    private final int statusCode;
+    private final Object body;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+
+    public StreamingResponse(int statusCode, Object body) {
+        this.statusCode = statusCode;
+        this.body = body;
+        if (body != null) {
+            headers.put("Content-Type", "application/json");
+        }
+    }
+
+    public static StreamingResponse ok(Object body) {
+        return new StreamingResponse(200, body);
+    }
+
+    public static StreamingResponse error(int statusCode, String message) {
+        return new StreamingResponse(statusCode, Map.of("status", "error", "message", message));
+    }
+
+    public static StreamingResponse notModified(String etag) {
+        return new StreamingResponse(304, null).withETag(etag);
+    }
+
+    public StreamingResponse withHeader(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    public StreamingResponse withETag(String etag) {
+        return etag == null ? this : withHeader("ETag", etag);
+    }
+
+    public StreamingResponse withVary(String header) {
+        headers.merge("Vary", header, (current, added) -> current + ", " + added);
+        return this;
+    }
+
+    public void writeTo(OutputStream output, Gson gson, boolean streaming) throws IOException {
+        writeTo(output, gson, streaming, ResponseCompression.NONE, WireFormat.JSON);
+    }
+
+    // Buffered mode writes the API Gateway proxy response with a JSON body serialised inside its "body" string,
+    // or base64 encoded there when it is CBOR or compressed. Streaming mode writes the headers as a prelude
+    // followed by the raw body, which Lambda response streaming forwards to the client as it is produced. Either
+    // way the head is written once the first compressionThreshold bytes of the body show whether it gets
+    // compressed. Bodies of a type EntityCbor has no encoding for are sent as JSON even to CBOR clients.
+    public void writeTo(OutputStream output, Gson gson, boolean streaming, ResponseCompression compression,
+                        WireFormat format) throws IOException {
+        WireFormat bodyFormat = format == WireFormat.CBOR && EntityCbor.supports(this.body) ? WireFormat.CBOR : WireFormat.JSON;
+        OutputStream body = new BodyOutputStream(compression.getCompressionThreshold(),
+                compressed -> openBody(output, streaming, compressed, compression, bodyFormat));
+        if (this.body != null && bodyFormat == WireFormat.CBOR) {
+            EntityCbor.write(body, this.body);
+        } else if (this.body != null) {
+            Writer writer = new OutputStreamWriter(body, StandardCharsets.UTF_8);
+            JsonWriter json = gson.newJsonWriter(writer);
+            gson.toJson(this.body, this.body.getClass(), json);
+            json.flush();
+        }
+        body.close();
+        if (!streaming) {
+            output.write('"');
+            output.write('}');
+        }
+        output.flush();
+    }
+
+    private OutputStream openBody(OutputStream output, boolean streaming, boolean compressed,
+                                  ResponseCompression compression, WireFormat format) throws IOException {
+        Map<String, String> head = new LinkedHashMap<>(headers);
+        if (compression.isNegotiated()) {
+            head.merge("Vary", "Accept-Encoding", (current, added) -> current + ", " + added);
+        }
+        if (format == WireFormat.CBOR) {
+            head.put("Content-Type", format.getContentType());
+            head.computeIfPresent("ETag", (name, etag) -> ETags.withVariant(etag, "cbor"));
+        }
+        if (compressed) {
+            head.put("Content-Encoding", "gzip");
+            head.computeIfPresent("ETag", (name, etag) -> ETags.withVariant(etag, "gzip"));
+        }
+        boolean binary = compressed || format == WireFormat.CBOR;
+
+        OutputStream unclosable = new UnclosableOutputStream(output);
+        JsonWriter envelope = new JsonWriter(new OutputStreamWriter(unclosable, StandardCharsets.UTF_8));
+        envelope.beginObject();
+        envelope.name("statusCode").value(statusCode);
+        envelope.name("headers").beginObject();
+        for (Map.Entry<String, String> header : head.entrySet()) {
+            envelope.name(header.getKey()).value(header.getValue());
+        }
+        envelope.endObject();
+
+        if (streaming) {
+            envelope.endObject();
+            envelope.flush();
+            output.write(PRELUDE_DELIMITER);
+            return compressed ? new GZIPOutputStream(unclosable, GZIP_BUFFER_SIZE) : unclosable;
+        }
+
+        // A REST API only decodes a base64 body back to binary when the request's Accept header matches one of its
+        // binary media types. Gzipped JSON goes to clients accepting application/json, so no narrower list than
+        // */* works. API Gateway then also base64 encodes every request body, which StreamingRequest.getBodyBytes
+        // and RequestBodies.text decode.
+        envelope.name("isBase64Encoded").value(binary);
+        // The body string is opened by hand so the payload can be escaped into it while it is serialised
+        envelope.name("body").jsonValue("\"");
+        envelope.flush();
+        if (!binary) {
+            return new JsonStringOutputStream(unclosable);
+        }
+        OutputStream base64 = Base64.getEncoder().wrap(unclosable);
+        return compressed ? new GZIPOutputStream(base64, GZIP_BUFFER_SIZE) : base64;
+    }
+
+    // Lets the body streams be closed to finish their encoding without closing the Lambda output
+    private static class UnclosableOutputStream extends FilterOutputStream {
+
+        UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
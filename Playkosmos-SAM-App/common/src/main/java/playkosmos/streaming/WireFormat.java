@@ -0,0 +1,62 @@
+package playkosmos.streaming;
+
+import playkosmos.cbor.EntityCbor;
+
+import java.util.Locale;
+
+public enum WireFormat {
+
+    JSON("application/json"),
+    CBOR(EntityCbor.CONTENT_TYPE);
+
+    private final String contentType;
+
+    WireFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    // CBOR only when the client asks for it at least as strongly as for JSON; anything else gets JSON as before
+    public static WireFormat negotiate(String accept) {
+        if (accept == null) {
+            return JSON;
+        }
+        double cbor = 0;
+        double json = 0;
+        for (String range : accept.toLowerCase(Locale.ROOT).split(",")) {
+            String[] params = range.trim().split(";");
+            String mediaType = params[0].trim();
+            double quality = quality(params);
+            if (mediaType.equals(CBOR.contentType)) {
+                cbor = Math.max(cbor, quality);
+            } else if (mediaType.equals(JSON.contentType) || mediaType.equals("application/*") || mediaType.equals("*/*")) {
+                json = Math.max(json, quality);
+            }
+        }
+        return cbor > 0 && cbor >= json ? CBOR : JSON;
+    }
+
+    public static WireFormat fromContentType(String contentType) {
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).trim().startsWith(CBOR.contentType)) {
+            return CBOR;
+        }
+        return JSON;
+    }
+
+    private static double quality(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
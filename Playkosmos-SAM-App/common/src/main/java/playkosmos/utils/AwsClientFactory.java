@@ -0,0 +1,83 @@
+package playkosmos.utils;
+
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.ContainerCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
+import software.amazon.awssdk.awscore.client.builder.AwsSyncClientBuilder;
+import software.amazon.awssdk.core.SdkClient;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Builds each SDK v2 client once per execution environment. Every client shares one URLConnection HTTP client,
+// gets its region pinned, and gets a credentials provider chosen up front from the Lambda environment, so
+// building a client never probes the region or credentials provider chains.
+public class AwsClientFactory {
+
+    private static final Map<String, SdkClient> clients = new ConcurrentHashMap<>();
+    private static SdkHttpClient httpClient;
+    private static AwsCredentialsProvider credentialsProvider;
+
+    public static <B extends AwsClientBuilder<B, C> & AwsSyncClientBuilder<B, C>, C extends SdkClient> C getClient(
+            Class<C> type, Supplier<B> builder) {
+        return getClient(type, getRegion(), builder);
+    }
+
+    public static <B extends AwsClientBuilder<B, C> & AwsSyncClientBuilder<B, C>, C extends SdkClient> C getClient(
+            Class<C> type, Region region, Supplier<B> builder) {
+        SdkClient client = clients.computeIfAbsent(type.getName() + "@" + region.id(), key -> builder.get()
+                .region(region)
+                .credentialsProvider(getCredentialsProvider())
+                .httpClient(getHttpClient())
+                .build());
+        return type.cast(client);
+    }
+
+    public static SecretsManagerClient getSecretsManagerClient(String region) {
+        return getClient(SecretsManagerClient.class, Region.of(region), SecretsManagerClient::builder);
+    }
+
+    public static Region getRegion() {
+        String region = System.getenv("AWS_REGION");
+        if (region == null || region.isBlank()) {
+            region = System.getenv("REGION_NAME");
+        }
+        if (region == null || region.isBlank()) {
+            throw new RuntimeException("AWS_REGION is not configured");
+        }
+        return Region.of(region.trim());
+    }
+
+    public static synchronized SdkHttpClient getHttpClient() {
+        if (httpClient == null) {
+            httpClient = UrlConnectionHttpClient.builder()
+                    .connectionTimeout(Duration.ofMillis(EnvConfig.longEnv("AWS_CONNECT_TIMEOUT_MS", 2_000)))
+                    .socketTimeout(Duration.ofMillis(EnvConfig.longEnv("AWS_SOCKET_TIMEOUT_MS", 5_000)))
+                    .build();
+        }
+        return httpClient;
+    }
+
+    public static synchronized AwsCredentialsProvider getCredentialsProvider() {
+        if (credentialsProvider == null) {
+            if (System.getenv("AWS_CONTAINER_CREDENTIALS_FULL_URI") != null) {
+                // SnapStart functions get credentials from the container endpoint, not the environment
+                credentialsProvider = ContainerCredentialsProvider.builder().build();
+            } else if (System.getenv("AWS_ACCESS_KEY_ID") != null) {
+                credentialsProvider = EnvironmentVariableCredentialsProvider.create();
+            } else {
+                // Outside Lambda, e.g. local runs and benchmarks
+                credentialsProvider = DefaultCredentialsProvider.create();
+            }
+        }
+        return credentialsProvider;
+    }
+}
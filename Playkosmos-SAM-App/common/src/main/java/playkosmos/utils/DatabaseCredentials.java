@@ -0,0 +1,44 @@
+package playkosmos.utils;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class DatabaseCredentials {
+
+    private final String username;
+    private final String password;
+    private final String host;
+    private final int port;
+    private final String dbname;
+
+    public static DatabaseCredentials fromSecretMap(Map<String, Object> secretMap) {
+        String username = (String) secretMap.get("username");
+        String password = (String) secretMap.get("password");
+        String host = (String) secretMap.get("host");
+        Object port = secretMap.get("port");
+        String dbname = (String) secretMap.get("dbname");
+
+        if (username == null || password == null || host == null || port == null || dbname == null) {
+            throw new RuntimeException("Database credentials or connection details are missing in the secret");
+        }
+
+        int portNumber = port instanceof Number ? ((Number) port).intValue() : Integer.parseInt(port.toString());
+        return new DatabaseCredentials(username, password, host, portNumber, dbname);
+    }
+
+    // rewriteBatchedStatements turns JDBC batches into multi-row INSERTs
+    public String getJdbcUrl() {
+        return String.format("jdbc:mysql://%s:%d/%s?rewriteBatchedStatements=true", host, port, dbname);
+    }
+
+    @Override
+    public String toString() {
+        return "DatabaseCredentials(username=" + username + ", host=" + host + ", port=" + port + ", dbname=" + dbname + ")";
+    }
+}
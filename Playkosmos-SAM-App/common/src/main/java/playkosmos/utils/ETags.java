@@ -0,0 +1,59 @@
+package playkosmos.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// Strong entity tags derived from a representation's bytes. CBOR and compressed responses carry the same tag with
+// a variant suffix such as -cbor-gzip, since they are different representations, and If-None-Match treats every
+// variant as the same entity.
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String strong(String representation) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(representation.getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 is not available", e);
+        }
+    }
+
+    public static String withVariant(String etag, String variant) {
+        if (etag == null || !etag.endsWith("\"")) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + variant + "\"";
+    }
+
+    // Returns the tag from an If-None-Match header that matches etag, or null when none does
+    public static String match(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return null;
+        }
+        String expected = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return etag;
+            }
+            if (opaque(tag).equals(expected)) {
+                return tag;
+            }
+        }
+        return null;
+    }
+
+    // If-None-Match uses weak comparison, so W/ prefixes and variant suffixes are ignored
+    private static String opaque(String tag) {
+        String value = tag.startsWith("W/") ? tag.substring(2) : tag;
+        int suffix = value.indexOf('-');
+        if (suffix > 0 && value.endsWith("\"")) {
+            value = value.substring(0, suffix) + "\"";
+        }
+        return value;
+    }
+}
@@ -0,0 +1,47 @@
+package playkosmos.utils;
+
+// Settings read from the Lambda environment. A missing or blank variable falls back to the default; a value that
+// does not parse, or a required one that is missing, fails the cold start instead of being silently replaced.
+public final class EnvConfig {
+
+    private EnvConfig() {
+    }
+
+    public static String stringEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    // For credentials and endpoints that have no safe default
+    public static String requiredEnv(String name) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            throw new RuntimeException(name + " is not set");
+        }
+        return value.trim();
+    }
+
+    public static int intEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid integer value for " + name + ": " + value, e);
+        }
+    }
+
+    public static long longEnv(String name, long defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid long value for " + name + ": " + value, e);
+        }
+    }
+}
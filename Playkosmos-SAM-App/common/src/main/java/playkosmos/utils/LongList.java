@@ -0,0 +1,130 @@
+package playkosmos.utils;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+// A growable list of primitive longs for the ID collections on a post. It is still a List<Long> so callers can
+// iterate and addAll as before, but the IDs live in a single long[] (8 bytes each) rather than an Object[] of boxed
+// Longs (a 4-8 byte reference plus a 16 byte object each). The DAO, the Gson adapters and the CBOR codec use
+// getLong/addLong so the hot path never boxes; the List<Long> methods box on access. Null elements are rejected.
+public class LongList extends AbstractList<Long> implements RandomAccess {
+
+    private static final long[] EMPTY = new long[0];
+    private static final int MIN_GROWTH = 8;
+
+    private long[] values;
+    private int size;
+
+    public LongList() {
+        this.values = EMPTY;
+    }
+
+    public LongList(int capacity) {
+        this.values = capacity == 0 ? EMPTY : new long[capacity];
+    }
+
+    public static LongList of(long... values) {
+        LongList list = new LongList(values.length);
+        System.arraycopy(values, 0, list.values, 0, values.length);
+        list.size = values.length;
+        return list;
+    }
+
+    public long getLong(int index) {
+        Objects.checkIndex(index, size);
+        return values[index];
+    }
+
+    public long setLong(int index, long value) {
+        Objects.checkIndex(index, size);
+        long previous = values[index];
+        values[index] = value;
+        return previous;
+    }
+
+    public void addLong(long value) {
+        if (size == values.length) {
+            grow();
+        }
+        values[size++] = value;
+        modCount++;
+    }
+
+    public boolean containsLong(long value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long[] toLongArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    public LongList copy() {
+        return of(toLongArray());
+    }
+
+    @Override
+    public Long get(int index) {
+        return getLong(index);
+    }
+
+    @Override
+    public Long set(int index, Long value) {
+        return setLong(index, value);
+    }
+
+    @Override
+    public boolean add(Long value) {
+        addLong(value);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Long value) {
+        Objects.checkIndex(index, size + 1);
+        long unboxed = value;
+        if (size == values.length) {
+            grow();
+        }
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = unboxed;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public Long remove(int index) {
+        Objects.checkIndex(index, size);
+        long removed = values[index];
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        modCount++;
+        return removed;
+    }
+
+    @Override
+    public boolean contains(Object value) {
+        return value instanceof Long && containsLong((Long) value);
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private void grow() {
+        values = Arrays.copyOf(values, Math.max(MIN_GROWTH, values.length + (values.length >> 1)));
+    }
+}
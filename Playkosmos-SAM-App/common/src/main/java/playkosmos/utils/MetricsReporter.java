@@ -0,0 +1,67 @@
+package playkosmos.utils;
+
+import com.amazonaws.services.lambda.runtime.LambdaRuntime;
+import playkosmos.json.GsonFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// Writes the connection pool, cache and rate limiter counters as one JSON log line, e.g.
+// {"metrics":{"pool":{...},"rateLimit.redis":{"admitted":12,...}}}, at most once per METRICS_INTERVAL_MS.
+// Lambda freezes background threads between invocations, so the line is written from the request path by the first
+// maybeReport() call after the interval has passed. Counters are cumulative for the container; a CloudWatch Logs
+// metric filter or Logs Insights query on the "metrics" field charts them.
+public class MetricsReporter {
+
+    private static MetricsReporter instance;
+    private final Map<String, Supplier<Map<String, Object>>> sources = new LinkedHashMap<>();
+    private final long intervalNanos;
+    private final LongSupplier clock;
+    private final Consumer<String> sink;
+    private final AtomicLong nextReportAt;
+
+    public MetricsReporter(long intervalMillis, LongSupplier clock, Consumer<String> sink) {
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.clock = clock;
+        this.sink = sink;
+        this.nextReportAt = new AtomicLong(clock.getAsLong() + intervalNanos);
+    }
+
+    // Registering under an existing name replaces that source, e.g. when a rotated secret rebuilds the pool
+    public synchronized void register(String name, Supplier<Map<String, Object>> source) {
+        sources.put(name, source);
+    }
+
+    public void maybeReport() {
+        long now = clock.getAsLong();
+        long due = nextReportAt.get();
+        // Only the caller that moves the deadline on writes the line
+        if (now - due < 0 || !nextReportAt.compareAndSet(due, now + intervalNanos)) {
+            return;
+        }
+        try {
+            sink.accept(GsonFactory.getInstance().toJson(Map.of("metrics", snapshot())));
+        } catch (RuntimeException e) {
+            RuntimeLog.log("Failed to report metrics: " + e.getMessage());
+        }
+    }
+
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        sources.forEach((name, source) -> snapshot.put(name, source.get()));
+        return snapshot;
+    }
+
+    public static synchronized MetricsReporter getInstance() {
+        if (instance == null) {
+            instance = new MetricsReporter(EnvConfig.longEnv("METRICS_INTERVAL_MS", 60_000), System::nanoTime,
+                    line -> LambdaRuntime.getLogger().log(line + "\n"));
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,20 @@
+package playkosmos.utils;
+
+import java.security.SecureRandom;
+
+// Six-digit OTPs from a SecureRandom. A SnapStart snapshot captures the generator's state, so every environment
+// restored from the same snapshot would produce the same sequence; SnapStartPriming calls reseed() after restore.
+public class OtpGenerator {
+
+    private static volatile SecureRandom random = new SecureRandom();
+
+    public static String generate() {
+        return String.valueOf(random.nextInt(900_000) + 100_000);
+    }
+
+    public static void reseed() {
+        SecureRandom fresh = new SecureRandom();
+        fresh.nextBytes(new byte[16]);
+        random = fresh;
+    }
+}
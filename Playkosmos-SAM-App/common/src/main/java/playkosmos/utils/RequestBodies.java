@@ -0,0 +1,23 @@
+package playkosmos.utils;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// The text body of an API Gateway proxy request. The REST API lists */* as a binary media type so gzip and CBOR
+// responses are decoded on the way out (see StreamingResponse), which also makes API Gateway base64 encode every
+// request body on the way in, JSON included. Every RequestHandler reads its body through here.
+public final class RequestBodies {
+
+    private RequestBodies() {
+    }
+
+    public static String text(APIGatewayProxyRequestEvent requestEvent) {
+        String body = requestEvent.getBody();
+        if (body == null || !Boolean.TRUE.equals(requestEvent.getIsBase64Encoded())) {
+            return body;
+        }
+        return new String(Base64.getDecoder().decode(body), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,25 @@
+package playkosmos.utils;
+
+import com.amazonaws.services.lambda.runtime.LambdaRuntime;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+// Logging for code that has no handler Context at hand: pools, caches, Redis fallbacks and SnapStart hooks. Lines
+// go through the same runtime logger as context.getLogger(), so each message, stack trace included, is one log
+// event in the function's stream rather than a line per frame on stderr.
+public final class RuntimeLog {
+
+    private RuntimeLog() {
+    }
+
+    public static void log(String message) {
+        LambdaRuntime.getLogger().log(message + "\n");
+    }
+
+    public static void log(String message, Throwable error) {
+        StringWriter trace = new StringWriter();
+        error.printStackTrace(new PrintWriter(trace));
+        LambdaRuntime.getLogger().log(message + "\n" + trace);
+    }
+}
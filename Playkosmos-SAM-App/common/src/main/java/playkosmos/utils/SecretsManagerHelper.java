@@ -0,0 +1,139 @@
+package playkosmos.utils;
+
+import com.google.gson.Gson;
+import lombok.RequiredArgsConstructor;
+import playkosmos.json.GsonFactory;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@RequiredArgsConstructor
+public class SecretsManagerHelper {
+
+    private static final Gson GSON = GsonFactory.getInstance();
+
+    private static SecretsManagerHelper instance;
+    private final SecretsManagerClient secretsClient;
+    private final String secretName;
+
+    // A cached secret is served as-is until the TTL expires. After that the first caller refetches it on its own
+    // request while concurrent callers keep the stale value; a failed refetch keeps serving the stale value until
+    // it is older than the max-stale window, after which every caller has to wait for a fresh one. There is no
+    // background thread, since Lambda freezes the environment between invocations and it would never run.
+    private final long ttlMillis = EnvConfig.longEnv("SECRET_CACHE_TTL_MS", 300_000);
+    private final long maxStaleMillis = EnvConfig.longEnv("SECRET_CACHE_MAX_STALE_MS", 3_600_000);
+    private final AtomicBoolean refreshInFlight = new AtomicBoolean(false);
+    private volatile CachedSecret cachedSecret;
+
+    public SecretsManagerHelper(String region, String secretName) {
+        this.secretsClient = AwsClientFactory.getSecretsManagerClient(region);
+        this.secretName = secretName;
+    }
+
+    public String getSecret() {
+        return resolve().value;
+    }
+
+    public DatabaseCredentials getDatabaseCredentials() {
+        DatabaseCredentials credentials = resolve().credentials;
+        if (credentials == null) {
+            throw new RuntimeException("Secret does not contain database credentials: " + secretName);
+        }
+        return credentials;
+    }
+
+    public void invalidate() {
+        cachedSecret = null;
+    }
+
+    private CachedSecret resolve() {
+        CachedSecret current = cachedSecret;
+        long now = System.currentTimeMillis();
+
+        if (current != null) {
+            long age = now - current.fetchedAt;
+            if (age < ttlMillis) {
+                return current;
+            }
+            if (age < ttlMillis + maxStaleMillis) {
+                return refreshOrStale(current);
+            }
+        }
+        return refreshNow();
+    }
+
+    private synchronized CachedSecret refreshNow() {
+        CachedSecret current = cachedSecret;
+        if (current != null && System.currentTimeMillis() - current.fetchedAt < ttlMillis) {
+            return current;
+        }
+        CachedSecret fetched = fetch();
+        cachedSecret = fetched;
+        return fetched;
+    }
+
+    private CachedSecret refreshOrStale(CachedSecret stale) {
+        if (!refreshInFlight.compareAndSet(false, true)) {
+            return stale;
+        }
+        try {
+            CachedSecret fetched = fetch();
+            cachedSecret = fetched;
+            return fetched;
+        } catch (RuntimeException e) {
+            // Keep serving the stale value; the next call past the TTL retries
+            RuntimeLog.log("Secret refresh failed, serving the cached value: " + e.getMessage());
+            return stale;
+        } finally {
+            refreshInFlight.set(false);
+        }
+    }
+
+    private CachedSecret fetch() {
+        GetSecretValueRequest getSecretValueRequest = GetSecretValueRequest.builder()
+                .secretId(secretName)
+                .build();
+        GetSecretValueResponse getSecretValueResponse;
+
+        try {
+            getSecretValueResponse = secretsClient.getSecretValue(getSecretValueRequest);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to retrieve secret: " + secretName, e);
+        }
+
+        String value = getSecretValueResponse.secretString();
+        return new CachedSecret(value, parseCredentials(value), System.currentTimeMillis());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DatabaseCredentials parseCredentials(String value) {
+        Map<String, Object> secretMap = GSON.fromJson(value, Map.class);
+        if (secretMap == null || !secretMap.containsKey("username")) {
+            // Not a database secret; callers only use getSecret()
+            return null;
+        }
+        return DatabaseCredentials.fromSecretMap(secretMap);
+    }
+
+    public static synchronized SecretsManagerHelper getInstance(String region, String secretName) {
+        if (instance == null) {
+            instance = new SecretsManagerHelper(region, secretName);
+        }
+        return instance;
+    }
+
+    private static final class CachedSecret {
+        private final String value;
+        private final DatabaseCredentials credentials;
+        private final long fetchedAt;
+
+        private CachedSecret(String value, DatabaseCredentials credentials, long fetchedAt) {
+            this.value = value;
+            this.credentials = credentials;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
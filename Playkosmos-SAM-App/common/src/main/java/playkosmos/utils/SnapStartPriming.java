@@ -0,0 +1,161 @@
+package playkosmos.utils;
+
+import com.google.gson.Gson;
+import com.amazonaws.services.lambda.runtime.LambdaRuntime;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import playkosmos.dbutil.DatabaseConnectionManager;
+import playkosmos.dbutil.RedisConnectionManager;
+import playkosmos.entity.Comment;
+import playkosmos.entity.Like;
+import playkosmos.entity.Post;
+import playkosmos.entity.PostCounters;
+import playkosmos.entity.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// CRaC resource for Lambda SnapStart. Before the snapshot it runs each handler's expensive first-use paths
+// (Gson reflection, the MySQL driver and a real pooled connection, the Secrets Manager client, plus primers such
+// as JJWT and BCrypt that handlers add) so
+// their classes are loaded and initialised in the snapshot, then closes the sockets that cannot survive a restore.
+// After restore it re-seeds the OTP generator and reopens the database and Redis connections.
+// On a JVM without CRaC support the org.crac facade ignores the registration and nothing changes.
+public class SnapStartPriming implements Resource {
+
+    private static final SnapStartPriming INSTANCE = new SnapStartPriming();
+    private static final AtomicBoolean registered = new AtomicBoolean(false);
+
+    private final List<Gson> gsons = new CopyOnWriteArrayList<>();
+    private final Map<String, Runnable> primers = new LinkedHashMap<>();
+    private volatile SecretsManagerHelper secretsManagerHelper;
+
+    // Called from handler constructors; the resource registers itself with the global context only once
+    public static void register(Gson gson, SecretsManagerHelper secretsManagerHelper) {
+        // Handlers now share one Gson, so only keep distinct instances
+        if (gson != null && !INSTANCE.gsons.contains(gson)) {
+            INSTANCE.gsons.add(gson);
+        }
+        if (secretsManagerHelper != null) {
+            INSTANCE.secretsManagerHelper = secretsManagerHelper;
+        }
+        if (registered.compareAndSet(false, true)) {
+            Core.getGlobalContext().register(INSTANCE);
+        }
+    }
+
+    // Extra handler-specific warm-up, such as a BCrypt hash or a JWT round trip
+    public static synchronized void addPrimer(String name, Runnable primer) {
+        INSTANCE.primers.put(name, primer);
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        Map<String, Long> timings = prime();
+        LambdaRuntime.getLogger().log("SnapStart priming took " + timings);
+        quiesce();
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        OtpGenerator.reseed();
+        reconnect();
+    }
+
+    // Runs every priming step and returns how long each took in milliseconds. A failing step is logged and
+    // skipped so it can never fail the snapshot.
+    public static Map<String, Long> prime() {
+        Map<String, Long> timings = new LinkedHashMap<>();
+        time(timings, "gson", INSTANCE::primeGson);
+        time(timings, "jdbc", INSTANCE::primeDatabase);
+        Map<String, Runnable> extra;
+        synchronized (SnapStartPriming.class) {
+            extra = new LinkedHashMap<>(INSTANCE.primers);
+        }
+        extra.forEach((name, primer) -> time(timings, name, primer));
+        return timings;
+    }
+
+    private void primeGson() {
+        Post post = new Post();
+        post.setPostId(1L);
+        post.setUserId(1L);
+        post.setCaption("priming");
+        post.setMediaUrls(List.of("https://example.com/priming.jpg"));
+        post.setTaggedUserIds(LongList.of(2L));
+        Comment comment = new Comment(1L, 2L, "priming");
+        comment.setCreatedAt(LocalDateTime.now());
+        post.setComments(List.of(comment));
+        Like like = new Like();
+        like.setLikedAt(LocalDateTime.now());
+        post.setLikes(List.of(like));
+        post.setCounters(new PostCounters());
+        User user = new User("priming", "priming@example.com", null, null, LocalDate.now(), null);
+
+        for (Gson gson : gsons) {
+            gson.fromJson("{\"status\":\"success\"}", Map.class);
+            try {
+                gson.fromJson(gson.toJson(post), Post.class);
+                gson.fromJson(gson.toJson(user), User.class);
+            } catch (RuntimeException e) {
+                // Handlers without the java.time adapters never serialise entities
+            }
+        }
+    }
+
+    // Fetches the secret through the SDK client and opens (and runs migrations on) a real pooled connection
+    private void primeDatabase() {
+        SecretsManagerHelper helper = secretsManagerHelper;
+        if (helper == null) {
+            return;
+        }
+        DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(helper.getDatabaseCredentials());
+        try {
+            dcm.getConnectionPool().fillToMinimum();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void quiesce() {
+        DatabaseConnectionManager dcm = DatabaseConnectionManager.getCurrentInstance();
+        if (dcm != null) {
+            dcm.getConnectionPool().evictIdle();
+        }
+    }
+
+    private void reconnect() {
+        DatabaseConnectionManager dcm = DatabaseConnectionManager.getCurrentInstance();
+        if (dcm != null) {
+            try {
+                dcm.getConnectionPool().fillToMinimum();
+            } catch (Exception e) {
+                RuntimeLog.log("Failed to reopen database connections after restore: " + e.getMessage());
+            }
+        }
+        // The first command on the restored Lettuce connection notices the dead socket and reconnects
+        if (RedisConnectionManager.isConfigured()) {
+            try {
+                RedisConnectionManager.getInstance().sync().ping();
+            } catch (RuntimeException e) {
+                RuntimeLog.log("Redis ping after restore failed, reconnecting in the background: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void time(Map<String, Long> timings, String name, Runnable step) {
+        long start = System.nanoTime();
+        try {
+            step.run();
+        } catch (RuntimeException | LinkageError e) {
+            RuntimeLog.log("SnapStart priming step " + name + " failed: " + e.getMessage());
+        }
+        timings.put(name, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,263 @@
+package playkosmos.bench;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayCustomAuthorizerEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Startup cost of each function from its own shaded jar, with and without SnapStart priming. Every
+// function/mode pair runs in a fresh child JVM whose classpath is just that function's jar, so class loading
+// starts from zero exactly as it does in Lambda:
+//
+//   mvn -q package
+//   java -cp common/target/test-classes playkosmos.bench.ColdStartBenchmark
+//
+// "jar" is the deployment artifact size, "init" the JVM uptime when the handler constructor returns, "classes"
+// the classes loaded by then, "prime" the snapshot-time work (not billed on a restore) and "first use" the first
+// handleRequest call with a representative request, which is what a restored function's first caller waits for.
+// Pass jar=handler pairs to benchmark other functions, and set DB_SECRET and REGION_NAME to a reachable secret to
+// include the JDBC and Secrets Manager steps; without one the first request fails at the same point either way.
+public class ColdStartBenchmark {
+
+    private static final Map<String, String> FUNCTIONS = new LinkedHashMap<>();
+
+    static {
+        FUNCTIONS.put("auth/target/playkosmos-auth-1.0-lambda.jar", "playkosmos.authorizer.AuthenticationHandler");
+        FUNCTIONS.put("users/target/playkosmos-users-1.0-lambda.jar", "playkosmos.handler.UserLoginHandler");
+        FUNCTIONS.put("otp/target/playkosmos-otp-1.0-lambda.jar", "playkosmos.handler.RequestOtpHandler");
+        FUNCTIONS.put("posts/target/playkosmos-posts-1.0-lambda.jar", "playkosmos.handler.PostRetrievalHandler");
+    }
+
+    // Request bodies for the handlers that read one; everything else gets an empty GET
+    private static final Map<String, String> BODIES = Map.of(
+            "playkosmos.handler.UserLoginHandler", "{\"email\":\"benchmark@example.com\",\"password\":\"benchmark\"}",
+            "playkosmos.handler.RequestOtpHandler", "{\"emailOrPhone\":\"benchmark@example.com\"}"
+    );
+
+    // Streaming handlers read the raw proxy event
+    private static final String STREAM_REQUEST =
+            "{\"httpMethod\":\"GET\",\"path\":\"/posts/1\",\"pathParameters\":{\"postId\":\"1\"},\"headers\":{}}";
+
+    // Whichever of these is on a function's classpath provides its static prime()
+    private static final List<String> PRIMING_CLASSES = List.of(
+            "playkosmos.utils.SnapStartPriming",
+            "playkosmos.authorizer.AuthorizerPriming"
+    );
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 3 && "--child".equals(args[0])) {
+            runChild(args[1], Boolean.parseBoolean(args[2]));
+            return;
+        }
+
+        Map<String, String> functions = new LinkedHashMap<>();
+        for (String arg : args) {
+            String[] parts = arg.split("=", 2);
+            functions.put(parts[0], parts[1]);
+        }
+        if (functions.isEmpty()) {
+            functions.putAll(FUNCTIONS);
+        }
+
+        System.out.printf("%-45s %-7s %8s %8s %8s %8s %10s%n", "handler", "mode", "jar", "init", "classes", "prime", "first use");
+        for (Map.Entry<String, String> function : functions.entrySet()) {
+            File jar = new File(function.getKey());
+            if (!jar.isFile()) {
+                System.out.printf("%-45s missing %s, run mvn package first%n", function.getValue(), jar);
+                continue;
+            }
+            for (boolean primed : new boolean[]{false, true}) {
+                System.out.println(fork(jar, function.getValue(), primed));
+            }
+        }
+    }
+
+    private static String fork(File jar, String handler, boolean primed) throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String benchmarkClasses = new File(ColdStartBenchmark.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        ProcessBuilder builder = new ProcessBuilder(java, "-cp", jar.getPath() + File.pathSeparator + benchmarkClasses,
+                ColdStartBenchmark.class.getName(), "--child", handler, String.valueOf(primed));
+        Map<String, String> env = builder.environment();
+        env.putIfAbsent("REGION_NAME", "us-east-1");
+        env.putIfAbsent("AWS_REGION", "us-east-1");
+        env.putIfAbsent("DB_SECRET", "benchmark");
+        env.putIfAbsent("JWT_SECRET_KEY", "benchmark-signing-key-benchmark-signing-key");
+        builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+
+        Process process = builder.start();
+        String result = "";
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("RESULT ")) {
+                    result = line.substring("RESULT ".length());
+                }
+            }
+        }
+        process.waitFor();
+        String mode = primed ? "primed" : "cold";
+        return result.isEmpty()
+                ? String.format("%-45s %-7s failed", handler, mode)
+                : String.format("%-45s %-7s %6.1fMB %s", handler, mode, jar.length() / (1024.0 * 1024.0), result);
+    }
+
+    private static void runChild(String handler, boolean primed) throws Exception {
+        Object instance = Class.forName(handler).getDeclaredConstructor().newInstance();
+        long init = ManagementFactory.getRuntimeMXBean().getUptime();
+        long classes = ManagementFactory.getClassLoadingMXBean().getLoadedClassCount();
+
+        long prime = 0;
+        if (primed) {
+            List<Method> primers = new ArrayList<>();
+            for (String name : PRIMING_CLASSES) {
+                try {
+                    primers.add(Class.forName(name).getMethod("prime"));
+                } catch (ClassNotFoundException e) {
+                    // Not part of this function
+                }
+            }
+            long start = System.nanoTime();
+            for (Method primer : primers) {
+                primer.invoke(null);
+            }
+            prime = (System.nanoTime() - start) / 1_000_000;
+        }
+
+        long start = System.nanoTime();
+        try {
+            invoke(instance, handler);
+        } catch (RuntimeException e) {
+            // A request that fails (no database, say) still took the path a first caller would
+            System.err.println("First request failed: " + e);
+        }
+        long firstUse = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("RESULT %6dms %8d %6dms %8dms%n", init, classes, prime, firstUse);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void invoke(Object instance, String handler) throws Exception {
+        Context context = new BenchmarkContext(handler);
+        if (instance instanceof RequestStreamHandler) {
+            ((RequestStreamHandler) instance).handleRequest(
+                    new ByteArrayInputStream(STREAM_REQUEST.getBytes(StandardCharsets.UTF_8)), new ByteArrayOutputStream(), context);
+            return;
+        }
+        ((RequestHandler<Object, Object>) instance).handleRequest(request(instance, handler), context);
+    }
+
+    private static Object request(Object instance, String handler) throws Exception {
+        for (Method method : instance.getClass().getMethods()) {
+            if (method.getName().equals("handleRequest") && !method.isBridge()
+                    && method.getParameterTypes()[0] == APIGatewayCustomAuthorizerEvent.class) {
+                // The authorizer ships JwtUtils, so the token is signed with the same key it verifies with
+                String token = (String) Class.forName("playkosmos.utils.JwtUtils")
+                        .getMethod("generateToken", String.class)
+                        .invoke(null, "benchmark");
+                APIGatewayCustomAuthorizerEvent event = new APIGatewayCustomAuthorizerEvent();
+                event.setType("TOKEN");
+                event.setAuthorizationToken("Bearer " + token);
+                event.setMethodArn("arn:aws:execute-api:us-east-1:123456789012:benchmark/prod/GET/posts/1");
+                return event;
+            }
+        }
+        String body = BODIES.get(handler);
+        return new APIGatewayProxyRequestEvent()
+                .withHttpMethod(body == null ? "GET" : "POST")
+                .withHeaders(Map.of())
+                .withPathParameters(Map.of())
+                .withQueryStringParameters(Map.of())
+                .withBody(body);
+    }
+
+    private static class BenchmarkContext implements Context {
+
+        private final String functionName;
+
+        BenchmarkContext(String functionName) {
+            this.functionName = functionName;
+        }
+
+        @Override
+        public String getAwsRequestId() {
+            return "benchmark";
+        }
+
+        @Override
+        public String getLogGroupName() {
+            return null;
+        }
+
+        @Override
+        public String getLogStreamName() {
+            return null;
+        }
+
+        @Override
+        public String getFunctionName() {
+            return functionName;
+        }
+
+        @Override
+        public String getFunctionVersion() {
+            return "$LATEST";
+        }
+
+        @Override
+        public String getInvokedFunctionArn() {
+            return null;
+        }
+
+        @Override
+        public CognitoIdentity getIdentity() {
+            return null;
+        }
+
+        @Override
+        public ClientContext getClientContext() {
+            return null;
+        }
+
+        @Override
+        public int getRemainingTimeInMillis() {
+            return 30_000;
+        }
+
+        @Override
+        public int getMemoryLimitInMB() {
+            return 1024;
+        }
+
+        @Override
+        public LambdaLogger getLogger() {
+            return new LambdaLogger() {
+                @Override
+                public void log(String message) {
+                    System.err.println(message);
+                }
+
+                @Override
+                public void log(byte[] message) {
+                    System.err.println(new String(message, StandardCharsets.UTF_8));
+                }
+            };
+        }
+    }
+}
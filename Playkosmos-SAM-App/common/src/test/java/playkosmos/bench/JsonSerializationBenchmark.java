@@ -0,0 +1,111 @@
+package playkosmos.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import playkosmos.entity.Answer;
+import playkosmos.entity.Comment;
+import playkosmos.entity.Like;
+import playkosmos.entity.Post;
+import playkosmos.entity.PostCounters;
+import playkosmos.entity.Question;
+import playkosmos.entity.Review;
+import playkosmos.json.GsonFactory;
+import playkosmos.utils.LocalDateTimeTypeAdapter;
+import playkosmos.utils.LocalDateTypeAdapter;
+import playkosmos.utils.LongList;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Serializing and parsing a large Post with the reflective Gson the handlers used to build versus the shared Gson
+// with the streaming entity adapters:
+//
+//   java -cp common/target/test-classes:common/target/classes:<gson jar> playkosmos.bench.JsonSerializationBenchmark [rows]
+//
+// "rows" is the size of each collection on the post (default 500). Allocation is read from the HotSpot per-thread
+// counter, so it only covers the benchmark thread.
+public class JsonSerializationBenchmark {
+
+    private static final int WARMUP_ROUNDS = 2_000;
+    private static final int MEASURED_ROUNDS = 5_000;
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        Post post = largePost(rows);
+
+        Gson reflective = reflectiveGson();
+        Gson streaming = GsonFactory.getInstance();
+
+        String json = streaming.toJson(post);
+        if (!json.equals(reflective.toJson(post))) {
+            throw new IllegalStateException("Streaming adapters and reflection disagree on the JSON for this post");
+        }
+        System.out.printf("post with %d rows per collection, %d KB of JSON%n", rows, json.length() / 1024);
+        System.out.printf("%-12s %-11s %12s %14s%n", "gson", "operation", "ops/s", "bytes/op");
+
+        run("reflective", "toJson", () -> reflective.toJson(post));
+        run("streaming", "toJson", () -> streaming.toJson(post));
+        run("reflective", "fromJson", () -> reflective.fromJson(json, Post.class));
+        run("streaming", "fromJson", () -> streaming.fromJson(json, Post.class));
+
+        // What each handler instance paid before sharing one Gson: resolving adapters for the whole entity graph
+        Post small = largePost(1);
+        run("reflective", "new+toJson", () -> reflectiveGson().toJson(small));
+        run("streaming", "new+toJson", () -> GsonFactory.create().toJson(small));
+    }
+
+    private static Gson reflectiveGson() {
+        return new GsonBuilder()
+                .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+                .create();
+    }
+
+    static void run(String gson, String operation, Runnable task) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            task.run();
+        }
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            task.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        System.out.printf("%-12s %-11s %12.0f %14d%n", gson, operation,
+                MEASURED_ROUNDS / (elapsed / 1_000_000_000.0), allocated / MEASURED_ROUNDS);
+    }
+
+    static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads) {
+            return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    static Post largePost(int rows) {
+        LocalDateTime at = LocalDateTime.of(2024, 5, 1, 10, 15, 30);
+        List<Comment> comments = new ArrayList<>();
+        List<Like> likes = new ArrayList<>();
+        List<Review> reviews = new ArrayList<>();
+        List<Question> questions = new ArrayList<>();
+        List<Answer> answers = new ArrayList<>();
+        LongList participants = new LongList();
+        for (long i = 1; i <= rows; i++) {
+            comments.add(new Comment(i, 1L, i % 97, "Comment number " + i + " on this game", at.plusSeconds(i)));
+            likes.add(new Like(i, 1L, i % 89, i % 2 == 0 ? "A" : "C", at.plusSeconds(i)));
+            reviews.add(new Review(i, 1L, i % 83, "Review " + i, (int) (i % 5) + 1, at.plusSeconds(i)));
+            Answer answer = new Answer(i, i, i % 79, "Answer " + i, at.plusSeconds(i));
+            answers.add(answer);
+            questions.add(new Question(i, 1L, i % 73, "Question " + i + "?", at.plusSeconds(i), List.of(answer)));
+            participants.addLong(i);
+        }
+        return new Post(1L, 2L, "Saturday five-a-side", List.of("https://cdn.example.com/a.jpg"), List.of("image"),
+                participants, participants, comments, questions, answers, likes, reviews, participants, rows,
+                new PostCounters(rows, rows, rows, rows, rows, rows, rows), Map.of("comments", "NTAw"));
+    }
+}
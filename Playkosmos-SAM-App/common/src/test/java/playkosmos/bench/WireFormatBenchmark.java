@@ -0,0 +1,54 @@
+package playkosmos.bench;
+
+import com.google.gson.Gson;
+import playkosmos.cbor.EntityCbor;
+import playkosmos.entity.Post;
+import playkosmos.json.GsonFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+// Size and speed of a large Post as JSON through the shared Gson versus the CBOR wire format:
+//
+//   java -cp common/target/test-classes:common/target/classes:<gson jar>:<jackson-core jar>:<jackson-dataformat-cbor jar> \
+//       playkosmos.bench.WireFormatBenchmark [rows]
+public class WireFormatBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        Post post = JsonSerializationBenchmark.largePost(rows);
+        Gson gson = GsonFactory.getInstance();
+
+        byte[] json = gson.toJson(post).getBytes(StandardCharsets.UTF_8);
+        byte[] cbor = EntityCbor.toBytes(post);
+        if (!gson.toJson(EntityCbor.readPost(cbor)).equals(gson.toJson(post))) {
+            throw new IllegalStateException("CBOR does not round trip this post");
+        }
+        System.out.printf("post with %d rows per collection: %d bytes of JSON, %d bytes of CBOR (%.0f%%)%n",
+                rows, json.length, cbor.length, 100.0 * cbor.length / json.length);
+        System.out.printf("%-12s %-11s %12s %14s%n", "format", "operation", "ops/s", "bytes/op");
+
+        JsonSerializationBenchmark.run("json", "encode", () -> gson.toJson(post).getBytes(StandardCharsets.UTF_8));
+        JsonSerializationBenchmark.run("cbor", "encode", () -> encode(post));
+        JsonSerializationBenchmark.run("json", "decode",
+                () -> gson.fromJson(new String(json, StandardCharsets.UTF_8), Post.class));
+        JsonSerializationBenchmark.run("cbor", "decode", () -> decode(cbor));
+    }
+
+    private static byte[] encode(Post post) {
+        try {
+            return EntityCbor.toBytes(post);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Post decode(byte[] cbor) {
+        try {
+            return EntityCbor.readPost(cbor);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
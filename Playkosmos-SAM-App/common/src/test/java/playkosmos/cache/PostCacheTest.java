@@ -0,0 +1,261 @@
+package playkosmos.cache;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+import playkosmos.dbutil.FakeRedis;
+import playkosmos.entity.Comment;
+import playkosmos.entity.Post;
+import playkosmos.json.GsonFactory;
+import playkosmos.utils.LongList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PostCacheTest {
+
+    private final Gson gson = GsonFactory.getInstance();
+    private final FakeRedis redis = new FakeRedis();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    public PostCacheTest() {
+        redis.script(PostCache.WRITE_BACK_SCRIPT, (keys, args) -> {
+            if (!redis.strings().getOrDefault(keys[2], "0").equals(args[0])) {
+                return 0L;
+            }
+            redis.strings().put(keys[0], args[2]);
+            redis.strings().put(keys[1], args[3]);
+            return 1L;
+        });
+    }
+
+    @Test
+    public void collapsesConcurrentMissesIntoOneLoad() throws Exception {
+        PostCache cache = cache(false);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<Post> first = callers.submit(() -> cache.get(1, postId -> {
+                loading.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return load(postId);
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<Post> second = callers.submit(() -> cache.get(1, this::load));
+            Thread.sleep(50);
+            release.countDown();
+
+            Post loaded = first.get(5, TimeUnit.SECONDS);
+            Post waited = second.get(5, TimeUnit.SECONDS);
+            assertNotSame(loaded, waited);
+            assertEquals(gson.toJson(loaded), gson.toJson(waited));
+            assertEquals(1, loads.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void pollsRedisWhileAnotherContainerHoldsTheLoadLock() throws Exception {
+        PostCache cache = cache(true);
+        redis.strings().put("post:1:lock", "1");
+        Thread otherContainer = new Thread(() -> {
+            try {
+                Thread.sleep(60);
+            } catch (InterruptedException e) {
+                return;
+            }
+            redis.strings().put("post:1", gson.toJson(post(1, "from the lock holder")));
+        });
+        otherContainer.start();
+
+        Post post = cache.get(1, postId -> {
+            fail("the lock holder loads the post");
+            return null;
+        });
+        otherContainer.join();
+
+        assertEquals("from the lock holder", post.getCaption());
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void releasesTheLoadLockAndCachesTheResult() throws Exception {
+        PostCache cache = cache(true);
+        cache.get(1, this::load);
+
+        assertFalse(redis.strings().containsKey("post:1:lock"));
+        assertNotNull(redis.strings().get("post:1"));
+        assertEquals(cache.getETag(1), redis.strings().get("post:1:etag"));
+        cache(true).get(1, this::load);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void batchReadsTakeL1ThenOneMgetThenOneLoad() throws Exception {
+        PostCache cache = cache(true);
+        cache.get(1, this::load);
+        redis.strings().put("post:2", gson.toJson(post(2, "in redis")));
+        List<List<Long>> batches = new ArrayList<>();
+
+        List<Post> posts = cache.getAll(List.of(3L, 1L, 2L, 4L, 3L), postIds -> {
+            batches.add(postIds);
+            // Post 4 does not exist
+            return List.of(post(3, "loaded"));
+        });
+
+        assertEquals(List.of(List.of(3L, 4L)), batches);
+        assertEquals(3, posts.size());
+        assertEquals(Long.valueOf(3), posts.get(0).getPostId());
+        assertEquals(Long.valueOf(1), posts.get(1).getPostId());
+        assertEquals("in redis", posts.get(2).getCaption());
+        assertNotNull(redis.strings().get("post:3"));
+    }
+
+    @Test
+    public void invalidateDropsBothTiers() throws Exception {
+        PostCache cache = cache(true);
+        cache.get(1, this::load);
+
+        cache.invalidate(1);
+
+        assertNull(redis.strings().get("post:1"));
+        assertNull(redis.strings().get("post:1:etag"));
+        assertNull(cache.getETag(1));
+        cache.get(1, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void aLoadThatRacesAnInvalidationIsNotWrittenBack() throws Exception {
+        PostCache cache = cache(true);
+
+        // The post changes, and is invalidated, while the old version is being read from MySQL
+        Post stale = cache.get(1, postId -> {
+            Post post = load(postId);
+            cache.invalidate(postId);
+            return post;
+        });
+
+        assertNotNull(stale);
+        assertNull(redis.strings().get("post:1"));
+        cache.get(1, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void anInvalidationInAnotherContainerRejectsTheWriteBack() throws Exception {
+        PostCache cache = cache(true);
+        PostCache otherContainer = cache(true);
+
+        cache.get(1, postId -> {
+            Post post = load(postId);
+            otherContainer.invalidate(postId);
+            return post;
+        });
+
+        assertNull(redis.strings().get("post:1"));
+        cache.get(1, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void aLoadThatRacesAnInvalidationIsNotKeptWithoutRedis() throws Exception {
+        PostCache cache = cache(false);
+
+        cache.get(1, postId -> {
+            Post post = load(postId);
+            cache.invalidate(postId);
+            return post;
+        });
+        cache.get(1, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void batchLoadsOnlySkipThePostsInvalidatedMeanwhile() throws Exception {
+        PostCache cache = cache(true);
+
+        cache.getAll(List.of(1L, 2L), postIds -> {
+            cache.invalidate(2);
+            return List.of(post(1, "one"), post(2, "two"));
+        });
+
+        assertNotNull(redis.strings().get("post:1"));
+        assertNull(redis.strings().get("post:2"));
+    }
+
+    @Test
+    public void listETagsMatchBeforeAndAfterLoading() throws Exception {
+        PostCache cache = cache(true);
+        List<Post> posts = cache.getAll(List.of(1L, 2L), postIds -> List.of(post(1, "one"), post(2, "two")));
+
+        String etag = cache.getListETag(posts, "2");
+        assertEquals(etag, cache.getCachedListETag(List.of(1L, 2L), "2"));
+        assertFalse(etag.equals(cache.getListETag(posts, "null")));
+        assertNull(cache.getCachedListETag(List.of(1L, 3L), "2"));
+    }
+
+    @Test
+    public void handsOutCopiesSoCallersCannotChangeTheCachedPost() throws Exception {
+        PostCache cache = cache(false);
+        Post loaded = cache.get(1, postId -> {
+            Post post = load(postId);
+            post.setTaggedUserIds(LongList.of(2L, 3L));
+            post.setComments(new ArrayList<>(List.of(new Comment(4L, postId, 2L, "first", null))));
+            return post;
+        });
+        loaded.setCaption("changed by the loader's caller");
+
+        Post first = cache.get(1, this::load);
+        first.getTaggedUserIds().addLong(9L);
+        first.getComments().get(0).setCommentText("changed");
+        first.getComments().clear();
+        Post second = cache.get(1, this::load);
+
+        assertNotSame(first, second);
+        assertEquals("post 1", second.getCaption());
+        assertEquals(LongList.of(2L, 3L), second.getTaggedUserIds());
+        assertEquals("first", second.getComments().get(0).getCommentText());
+        assertEquals(gson.toJson(second), gson.toJson(cache.getAll(List.of(1L), postIds -> List.of()).get(0)));
+        assertEquals(1, loads.get());
+    }
+
+    private PostCache cache(boolean withRedis) {
+        return new PostCache(withRedis ? redis.sync() : null, gson, 300,
+                new LocalCache<>("post.l1", 16, Long.MAX_VALUE, 60_000, cbor -> cbor.length),
+                new LocalCache<>("post.etag.l1", 16, Long.MAX_VALUE, 60_000, String::length));
+    }
+
+    private Post load(long postId) {
+        loads.incrementAndGet();
+        return post(postId, "post " + postId);
+    }
+
+    private static Post post(long postId, String caption) {
+        Post post = new Post();
+        post.setPostId(postId);
+        post.setUserId(7L);
+        post.setCaption(caption);
+        return post;
+    }
+}
@@ -0,0 +1,46 @@
+package playkosmos.cache;
+
+import org.junit.Test;
+import playkosmos.entity.User;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+public class UserCacheTest {
+
+    private final UserCache cache = new UserCache(
+            new LocalCache<>("user.l1", 16, Long.MAX_VALUE, 60_000, EntityWeigher::weigh));
+
+    @Test
+    public void neverHoldsThePasswordHash() {
+        cache.putByEmail("ada@example.com", user());
+        User cached = cache.getByEmail("ada@example.com");
+        assertEquals("ada", cached.getUsername());
+        assertEquals(Long.valueOf(5), cached.getId());
+        assertNull(cached.getPassword());
+    }
+
+    @Test
+    public void handsOutCopiesSoCallersCannotChangeTheCachedUser() {
+        User user = user();
+        cache.putByUsername("ada", user);
+        user.setEmail("changed@example.com");
+
+        User first = cache.getByUsername("ada");
+        first.setPhoneNumber("0000");
+        User second = cache.getByUsername("ada");
+
+        assertNotSame(first, second);
+        assertEquals("ada@example.com", second.getEmail());
+        assertEquals("8012345678", second.getPhoneNumber());
+    }
+
+    private static User user() {
+        User user = new User("ada", "ada@example.com", "8012345678", "NG", LocalDate.of(1990, 12, 10), "$2a$10$hash");
+        user.setId(5L);
+        return user;
+    }
+}
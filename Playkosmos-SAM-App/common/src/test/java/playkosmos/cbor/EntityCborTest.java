@@ -0,0 +1,150 @@
+package playkosmos.cbor;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+import playkosmos.dao.Page;
+import playkosmos.entity.Answer;
+import playkosmos.entity.Comment;
+import playkosmos.entity.Like;
+import playkosmos.entity.Post;
+import playkosmos.entity.PostCounters;
+import playkosmos.entity.Question;
+import playkosmos.entity.Review;
+import playkosmos.json.GsonFactory;
+import playkosmos.streaming.ResponseCompression;
+import playkosmos.streaming.StreamingResponse;
+import playkosmos.streaming.WireFormat;
+import playkosmos.utils.LongList;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EntityCborTest {
+
+    private final Gson gson = GsonFactory.getInstance();
+
+    @Test
+    public void postRoundTripsThroughCbor() throws IOException {
+        Post post = samplePost();
+        Post decoded = EntityCbor.readPost(EntityCbor.toBytes(post));
+        assertEquals(gson.toJson(post), gson.toJson(decoded));
+    }
+
+    @Test
+    public void nullsAndSparsePostsRoundTrip() throws IOException {
+        Post post = new Post();
+        post.setPostId(7L);
+        List<Comment> comments = new ArrayList<>();
+        comments.add(null);
+        comments.add(new Comment(1L, 7L, null, null, null));
+        post.setComments(comments);
+        Post decoded = EntityCbor.readPost(EntityCbor.toBytes(post));
+        assertEquals(gson.toJson(post), gson.toJson(decoded));
+        assertNull(decoded.getCounters());
+    }
+
+    @Test
+    public void isSmallerThanJson() throws IOException {
+        Post post = samplePost();
+        int cbor = EntityCbor.toBytes(post).length;
+        int json = gson.toJson(post).getBytes(StandardCharsets.UTF_8).length;
+        assertTrue("cbor " + cbor + " bytes, json " + json + " bytes", cbor * 2 < json);
+    }
+
+    @Test
+    public void readersToleratePositionsAddedLaterAndMissingTrailingOnes() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (CBORGenerator generator = new CBORFactory().createGenerator(output)) {
+            generator.writeStartArray();
+            generator.writeNumber(1L);
+            generator.writeNumber(2L);
+            generator.writeString("caption");
+            for (int i = 3; i < 16; i++) {
+                generator.writeNull();
+            }
+            // A field from a newer writer, followed by one with nested content
+            generator.writeString("unknown");
+            generator.writeStartArray();
+            generator.writeNumber(3L);
+            generator.writeEndArray();
+            generator.writeEndArray();
+        }
+        Post newer = EntityCbor.readPost(output.toByteArray());
+        assertEquals(Long.valueOf(1), newer.getPostId());
+        assertEquals("caption", newer.getCaption());
+
+        output.reset();
+        try (CBORGenerator generator = new CBORFactory().createGenerator(output)) {
+            generator.writeStartArray();
+            generator.writeNumber(5L);
+            generator.writeEndArray();
+        }
+        Post older = EntityCbor.readPost(output.toByteArray());
+        assertEquals(Long.valueOf(5), older.getPostId());
+        assertNull(older.getComments());
+    }
+
+    @Test
+    public void pagesAndMapsAreSupported() throws IOException {
+        assertTrue(EntityCbor.supports(new Page<>(List.of(new Like(1L, 2L, 3L, "A", null)), "abc")));
+        assertTrue(EntityCbor.supports(Map.of("status", "error")));
+        assertTrue(EntityCbor.toBytes(Map.of("posts", List.of(samplePost()))).length > 0);
+    }
+
+    @Test
+    public void bodiesWithUnencodableValuesFallBackToJson() throws IOException {
+        Map<String, Object> body = Map.of("status", "success", "users", List.of(Map.of("born", LocalDate.of(2000, 1, 2))));
+        assertFalse(EntityCbor.supports(body));
+        assertFalse(EntityCbor.supports(new Page<>(List.of(new Object()), null)));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        StreamingResponse.ok(body).writeTo(output, gson, false, ResponseCompression.NONE, WireFormat.CBOR);
+
+        JsonObject response = JsonParser.parseString(output.toString(StandardCharsets.UTF_8)).getAsJsonObject();
+        assertEquals("application/json", response.getAsJsonObject("headers").get("Content-Type").getAsString());
+        assertFalse(response.get("isBase64Encoded").getAsBoolean());
+        assertEquals(gson.toJson(body), response.get("body").getAsString());
+    }
+
+    @Test
+    public void negotiatesCborOnlyWhenPreferred() {
+        assertEquals(WireFormat.CBOR, WireFormat.negotiate("application/cbor"));
+        assertEquals(WireFormat.CBOR, WireFormat.negotiate("application/json;q=0.5, application/cbor"));
+        assertEquals(WireFormat.JSON, WireFormat.negotiate("application/json, application/cbor;q=0.5"));
+        assertEquals(WireFormat.JSON, WireFormat.negotiate("*/*"));
+        assertEquals(WireFormat.JSON, WireFormat.negotiate(null));
+        assertEquals(WireFormat.CBOR, WireFormat.fromContentType("application/cbor; charset=binary"));
+        assertEquals(WireFormat.JSON, WireFormat.fromContentType("application/json"));
+    }
+
+    private static Post samplePost() {
+        LocalDateTime at = LocalDateTime.of(2024, 5, 1, 10, 15, 30);
+        List<Answer> answers = List.of(new Answer(11L, 10L, 4L, "Bring water", at));
+        List<Question> questions = List.of(new Question(10L, 1L, 3L, "What should I bring?", at, answers));
+        List<Comment> comments = new ArrayList<>();
+        List<Like> likes = new ArrayList<>();
+        for (long i = 1; i <= 20; i++) {
+            comments.add(new Comment(i, 1L, i + 100, "Count me in " + i, at.plusMinutes(i)));
+            likes.add(new Like(i, 1L, i + 200, "A", at.plusMinutes(i)));
+        }
+        return new Post(1L, 2L, "Five-a-side at the park", List.of("https://cdn.example.com/a.jpg"), List.of("image"),
+                LongList.of(3L, 4L), LongList.of(5L), comments, questions, answers, likes,
+                List.of(new Review(40L, 1L, 5L, "Great game", 5, at)), LongList.of(3L, 4L, 5L), 2,
+                new PostCounters(20, 20, 2, 1, 1, 1, 3), Map.of("comments", "MjA"));
+    }
+}
@@ -0,0 +1,157 @@
+package playkosmos.dao;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Assume;
+import org.junit.Test;
+import playkosmos.utils.LongList;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PostDAOTest {
+
+    private static final int IDS = 10_000;
+
+    @Test
+    public void readsJsonArrayAggColumns() throws SQLException {
+        assertEquals(LongList.of(1_000_001L, 2L, 9_007_199_254_740_993L), PostDAO.readLongArray("[1000001, 2, 9007199254740993]"));
+        assertEquals(0, PostDAO.readLongArray(null).size());
+        assertEquals(0, PostDAO.readLongArray("[]").size());
+        assertEquals(List.of("https://example.com/a.jpg", "b"), PostDAO.readStringArray("[\"https://example.com/a.jpg\", \"b\"]"));
+        assertEquals(0, PostDAO.readStringArray(null).size());
+
+        try {
+            PostDAO.readLongArray("[1, \"two\"]");
+            fail("non-numeric IDs are rejected");
+        } catch (SQLException expected) {
+            assertTrue(expected.getMessage().startsWith("Malformed ID array"));
+        }
+    }
+
+    @Test
+    public void streamsIdsWithoutAnElementPerId() throws SQLException {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        StringBuilder json = new StringBuilder("[");
+        for (long id = 1_000_000; id < 1_000_000 + IDS; id++) {
+            json.append(id == 1_000_000 ? "" : ",").append(id);
+        }
+        String column = json.append(']').toString();
+        // Warm both paths so class loading and JIT allocations are not counted
+        PostDAO.readLongArray(column);
+        parseTree(column);
+
+        long before = allocatedBytes();
+        LongList streamed = PostDAO.readLongArray(column);
+        long streamedBytes = allocatedBytes() - before;
+
+        before = allocatedBytes();
+        LongList tree = parseTree(column);
+        long treeBytes = allocatedBytes() - before;
+
+        assertEquals(tree, streamed);
+        assertTrue("streamed " + streamedBytes + " bytes, JsonArray " + treeBytes + " bytes", streamedBytes * 2 < treeBytes);
+    }
+
+    @Test
+    public void aggregateAndBatchRowsMapToTheSameChildren() throws SQLException {
+        // The aggregate query's JSON_OBJECT rows and the batch/page JDBC rows must build identical objects, since
+        // either path can fill the PostCache entry that the ETag is computed from
+        String[] review = {"review_id", "11", "post_id", "42", "user_id", "7", "review_text", "Great", "rating", null,
+                "created_at", "2024-03-01T10:15:30"};
+        assertEquals(PostDAO.mapReview(PostDAO.Row.of(jsonRow(review))).toString(),
+                PostDAO.mapReview(PostDAO.Row.of(resultSetRow(review))).toString());
+        assertEquals(Long.valueOf(42), PostDAO.mapReview(PostDAO.Row.of(jsonRow(review))).getPostId());
+        assertNull(PostDAO.mapReview(PostDAO.Row.of(resultSetRow(review))).getRating());
+
+        String[] comment = {"comment_id", "12", "post_id", "42", "user_id", "7", "comment_text", "Nice",
+                "created_at", "2024-03-01T10:15:30"};
+        assertEquals(PostDAO.mapComment(PostDAO.Row.of(jsonRow(comment))).toString(),
+                PostDAO.mapComment(PostDAO.Row.of(resultSetRow(comment))).toString());
+
+        String[] question = {"question_id", "13", "post_id", "42", "user_id", "7", "question", "When?",
+                "created_at", "2024-03-01T10:15:30"};
+        assertEquals(PostDAO.mapQuestion(PostDAO.Row.of(jsonRow(question))).toString(),
+                PostDAO.mapQuestion(PostDAO.Row.of(resultSetRow(question))).toString());
+
+        String[] answer = {"answer_id", "14", "question_id", "13", "user_id", "8", "answer", "Soon",
+                "created_at", "2024-03-01T10:15:30"};
+        assertEquals(PostDAO.mapAnswer(PostDAO.Row.of(jsonRow(answer))).toString(),
+                PostDAO.mapAnswer(PostDAO.Row.of(resultSetRow(answer))).toString());
+
+        String[] like = {"like_id", "15", "post_id", "42", "user_id", "9", "like_type", "A",
+                "liked_at", "2024-03-01T10:15:30"};
+        assertEquals(PostDAO.mapLike(PostDAO.Row.of(jsonRow(like))).toString(),
+                PostDAO.mapLike(PostDAO.Row.of(resultSetRow(like))).toString());
+    }
+
+    // As JSON_OBJECT renders the row: numbers as numbers, timestamps as ISO strings
+    private static JsonObject jsonRow(String... columns) {
+        JsonObject row = new JsonObject();
+        for (int i = 0; i < columns.length; i += 2) {
+            String value = columns[i + 1];
+            if (value == null) {
+                row.add(columns[i], null);
+            } else if (value.matches("\\d+")) {
+                row.addProperty(columns[i], Long.parseLong(value));
+            } else {
+                row.addProperty(columns[i], value);
+            }
+        }
+        return row;
+    }
+
+    private static ResultSet resultSetRow(String... columns) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < columns.length; i += 2) {
+            values.put(columns[i], columns[i + 1]);
+        }
+        boolean[] wasNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("wasNull")) {
+                        return wasNull[0];
+                    }
+                    String value = values.get((String) args[0]);
+                    wasNull[0] = value == null;
+                    switch (method.getName()) {
+                        case "getLong":
+                            return value == null ? 0L : Long.parseLong(value);
+                        case "getInt":
+                            return value == null ? 0 : Integer.parseInt(value);
+                        case "getString":
+                            return value;
+                        case "getTimestamp":
+                            return value == null ? null : Timestamp.valueOf(LocalDateTime.parse(value));
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static LongList parseTree(String column) {
+        LongList ids = new LongList();
+        for (JsonElement element : JsonParser.parseString(column).getAsJsonArray()) {
+            ids.addLong(element.getAsLong());
+        }
+        return ids;
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
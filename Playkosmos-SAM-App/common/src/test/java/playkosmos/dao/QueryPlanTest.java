@@ -0,0 +1,198 @@
+package playkosmos.dao;
+
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import playkosmos.dbutil.DatabaseConnectionManager;
+import playkosmos.dbutil.SchemaMigration;
+import playkosmos.dbutil.SchemaMigrations;
+import playkosmos.dbutil.SchemaMigrator;
+import playkosmos.utils.DatabaseCredentials;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+// Runs EXPLAIN for every DAO read against a throwaway MySQL 8 schema and fails if any base table is read with a
+// full scan. Skipped unless TEST_DB_HOST is set, e.g. docker run -e MYSQL_ROOT_PASSWORD=test -e MYSQL_DATABASE=playkosmos_test -p 3306:3306 mysql:8
+public class QueryPlanTest {
+
+    private static final int SEED_POSTS = 500;
+    private static final List<String> SEEDED_TABLES = List.of("user_table", "otp_table", "posts", "post_media", "post_tags",
+            "post_likes", "comments", "post_questions", "post_answers", "post_reviews", "post_participants", "post_counters");
+
+    private static DatabaseConnectionManager dcm;
+
+    @BeforeClass
+    public static void migrateAndSeed() throws SQLException {
+        String host = System.getenv("TEST_DB_HOST");
+        Assume.assumeTrue("TEST_DB_HOST is not set", host != null && !host.isBlank());
+
+        DatabaseCredentials credentials = new DatabaseCredentials(
+                env("TEST_DB_USERNAME", "root"),
+                env("TEST_DB_PASSWORD", "test"),
+                host,
+                Integer.parseInt(env("TEST_DB_PORT", "3306")),
+                env("TEST_DB_NAME", "playkosmos_test"));
+        dcm = new DatabaseConnectionManager(credentials);
+        new SchemaMigrator(dcm).migrate();
+
+        try (Connection connection = dcm.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+            for (String table : SEEDED_TABLES) {
+                statement.execute("TRUNCATE TABLE " + table);
+            }
+            statement.execute("SET FOREIGN_KEY_CHECKS = 1");
+
+            String seq = "WITH RECURSIVE seq(n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < " + SEED_POSTS + ") ";
+            statement.execute("INSERT INTO user_table (username, email, phoneNumber, countryCode, dateOfBirth, password) " + seq +
+                    "SELECT CONCAT('user', n), CONCAT('user', n, '@example.com'), CONCAT('+1555', LPAD(n, 7, '0')), 'US', '2000-01-01', 'x' FROM seq");
+            statement.execute("INSERT INTO otp_table (user_id, otp, expiry_time) " + seq +
+                    "SELECT n, '123456', NOW() + INTERVAL 10 MINUTE FROM seq");
+            statement.execute("INSERT INTO posts (user_id, caption) " + seq + "SELECT n % 50 + 1, 'seed' FROM seq");
+            for (int copy = 0; copy < 4; copy++) {
+                statement.execute("INSERT INTO post_media (post_id, media_url, media_type) " + seq + "SELECT n, 'https://example.com/m', 'image' FROM seq");
+                statement.execute("INSERT INTO post_tags (post_id, tagged_user_id) " + seq + "SELECT n, n % 50 + 1 FROM seq");
+                statement.execute("INSERT INTO post_likes (post_id, user_id, like_type) " + seq + "SELECT n, n % 50 + 1, 'A' FROM seq");
+                statement.execute("INSERT INTO comments (post_id, user_id, comment_text) " + seq + "SELECT n, n % 50 + 1, 'seed' FROM seq");
+                statement.execute("INSERT INTO post_questions (post_id, user_id, question) " + seq + "SELECT n, n % 50 + 1, 'seed' FROM seq");
+                statement.execute("INSERT INTO post_answers (post_id, question_id, user_id, answer) " + seq + "SELECT n, n, n % 50 + 1, 'seed' FROM seq");
+                statement.execute("INSERT INTO post_reviews (post_id, user_id, review_text, rating) " + seq + "SELECT n, n % 50 + 1, 'seed', 5 FROM seq");
+                statement.execute("INSERT INTO post_participants (post_id, user_id) " + seq + "SELECT n, n % 50 + 1 FROM seq");
+            }
+            statement.execute("INSERT INTO post_counters (post_id) " + seq + "SELECT n FROM seq");
+            statement.execute("ANALYZE TABLE " + String.join(", ", SEEDED_TABLES));
+        }
+    }
+
+    @AfterClass
+    public static void closePool() {
+        if (dcm != null) {
+            dcm.getConnectionPool().close();
+        }
+    }
+
+    @Test
+    public void postAggregateUsesIndexes() throws SQLException {
+        assertIndexed(PostDAO.POST_AGGREGATE_QUERY, 42L);
+    }
+
+    @Test
+    public void collectionPagesUseIndexes() throws SQLException {
+        Timestamp cursorTime = Timestamp.valueOf(LocalDateTime.now().plusDays(1));
+        String[][] collections = {
+                {"comments", "comment_id", "created_at"},
+                {"post_likes", "like_id", "liked_at"},
+                {"post_reviews", "review_id", "created_at"},
+                {"post_questions", "question_id", "created_at"},
+                {"post_answers", "answer_id", "created_at"}
+        };
+        for (String[] collection : collections) {
+            assertIndexed(PostDAO.pageQuery(collection[0], collection[1], collection[2], false), 42L, 21);
+            assertIndexed(PostDAO.pageQuery(collection[0], collection[1], collection[2], true),
+                    42L, cursorTime, cursorTime, Long.MAX_VALUE, 21);
+            assertIndexed(PostDAO.embeddedPagesQuery(collection[0], collection[1], collection[2], 2), 42L, 43L);
+        }
+    }
+
+    @Test
+    public void legacyPostLookupsUseIndexes() throws SQLException {
+        assertIndexed("SELECT * FROM posts WHERE post_id = ?", 42L);
+        assertIndexed("SELECT media_url FROM post_media WHERE post_id = ?", 42L);
+        assertIndexed("SELECT tagged_user_id FROM post_tags WHERE post_id = ?", 42L);
+        assertIndexed("SELECT user_id FROM post_participants WHERE post_id = ?", 42L);
+        assertIndexed("SELECT post_id, likes, comments, shares, reviews, questions, answers, participants " +
+                "FROM post_counters WHERE post_id IN (?, ?, ?)", 1L, 2L, 3L);
+    }
+
+    @Test
+    public void userLookupsUseIndexes() throws SQLException {
+        assertIndexed(UserDAO.FIND_BY_EMAIL_QUERY, "user7@example.com");
+        assertIndexed(UserDAO.FIND_BY_PHONE_NUMBER_QUERY, "+15550000007");
+        assertIndexed(UserDAO.FIND_BY_USERNAME_QUERY, "user7");
+        assertIndexed(UserDAO.FIND_PASSWORD_QUERY, 7L);
+        assertIndexed(UserDAO.LATEST_OTP_QUERY, 7L);
+    }
+
+    // Replays every user_table statement against a scratch copy holding duplicate users, which the seeded schema
+    // cannot hold once its unique keys exist
+    @Test
+    public void uniqueUserKeysMigrationRenamesDuplicates() throws SQLException {
+        try (Connection connection = dcm.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS user_table_dedupe");
+            boolean seeded = false;
+            for (SchemaMigration migration : SchemaMigrations.ALL) {
+                for (String sql : migration.getStatements()) {
+                    if (sql.startsWith("UPDATE user_table") && !seeded) {
+                        statement.execute("INSERT INTO user_table_dedupe (username, email, phoneNumber, dateOfBirth, password) VALUES " +
+                                "('dup', 'dup@example.com', '+1', '2000-01-01', 'x'), ('DUP', 'dup@example.com', '+1', '2000-01-01', 'x'), " +
+                                "('other', NULL, NULL, '2000-01-01', 'x'), ('other2', NULL, NULL, '2000-01-01', 'x')");
+                        seeded = true;
+                    }
+                    if (sql.startsWith("CREATE TABLE IF NOT EXISTS user_table ") || sql.startsWith("ALTER TABLE user_table ")
+                            || sql.startsWith("UPDATE user_table ")) {
+                        statement.execute(sql.replace("user_table", "user_table_dedupe"));
+                    }
+                }
+            }
+            try (ResultSet resultSet = statement.executeQuery(
+                    "SELECT username, email, phoneNumber FROM user_table_dedupe WHERE username LIKE 'dup%' ORDER BY id")) {
+                assertTrue(resultSet.next());
+                assertEquals("dup", resultSet.getString("username"));
+                assertEquals("dup@example.com", resultSet.getString("email"));
+                assertTrue(resultSet.next());
+                assertTrue(resultSet.getString("username").startsWith("DUP#"));
+                assertTrue(resultSet.getString("email").startsWith("dup@example.com#"));
+                assertTrue(resultSet.getString("phoneNumber").startsWith("+1#"));
+            } finally {
+                statement.execute("DROP TABLE IF EXISTS user_table_dedupe");
+            }
+        }
+    }
+
+    // Every base table in the plan must be read through an index; derived tables (<derivedN>) are materialised
+    // from already-indexed reads and are skipped
+    private static void assertIndexed(String query, Object... parameters) throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (Connection connection = dcm.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement("EXPLAIN " + query)) {
+            for (int i = 0; i < parameters.length; i++) {
+                preparedStatement.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    String table = resultSet.getString("table");
+                    if (table == null || table.startsWith("<")) {
+                        continue;
+                    }
+                    String accessType = resultSet.getString("type");
+                    String key = resultSet.getString("key");
+                    plan.add(table + ":" + accessType + ":" + key);
+                    assertNotEquals("Full scan of " + table + " in: " + query, "ALL", accessType);
+                    assertNotNull("No index used for " + table + " in: " + query, key);
+                }
+            }
+        }
+        assertFalse("EXPLAIN returned no base tables for: " + query, plan.isEmpty());
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value;
+    }
+}
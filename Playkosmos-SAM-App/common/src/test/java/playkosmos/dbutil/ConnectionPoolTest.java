@@ -0,0 +1,259 @@
+package playkosmos.dbutil;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:poolfake://test";
+    private static final FakeDriver DRIVER = new FakeDriver();
+
+    @BeforeClass
+    public static void registerDriver() throws SQLException {
+        DriverManager.registerDriver(DRIVER);
+    }
+
+    @AfterClass
+    public static void deregisterDriver() throws SQLException {
+        DriverManager.deregisterDriver(DRIVER);
+    }
+
+    @Before
+    public void resetDriver() {
+        DRIVER.opened.clear();
+    }
+
+    @Test
+    public void reusesAReturnedConnection() throws SQLException {
+        try (ConnectionPool pool = pool(config(2, 60_000, 60_000, 0))) {
+            pool.getConnection().close();
+            pool.getConnection().close();
+
+            assertEquals(1, DRIVER.opened.size());
+            assertEquals(1, pool.getMetrics().getHits());
+        }
+    }
+
+    @Test
+    public void replacesAConnectionThatFailsValidation() throws SQLException {
+        try (ConnectionPool pool = pool(config(2, 60_000, 0, 0))) {
+            pool.getConnection().close();
+            DRIVER.opened.get(0).valid = false;
+
+            pool.getConnection().close();
+
+            assertEquals(2, DRIVER.opened.size());
+            assertTrue(DRIVER.opened.get(0).closed);
+            assertFalse(DRIVER.opened.get(1).closed);
+        }
+    }
+
+    @Test
+    public void skipsValidationWithinTheValidationInterval() throws SQLException {
+        try (ConnectionPool pool = pool(config(2, 60_000, 60_000, 0))) {
+            pool.getConnection().close();
+            DRIVER.opened.get(0).valid = false;
+
+            pool.getConnection().close();
+
+            assertEquals(1, DRIVER.opened.size());
+            assertEquals(0, DRIVER.opened.get(0).validations);
+        }
+    }
+
+    @Test
+    public void retiresConnectionsPastTheirMaxLifetime() throws Exception {
+        try (ConnectionPool pool = pool(config(2, 50, 60_000, 0))) {
+            Connection connection = pool.getConnection();
+            Thread.sleep(80);
+            // Too old to go back to the idle list
+            connection.close();
+            assertTrue(DRIVER.opened.get(0).closed);
+
+            pool.getConnection().close();
+            assertEquals(2, DRIVER.opened.size());
+        }
+    }
+
+    @Test
+    public void aReturnedHandleCannotBeUsedAgain() throws SQLException {
+        try (ConnectionPool pool = pool(config(1, 60_000, 60_000, 0))) {
+            Connection connection = pool.getConnection();
+            connection.close();
+            Connection next = pool.getConnection();
+
+            assertNotSame(connection, next);
+            assertTrue(connection.isClosed());
+            try {
+                connection.getAutoCommit();
+                fail("the stale handle still reached the connection");
+            } catch (SQLException expected) {
+                assertTrue(expected.getMessage().contains("already been returned"));
+            }
+            next.close();
+        }
+    }
+
+    @Test
+    public void drainClosesIdleConnectionsAndBorrowedOnesWhenReturned() throws SQLException {
+        ConnectionPool pool = pool(config(2, 60_000, 60_000, 0));
+        Connection borrowed = pool.getConnection();
+        pool.getConnection().close();
+
+        pool.drain();
+
+        assertTrue(DRIVER.opened.get(1).closed);
+        assertFalse(DRIVER.opened.get(0).closed);
+        // The borrowed connection keeps working until it is handed back
+        assertTrue(borrowed.getAutoCommit());
+        try {
+            pool.getConnection();
+            fail("a drained pool lends no connections");
+        } catch (SQLException expected) {
+            assertTrue(expected.getMessage().contains("closed"));
+        }
+        borrowed.close();
+        assertTrue(DRIVER.opened.get(0).closed);
+    }
+
+    @Test
+    public void timesOutWhenEveryConnectionIsBorrowed() throws SQLException {
+        try (ConnectionPool pool = new ConnectionPool(URL, "user", "secret", new PoolConfig(1, 0, 20, 60_000, 60_000, 60_000, 0))) {
+            Connection held = pool.getConnection();
+            try {
+                pool.getConnection();
+                fail("the pool lent more connections than its size");
+            } catch (SQLException expected) {
+                assertTrue(expected.getMessage().startsWith("Timed out"));
+            }
+            held.close();
+            assertEquals(1, DRIVER.opened.size());
+        }
+    }
+
+    @Test
+    public void logsEveryLeakButOnlyOneBorrowStackTracePerInterval() throws Exception {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        try (ConnectionPool pool = pool(config(4, 60_000, 60_000, 30))) {
+            pool.getConnection();
+            pool.getConnection();
+            pool.getConnection();
+            Thread.sleep(60);
+
+            System.setOut(new PrintStream(log, true, StandardCharsets.UTF_8));
+            pool.getConnection().close();
+        } finally {
+            System.setOut(stdout);
+        }
+
+        String output = log.toString(StandardCharsets.UTF_8);
+        assertEquals(3, output.split("Possible connection leak", -1).length - 1);
+        assertEquals(1, output.split("Connection borrowed here", -1).length - 1);
+    }
+
+    private static ConnectionPool pool(PoolConfig config) {
+        return new ConnectionPool(URL, "user", "secret", config);
+    }
+
+    private static PoolConfig config(int maxPoolSize, long maxLifetimeMillis, long validationIntervalMillis,
+                                     long leakDetectionThresholdMillis) {
+        return new PoolConfig(maxPoolSize, 0, 1_000, 600_000, maxLifetimeMillis, validationIntervalMillis,
+                leakDetectionThresholdMillis);
+    }
+
+    private static final class FakeConnection {
+
+        private volatile boolean valid = true;
+        private volatile boolean closed;
+        private volatile int validations;
+
+        private Connection proxy() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "isValid":
+                                validations++;
+                                return valid;
+                            case "close":
+                                closed = true;
+                                return null;
+                            case "isClosed":
+                                return closed;
+                            case "getAutoCommit":
+                                return true;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+
+    private static final class FakeDriver implements Driver {
+
+        private final List<FakeConnection> opened = new ArrayList<>();
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            FakeConnection connection = new FakeConnection();
+            opened.add(connection);
+            return connection.proxy();
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith("jdbc:poolfake:");
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package playkosmos.dbutil;
+
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.Limit;
+import io.lettuce.core.Range;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScoredValue;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.sync.RedisCommands;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+// Single-node Redis kept in memory for cache and feed tests. Only the commands those classes send are implemented,
+// SET always behaves as SET NX (the only form they use) and Lua scripts are emulated by Java functions that the
+// test registers for the script's text.
+public class FakeRedis {
+
+    private final Map<String, String> strings = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Double>> sortedSets = new ConcurrentHashMap<>();
+    private final Map<String, String> scriptsBySha = new ConcurrentHashMap<>();
+    private final Map<String, BiFunction<String[], String[], Object>> scripts = new HashMap<>();
+    private final Map<String, Integer> calls = new ConcurrentHashMap<>();
+
+    public void script(String script, BiFunction<String[], String[], Object> implementation) {
+        scripts.put(script, implementation);
+    }
+
+    // As after a failover: EVALSHA fails with NOSCRIPT until the script is loaded again
+    public void flushScripts() {
+        scriptsBySha.clear();
+    }
+
+    public Map<String, String> strings() {
+        return strings;
+    }
+
+    public Map<String, Map<String, Double>> sortedSets() {
+        return sortedSets;
+    }
+
+    public int calls(String command) {
+        return calls.getOrDefault(command, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public RedisCommands<String, String> sync() {
+        return (RedisCommands<String, String>) Proxy.newProxyInstance(RedisCommands.class.getClassLoader(),
+                new Class<?>[]{RedisCommands.class}, (proxy, method, args) -> execute(method, args));
+    }
+
+    @SuppressWarnings("unchecked")
+    public RedisAsyncCommands<String, String> async() {
+        return (RedisAsyncCommands<String, String>) Proxy.newProxyInstance(RedisAsyncCommands.class.getClassLoader(),
+                new Class<?>[]{RedisAsyncCommands.class}, (proxy, method, args) -> {
+                    CompletableFuture<Object> result = new CompletableFuture<>();
+                    try {
+                        result.complete(execute(method, args));
+                    } catch (RuntimeException e) {
+                        result.completeExceptionally(e);
+                    }
+                    return future(result);
+                });
+    }
+
+    private synchronized Object execute(Method method, Object[] args) {
+        String command = method.getName();
+        calls.merge(command, 1, Integer::sum);
+        switch (command) {
+            case "get":
+                return strings.get((String) args[0]);
+            case "set":
+                return strings.putIfAbsent((String) args[0], (String) args[1]) == null ? "OK" : null;
+            case "setex":
+                strings.put((String) args[0], (String) args[2]);
+                return "OK";
+            case "del": {
+                long removed = 0;
+                for (Object key : (Object[]) args[0]) {
+                    removed += strings.remove((String) key) != null || sortedSets.remove((String) key) != null ? 1 : 0;
+                }
+                return removed;
+            }
+            case "mget": {
+                List<KeyValue<String, String>> values = new ArrayList<>();
+                for (Object key : (Object[]) args[0]) {
+                    values.add(KeyValue.fromNullable((String) key, strings.get((String) key)));
+                }
+                return values;
+            }
+            case "incr": {
+                long value = Long.parseLong(strings.getOrDefault((String) args[0], "0")) + 1;
+                strings.put((String) args[0], String.valueOf(value));
+                return value;
+            }
+            case "expire":
+                return strings.containsKey((String) args[0]) || sortedSets.containsKey((String) args[0]);
+            case "exists":
+                return strings.containsKey(((Object[]) args[0])[0]) || sortedSets.containsKey(((Object[]) args[0])[0]) ? 1L : 0L;
+            case "scriptLoad": {
+                String sha = "sha" + Integer.toHexString(args[0].hashCode());
+                scriptsBySha.put(sha, (String) args[0]);
+                return sha;
+            }
+            case "evalsha": {
+                String script = scriptsBySha.get((String) args[0]);
+                if (script == null) {
+                    throw new RedisNoScriptException("NOSCRIPT No matching script");
+                }
+                return scripts.get(script).apply((String[]) args[2], (String[]) args[3]);
+            }
+            case "eval":
+                return scripts.get((String) args[0]).apply((String[]) args[2], (String[]) args[3]);
+            case "zadd":
+                return zadd(args);
+            case "zremrangebyrank": {
+                List<String> members = ranked((String) args[0], false);
+                int size = members.size();
+                long start = normalise((Long) args[1], size);
+                long stop = normalise((Long) args[2], size);
+                long removed = 0;
+                for (long rank = Math.max(0, start); rank <= Math.min(size - 1, stop); rank++) {
+                    sortedSets.get((String) args[0]).remove(members.get((int) rank));
+                    removed++;
+                }
+                return removed;
+            }
+            case "zrevrangebyscore":
+                return zrevrangebyscore((String) args[0], (Range<?>) args[1], (Limit) args[2]);
+            case "zrevrangeWithScores": {
+                List<String> members = ranked((String) args[0], true);
+                List<ScoredValue<String>> values = new ArrayList<>();
+                for (String member : slice(members, (Long) args[1], (Long) args[2])) {
+                    values.add(ScoredValue.just(sortedSets.get((String) args[0]).get(member), member));
+                }
+                return values;
+            }
+            case "zrange":
+                return slice(ranked((String) args[0], false), (Long) args[1], (Long) args[2]);
+            case "zrem": {
+                Map<String, Double> set = sortedSets.getOrDefault((String) args[0], new HashMap<>());
+                long removed = 0;
+                for (Object member : (Object[]) args[1]) {
+                    removed += set.remove((String) member) != null ? 1 : 0;
+                }
+                return removed;
+            }
+            default:
+                throw new UnsupportedOperationException(command);
+        }
+    }
+
+    private Object zadd(Object[] args) {
+        Map<String, Double> set = sortedSets.computeIfAbsent((String) args[0], key -> new HashMap<>());
+        long added = 0;
+        if (args[1] instanceof Number) {
+            added += set.put((String) args[2], ((Number) args[1]).doubleValue()) == null ? 1 : 0;
+        } else {
+            for (Object value : (Object[]) args[1]) {
+                ScoredValue<?> scored = (ScoredValue<?>) value;
+                added += set.put((String) scored.getValue(), scored.getScore()) == null ? 1 : 0;
+            }
+        }
+        return added;
+    }
+
+    private List<String> zrevrangebyscore(String key, Range<?> range, Limit limit) {
+        List<String> members = new ArrayList<>();
+        for (String member : ranked(key, true)) {
+            double score = sortedSets.get(key).get(member);
+            if (inRange(score, range.getLower(), true) && inRange(score, range.getUpper(), false)) {
+                members.add(member);
+            }
+        }
+        int from = (int) Math.min(limit.getOffset(), members.size());
+        int to = (int) Math.min(from + limit.getCount(), members.size());
+        return new ArrayList<>(members.subList(from, to));
+    }
+
+    private static boolean inRange(double score, Range.Boundary<?> boundary, boolean lower) {
+        if (boundary.isUnbounded()) {
+            return true;
+        }
+        double value = ((Number) boundary.getValue()).doubleValue();
+        if (boundary.isIncluding()) {
+            return lower ? score >= value : score <= value;
+        }
+        return lower ? score > value : score < value;
+    }
+
+    private List<String> ranked(String key, boolean descending) {
+        Map<String, Double> set = sortedSets.getOrDefault(key, new HashMap<>());
+        Comparator<String> byScore = Comparator.<String>comparingDouble(set::get).thenComparing(Comparator.naturalOrder());
+        List<String> members = new ArrayList<>(set.keySet());
+        members.sort(descending ? byScore.reversed() : byScore);
+        return members;
+    }
+
+    private static List<String> slice(List<String> members, long start, long stop) {
+        int size = members.size();
+        int from = (int) Math.max(0, normalise(start, size));
+        int to = (int) Math.min(size - 1, normalise(stop, size));
+        return from > to ? new ArrayList<>() : new ArrayList<>(members.subList(from, to + 1));
+    }
+
+    private static long normalise(long index, int size) {
+        return index < 0 ? size + index : index;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisFuture<Object> future(CompletableFuture<Object> result) {
+        return (RedisFuture<Object>) Proxy.newProxyInstance(RedisFuture.class.getClassLoader(),
+                new Class<?>[]{RedisFuture.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getError":
+                            return result.isCompletedExceptionally() ? "ERR" : null;
+                        case "await":
+                            return true;
+                        default:
+                            try {
+                                return CompletableFuture.class.getMethod(method.getName(), method.getParameterTypes())
+                                        .invoke(result, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                });
+    }
+}
@@ -0,0 +1,47 @@
+package playkosmos.dbutil;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertTrue;
+
+public class SchemaMigrationsTest {
+
+    private static final Pattern UNIQUE_INDEX = Pattern.compile("add unique index \\w+ \\((\\w+)\\)");
+
+    @Test
+    public void versionsAreUniqueAndAscending() {
+        int previous = 0;
+        for (SchemaMigration migration : SchemaMigrations.ALL) {
+            assertTrue("version " + migration.getVersion() + " after " + previous, migration.getVersion() > previous);
+            previous = migration.getVersion();
+        }
+    }
+
+    // A unique index over existing rows can fail, so it must never run from ensureSchema on a cold start, and the
+    // migration adding it has to resolve duplicates on every indexed column before the ALTER
+    @Test
+    public void uniqueIndexesAreDeployOnlyAndDedupedFirst() {
+        for (SchemaMigration migration : SchemaMigrations.ALL) {
+            Set<String> dedupedColumns = new HashSet<>();
+            for (String statement : migration.getStatements()) {
+                String sql = statement.toLowerCase(Locale.ROOT);
+                if (sql.startsWith("update ") && sql.contains("group by ")) {
+                    dedupedColumns.add(sql.substring(sql.indexOf("group by ") + 9).split("[ ,]")[0]);
+                }
+                Matcher unique = UNIQUE_INDEX.matcher(sql);
+                while (unique.find()) {
+                    assertTrue("unique index in migration " + migration.getVersion() + " must be deploy-only",
+                            migration.isDeployOnly());
+                    assertTrue("no dedupe of " + unique.group(1) + " before its unique index in migration "
+                            + migration.getVersion(), dedupedColumns.contains(unique.group(1)));
+                }
+            }
+        }
+    }
+}
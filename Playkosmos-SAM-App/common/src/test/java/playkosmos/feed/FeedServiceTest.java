@@ -0,0 +1,233 @@
+package playkosmos.feed;
+
+import org.junit.Test;
+import playkosmos.dao.FollowDAO;
+import playkosmos.dao.Page;
+import playkosmos.dao.PostDAO;
+import playkosmos.dbutil.FakeRedis;
+import playkosmos.entity.Post;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FeedServiceTest {
+
+    private final FakeRedis redis = new FakeRedis();
+    private final Follows follows = new Follows();
+    private final Timeline timeline = new Timeline();
+
+    public FeedServiceTest() {
+        redis.script(FeedService.PUSH_SCRIPT, (keys, args) -> {
+            Map<String, Double> feed = redis.sortedSets().get(keys[0]);
+            if (feed == null) {
+                return 0L;
+            }
+            feed.put(args[1], Double.parseDouble(args[0]));
+            while (feed.size() > Integer.parseInt(args[2])) {
+                feed.values().remove(feed.values().stream().min(Double::compare).get());
+            }
+            return 1L;
+        });
+    }
+
+    @Test
+    public void pushesOnlyIntoFeedsThatExist() throws Exception {
+        follows.follow(2, 1);
+        follows.follow(3, 1);
+        feed(2, 5L);
+
+        service(100).publish(follows, post(10, 1));
+
+        assertEquals(List.of(10L, 5L), members(2));
+        // Follower 3 and the author have no feed yet; their first read rebuilds it from MySQL, post 10 included
+        assertFalse(redis.sortedSets().containsKey("feed:3"));
+        assertFalse(redis.sortedSets().containsKey("feed:1"));
+        assertTrue(redis.sortedSets().get("user_posts:1").containsKey("10"));
+    }
+
+    @Test
+    public void fansOutToEveryFollowerInKeysetBatches() throws Exception {
+        for (long follower = 2; follower <= 6; follower++) {
+            follows.follow(follower, 1);
+            feed(follower);
+        }
+
+        new FeedService(redis.sync(), redis.async(), 100, 800, 60, 2, 1_000).publish(follows, post(10, 1));
+
+        for (long follower = 2; follower <= 6; follower++) {
+            assertEquals(List.of(10L), members(follower));
+        }
+    }
+
+    @Test
+    public void mergesCelebrityPostsOnReadInsteadOfFanningOut() throws Exception {
+        follows.follow(2, 1);
+        follows.follow(3, 1);
+        follows.follow(4, 1);
+        feed(2, 5L, 8L);
+
+        FeedService service = service(3);
+        service.publish(follows, post(10, 1));
+
+        assertEquals(List.of(8L, 5L), members(2));
+        Page<Long> page = service.read(follows, timeline, 2, null, 20);
+        assertEquals(List.of(10L, 8L, 5L), page.getItems());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void pagesTheMergedFeedByPostId() throws Exception {
+        follows.follow(2, 1);
+        follows.follow(3, 1);
+        feed(2, 5L, 8L);
+        FeedService service = service(2);
+        service.publish(follows, post(10, 1));
+        service.publish(follows, post(6, 1));
+
+        Page<Long> first = service.read(follows, timeline, 2, null, 2);
+        Page<Long> second = service.read(follows, timeline, 2, Long.parseLong(first.getNextCursor()), 2);
+
+        assertEquals(List.of(10L, 8L), first.getItems());
+        assertEquals(List.of(6L, 5L), second.getItems());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    public void rebuildsAMissingFeedFromMySqlOnce() throws Exception {
+        timeline.postIds.addAll(List.of(9L, 7L, 3L));
+        FeedService service = service(100);
+
+        Page<Long> first = service.read(follows, timeline, 2, null, 2);
+        Page<Long> second = service.read(follows, timeline, 2, Long.parseLong(first.getNextCursor()), 2);
+
+        assertEquals(List.of(9L, 7L), first.getItems());
+        assertEquals("7", first.getNextCursor());
+        assertEquals(List.of(3L), second.getItems());
+        assertEquals(1, timeline.reads.get());
+    }
+
+    @Test
+    public void reloadsThePushScriptAfterTheScriptCacheIsFlushed() throws Exception {
+        follows.follow(2, 1);
+        feed(2);
+        FeedService service = service(100);
+        service.publish(follows, post(10, 1));
+
+        redis.flushScripts();
+        service.publish(follows, post(11, 1));
+
+        assertEquals(List.of(11L, 10L), members(2));
+    }
+
+    @Test
+    public void readsFromMySqlWithoutRedis() throws Exception {
+        timeline.postIds.addAll(List.of(9L, 7L));
+        FeedService service = new FeedService(null, null, 100, 800, 60, 100, 1_000);
+
+        service.publish(follows, post(10, 1));
+        Page<Long> page = service.read(follows, timeline, 2, null, 20);
+
+        assertEquals(List.of(9L, 7L), page.getItems());
+        assertTrue(redis.sortedSets().isEmpty());
+    }
+
+    private FeedService service(long celebrityFollowers) {
+        return new FeedService(redis.sync(), redis.async(), celebrityFollowers, 800, 60, 100, 1_000);
+    }
+
+    private void feed(long userId, Long... postIds) {
+        Map<String, Double> feed = new HashMap<>();
+        for (Long postId : postIds) {
+            feed.put(String.valueOf(postId), postId.doubleValue());
+        }
+        redis.sortedSets().put("feed:" + userId, feed);
+    }
+
+    private List<Long> members(long userId) {
+        List<Long> members = new ArrayList<>();
+        for (String member : redis.sortedSets().get("feed:" + userId).keySet()) {
+            members.add(Long.parseLong(member));
+        }
+        members.sort((a, b) -> Long.compare(b, a));
+        return members;
+    }
+
+    private static Post post(long postId, long authorId) {
+        Post post = new Post();
+        post.setPostId(postId);
+        post.setUserId(authorId);
+        return post;
+    }
+
+    private static final class Follows extends FollowDAO {
+
+        private final Map<Long, List<Long>> followers = new HashMap<>();
+
+        private Follows() {
+            super(null);
+        }
+
+        @Override
+        public boolean follow(long followerId, long followeeId) {
+            followers.computeIfAbsent(followeeId, id -> new ArrayList<>()).add(followerId);
+            return true;
+        }
+
+        @Override
+        public long getFollowerCount(long userId) {
+            return followers.getOrDefault(userId, List.of()).size();
+        }
+
+        @Override
+        public List<Long> getFollowerIds(long followeeId, long afterFollowerId, int limit) {
+            List<Long> page = new ArrayList<>();
+            for (Long follower : followers.getOrDefault(followeeId, List.of())) {
+                if (follower > afterFollowerId && page.size() < limit) {
+                    page.add(follower);
+                }
+            }
+            return page;
+        }
+
+        @Override
+        public List<Long> getFolloweeIdsWithMinFollowers(long followerId, long minFollowers) {
+            List<Long> followees = new ArrayList<>();
+            followers.forEach((followee, ids) -> {
+                if (ids.contains(followerId) && ids.size() >= minFollowers) {
+                    followees.add(followee);
+                }
+            });
+            return followees;
+        }
+    }
+
+    private static final class Timeline extends PostDAO {
+
+        private final List<Long> postIds = new ArrayList<>();
+        private final AtomicInteger reads = new AtomicInteger();
+
+        private Timeline() {
+            super(null);
+        }
+
+        @Override
+        public List<Long> getTimelinePostIds(long userId, Long beforePostId, int limit) {
+            reads.incrementAndGet();
+            List<Long> page = new ArrayList<>();
+            for (Long postId : postIds) {
+                if ((beforePostId == null || postId < beforePostId) && page.size() < limit) {
+                    page.add(postId);
+                }
+            }
+            return page;
+        }
+    }
+}
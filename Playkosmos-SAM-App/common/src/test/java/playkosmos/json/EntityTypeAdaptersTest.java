@@ -0,0 +1,127 @@
+package playkosmos.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+import playkosmos.entity.Answer;
+import playkosmos.entity.Comment;
+import playkosmos.entity.Like;
+import playkosmos.entity.Post;
+import playkosmos.entity.PostCounters;
+import playkosmos.entity.Question;
+import playkosmos.entity.Review;
+import playkosmos.entity.User;
+import playkosmos.utils.LocalDateTimeTypeAdapter;
+import playkosmos.utils.LocalDateTypeAdapter;
+import playkosmos.utils.LongList;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class EntityTypeAdaptersTest {
+
+    // What every handler used before the streaming adapters, so responses must stay byte-for-byte compatible
+    private static final Gson REFLECTIVE = new GsonBuilder()
+            .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
+            .create();
+
+    private final Gson gson = GsonFactory.getInstance();
+
+    @Test
+    public void postMatchesReflectiveOutput() {
+        Post post = samplePost();
+        assertEquals(REFLECTIVE.toJson(post), gson.toJson(post));
+    }
+
+    @Test
+    public void sparsePostMatchesReflectiveOutput() {
+        Post post = new Post();
+        post.setPostId(7L);
+        post.setCaption("no lists yet");
+        assertEquals(REFLECTIVE.toJson(post), gson.toJson(post));
+    }
+
+    @Test
+    public void postRoundTrips() {
+        Post post = samplePost();
+        String json = gson.toJson(post);
+        Post parsed = gson.fromJson(json, Post.class);
+        assertEquals(JsonParser.parseString(json), JsonParser.parseString(gson.toJson(parsed)));
+        assertEquals(JsonParser.parseString(json), JsonParser.parseString(REFLECTIVE.toJson(parsed)));
+    }
+
+    @Test
+    public void readsReflectiveOutputAndSkipsUnknownFields() {
+        Post post = samplePost();
+        String json = REFLECTIVE.toJson(post).replaceFirst("\\{", "{\"unknown\":{\"nested\":[1,2]},");
+        Post parsed = gson.fromJson(json, Post.class);
+        assertEquals(JsonParser.parseString(REFLECTIVE.toJson(post)), JsonParser.parseString(gson.toJson(parsed)));
+    }
+
+    @Test
+    public void explicitNullsReadAsNull() {
+        Post parsed = gson.fromJson("{\"postId\":1,\"caption\":null,\"comments\":null,\"counters\":null}", Post.class);
+        assertEquals(Long.valueOf(1), parsed.getPostId());
+        assertNull(parsed.getCaption());
+        assertNull(parsed.getComments());
+        assertNull(parsed.getCounters());
+    }
+
+    @Test
+    public void nullPrimitiveCountsReadAsZeroLikeReflectiveGson() {
+        String json = "{\"postId\":1,\"shares\":null,\"counters\":{\"likes\":null,\"comments\":2}}";
+        Post parsed = gson.fromJson(json, Post.class);
+        assertEquals(0, parsed.getShares());
+        assertEquals(0, parsed.getCounters().getLikes());
+        assertEquals(2, parsed.getCounters().getComments());
+        assertEquals(REFLECTIVE.toJson(REFLECTIVE.fromJson(json, Post.class)), gson.toJson(parsed));
+    }
+
+    @Test
+    public void userMatchesReflectiveOutput() {
+        User user = new User(5L, "ada", "ada@example.com", "8012345678", "NG", LocalDate.of(1990, 12, 10), "hash");
+        assertEquals(REFLECTIVE.toJson(user), gson.toJson(user));
+        assertEquals(gson.toJson(user), gson.toJson(gson.fromJson(gson.toJson(user), User.class)));
+    }
+
+    @Test
+    public void nullElementsInListsMatchReflectiveOutput() {
+        Post post = new Post();
+        List<Comment> comments = new ArrayList<>();
+        comments.add(null);
+        comments.add(new Comment(1L, 2L, 3L, "hi", null));
+        post.setComments(comments);
+        assertEquals(REFLECTIVE.toJson(post), gson.toJson(post));
+    }
+
+    private static Post samplePost() {
+        LocalDateTime at = LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_000_000);
+        List<Answer> answers = List.of(new Answer(11L, 10L, 4L, "Bring water", at));
+        List<Question> questions = List.of(new Question(10L, 1L, 3L, "What should I bring?", at, answers));
+        return new Post(
+                1L,
+                2L,
+                "Five-a-side at \"the park\" \u2014 caf\u00e9 after",
+                List.of("https://cdn.example.com/a.jpg", "https://cdn.example.com/b.mp4"),
+                List.of("image", "video"),
+                LongList.of(3L, 4L),
+                LongList.of(5L),
+                List.of(new Comment(20L, 1L, 3L, "Count me in", at)),
+                questions,
+                answers,
+                List.of(new Like(30L, 1L, 4L, "A", at)),
+                List.of(new Review(40L, 1L, 5L, "Great game", 5, at)),
+                LongList.of(3L, 4L, 5L),
+                2,
+                new PostCounters(1, 1, 2, 1, 1, 1, 3),
+                Map.of("comments", "MjA"));
+    }
+}
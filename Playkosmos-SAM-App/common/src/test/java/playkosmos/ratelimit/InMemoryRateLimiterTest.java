@@ -0,0 +1,99 @@
+package playkosmos.ratelimit;
+
+import io.lettuce.core.RedisConnectionException;
+import io.lettuce.core.api.sync.RedisCommands;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InMemoryRateLimiterTest {
+
+    private static final RateLimitRule PER_IP = new RateLimitRule("ip", 3, 60_000);
+    private static final RateLimitRule PER_ACCOUNT = new RateLimitRule("account", 2, 60_000);
+
+    private long now;
+    private InMemoryRateLimiter limiter;
+
+    @Before
+    public void setUp() {
+        now = 1_000_000;
+        limiter = new InMemoryRateLimiter(() -> now, 100);
+    }
+
+    @Test
+    public void admitsBurstUpToCapacityThenRejects() {
+        List<RateLimitKey> keys = List.of(new RateLimitKey(PER_IP, "10.0.0.1"));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire(keys).isAllowed());
+        }
+
+        RateLimitDecision rejected = limiter.tryAcquire(keys);
+        assertFalse(rejected.isAllowed());
+        assertEquals("ip", rejected.getRejectedBy());
+        // One token refills every 20 seconds
+        assertEquals(20, rejected.getRetryAfterSeconds());
+    }
+
+    @Test
+    public void refillsOverThePeriod() {
+        List<RateLimitKey> keys = List.of(new RateLimitKey(PER_ACCOUNT, "a@example.com"));
+        limiter.tryAcquire(keys);
+        limiter.tryAcquire(keys);
+        assertFalse(limiter.tryAcquire(keys).isAllowed());
+
+        now += 30_000;
+        assertTrue(limiter.tryAcquire(keys).isAllowed());
+        assertFalse(limiter.tryAcquire(keys).isAllowed());
+    }
+
+    @Test
+    public void rejectionByOneBucketTakesNoTokenFromTheOthers() {
+        List<RateLimitKey> account = List.of(new RateLimitKey(PER_ACCOUNT, "a@example.com"));
+        limiter.tryAcquire(account);
+        limiter.tryAcquire(account);
+
+        List<RateLimitKey> both = List.of(new RateLimitKey(PER_IP, "10.0.0.1"), new RateLimitKey(PER_ACCOUNT, "A@example.com "));
+        RateLimitDecision decision = limiter.tryAcquire(both);
+        assertFalse(decision.isAllowed());
+        assertEquals("account", decision.getRejectedBy());
+
+        // The IP bucket still has all three tokens for other accounts
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire(List.of(new RateLimitKey(PER_IP, "10.0.0.1"), new RateLimitKey(PER_ACCOUNT, "b" + i))).isAllowed());
+        }
+    }
+
+    @Test
+    public void countsAdmittedAndRejected() {
+        List<RateLimitKey> keys = List.of(new RateLimitKey(PER_ACCOUNT, "+2348000000000"));
+        limiter.tryAcquire(keys);
+        limiter.tryAcquire(keys);
+        limiter.tryAcquire(keys);
+
+        RateLimitStats stats = limiter.getStats();
+        assertEquals(2, stats.getAdmitted());
+        assertEquals(1, stats.getRejected());
+        assertEquals(1, stats.getRejected("account"));
+    }
+
+    @Test
+    public void countsARedisFallbackDecisionOnlyInTheFallback() {
+        @SuppressWarnings("unchecked")
+        RedisCommands<String, String> unreachable = (RedisCommands<String, String>) Proxy.newProxyInstance(
+                RedisCommands.class.getClassLoader(), new Class<?>[]{RedisCommands.class}, (proxy, method, args) -> {
+                    throw new RedisConnectionException("unreachable");
+                });
+        RedisRateLimiter redisLimiter = new RedisRateLimiter(unreachable, limiter);
+
+        assertTrue(redisLimiter.tryAcquire(List.of(new RateLimitKey(PER_ACCOUNT, "+2348000000000"))).isAllowed());
+
+        assertEquals(0, redisLimiter.getStats().getAdmitted());
+        assertEquals(1, limiter.getStats().getAdmitted());
+    }
+}
@@ -0,0 +1,208 @@
+package playkosmos.streaming;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.Test;
+import playkosmos.entity.Comment;
+import playkosmos.entity.Post;
+import playkosmos.json.GsonFactory;
+import playkosmos.utils.ETags;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StreamingResponseTest {
+
+    private final Gson gson = GsonFactory.getInstance();
+
+    @Test
+    public void parsesOnlyTheRoutingFieldsOfAProxyEvent() throws IOException {
+        String event = "{\"resource\":\"/posts/{postId}\",\"path\":\"/posts/42\",\"httpMethod\":\"GET\","
+                + "\"headers\":{\"If-None-Match\":\"\\\"abc\\\"\",\"Accept\":\"application/json\"},"
+                + "\"multiValueHeaders\":{\"Accept\":[\"application/json\"]},"
+                + "\"queryStringParameters\":null,"
+                + "\"pathParameters\":{\"postId\":\"42\"},"
+                + "\"requestContext\":{\"identity\":{\"sourceIp\":\"10.0.0.1\"},\"authorizer\":{\"userId\":7,\"principalId\":\"ada\"}},"
+                + "\"body\":\"{\\\"ignored\\\":true}\",\"isBase64Encoded\":false}";
+
+        StreamingRequest request = StreamingRequest.parse(new ByteArrayInputStream(event.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("GET", request.getHttpMethod());
+        assertEquals("/posts/42", request.getPath());
+        assertEquals("42", request.getPathParameter("postId"));
+        assertNull(request.getQueryParameter("cursor"));
+        assertEquals("\"abc\"", request.getHeader("if-none-match"));
+        assertEquals("application/json", request.getHeader("ACCEPT"));
+        assertEquals("ada", request.getPrincipalId());
+    }
+
+    @Test
+    public void bufferedModeEmbedsTheSerialisedBodyInTheProxyResponse() throws IOException {
+        Post post = post();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        StreamingResponse.ok(post).writeTo(output, gson, false);
+
+        JsonObject response = JsonParser.parseString(output.toString(StandardCharsets.UTF_8)).getAsJsonObject();
+        assertEquals(200, response.get("statusCode").getAsInt());
+        assertEquals("application/json", response.getAsJsonObject("headers").get("Content-Type").getAsString());
+        assertFalse(response.get("isBase64Encoded").getAsBoolean());
+        assertEquals(gson.toJson(post), response.get("body").getAsString());
+    }
+
+    @Test
+    public void errorBodiesMatchTheExistingShape() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        StreamingResponse.error(404, "Post not found").writeTo(output, gson, false);
+
+        JsonObject response = JsonParser.parseString(output.toString(StandardCharsets.UTF_8)).getAsJsonObject();
+        assertEquals(404, response.get("statusCode").getAsInt());
+        JsonObject body = JsonParser.parseString(response.get("body").getAsString()).getAsJsonObject();
+        assertEquals("error", body.get("status").getAsString());
+        assertEquals("Post not found", body.get("message").getAsString());
+    }
+
+    @Test
+    public void streamingModeWritesPreludeDelimiterAndRawBody() throws IOException {
+        Post post = post();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        StreamingResponse.ok(post).withHeader("Cache-Control", "no-cache").writeTo(output, gson, true);
+
+        byte[] bytes = output.toByteArray();
+        int delimiter = indexOfDelimiter(bytes);
+        assertTrue(delimiter > 0);
+        JsonObject prelude = JsonParser.parseString(new String(bytes, 0, delimiter, StandardCharsets.UTF_8)).getAsJsonObject();
+        assertEquals(200, prelude.get("statusCode").getAsInt());
+        assertEquals("no-cache", prelude.getAsJsonObject("headers").get("Cache-Control").getAsString());
+        assertFalse(prelude.has("body"));
+        String body = new String(bytes, delimiter + 8, bytes.length - delimiter - 8, StandardCharsets.UTF_8);
+        assertEquals(gson.toJson(post), body);
+    }
+
+    @Test
+    public void escapesQuotesBackslashesAndControlCharacters() throws IOException {
+        ByteArrayOutputStream escaped = new ByteArrayOutputStream();
+        try (JsonStringOutputStream out = new JsonStringOutputStream(escaped)) {
+            out.write("a\"b\\c\nd\u0001e\u2028f".getBytes(StandardCharsets.UTF_8));
+        }
+        String json = escaped.toString(StandardCharsets.UTF_8);
+        assertEquals("a\\\"b\\\\c\\nd\\u0001e\u2028f", json);
+        assertEquals("a\"b\\c\nd\u0001e\u2028f", JsonParser.parseString("\"" + json + "\"").getAsString());
+    }
+
+    @Test
+    public void compressesLargeBodiesAsBase64ForApiGateway() throws IOException {
+        Post post = post();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        StreamingResponse.ok(post).withETag("\"abc\"")
+                .writeTo(output, gson, false, ResponseCompression.negotiate("br, gzip;q=0.8", 16), WireFormat.JSON);
+
+        JsonObject response = JsonParser.parseString(output.toString(StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonObject headers = response.getAsJsonObject("headers");
+        assertTrue(response.get("isBase64Encoded").getAsBoolean());
+        assertEquals("gzip", headers.get("Content-Encoding").getAsString());
+        assertEquals("Accept-Encoding", headers.get("Vary").getAsString());
+        assertEquals("\"abc-gzip\"", headers.get("ETag").getAsString());
+        assertEquals(gson.toJson(post), gunzip(Base64.getDecoder().decode(response.get("body").getAsString())));
+    }
+
+    @Test
+    public void sendsSmallBodiesAndNonGzipClientsUncompressed() throws IOException {
+        Post post = post();
+        for (ResponseCompression compression : List.of(
+                ResponseCompression.negotiate("gzip", 1 << 20),
+                ResponseCompression.negotiate("gzip;q=0, deflate", 16),
+                ResponseCompression.negotiate(null, 16))) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+            StreamingResponse.ok(post).writeTo(output, gson, false, compression, WireFormat.JSON);
+
+            JsonObject response = JsonParser.parseString(output.toString(StandardCharsets.UTF_8)).getAsJsonObject();
+            assertFalse(response.get("isBase64Encoded").getAsBoolean());
+            assertFalse(response.getAsJsonObject("headers").has("Content-Encoding"));
+            assertEquals("Accept-Encoding", response.getAsJsonObject("headers").get("Vary").getAsString());
+            assertEquals(gson.toJson(post), response.get("body").getAsString());
+        }
+    }
+
+    @Test
+    public void streamingModeCompressesTheRawBody() throws IOException {
+        Post post = post();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        StreamingResponse.ok(post).writeTo(output, gson, true, ResponseCompression.negotiate("*", 0), WireFormat.JSON);
+
+        byte[] bytes = output.toByteArray();
+        int delimiter = indexOfDelimiter(bytes);
+        JsonObject prelude = JsonParser.parseString(new String(bytes, 0, delimiter, StandardCharsets.UTF_8)).getAsJsonObject();
+        assertEquals("gzip", prelude.getAsJsonObject("headers").get("Content-Encoding").getAsString());
+        assertEquals(gson.toJson(post), gunzip(Arrays.copyOfRange(bytes, delimiter + 8, bytes.length)));
+    }
+
+    @Test
+    public void notModifiedHasNoBody() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        StreamingResponse.notModified("\"abc-gzip\"").writeTo(output, gson, false, ResponseCompression.negotiate("gzip", 0), WireFormat.JSON);
+
+        JsonObject response = JsonParser.parseString(output.toString(StandardCharsets.UTF_8)).getAsJsonObject();
+        assertEquals(304, response.get("statusCode").getAsInt());
+        assertEquals("", response.get("body").getAsString());
+        assertFalse(response.getAsJsonObject("headers").has("Content-Type"));
+        assertEquals("\"abc-gzip\"", response.getAsJsonObject("headers").get("ETag").getAsString());
+    }
+
+    @Test
+    public void ifNoneMatchIgnoresEncodingSuffixAndWeakPrefix() {
+        String etag = ETags.strong("{\"postId\":1}");
+        assertEquals(etag, ETags.strong("{\"postId\":1}"));
+        assertNotEquals(etag, ETags.strong("{\"postId\":2}"));
+        assertEquals(etag, ETags.match(etag, etag));
+        String gzipped = ETags.withVariant(etag, "gzip");
+        assertEquals(gzipped, ETags.match("\"other\", " + gzipped, etag));
+        assertEquals("W/" + etag, ETags.match("W/" + etag, etag));
+        assertEquals(etag, ETags.match("*", etag));
+        assertNull(ETags.match("\"other\"", etag));
+        assertNull(ETags.match(etag, null));
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Post post() {
+        Post post = new Post();
+        post.setPostId(42L);
+        post.setCaption("Line one\nline \"two\" <b>&</b> \u2028 caf\u00e9");
+        post.setComments(List.of(new Comment(1L, 42L, 7L, "Tab\there", LocalDateTime.of(2024, 5, 1, 10, 15))));
+        return post;
+    }
+
+    private static int indexOfDelimiter(byte[] bytes) {
+        for (int i = 0; i + 8 <= bytes.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(bytes, i, i + 8), new byte[8])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
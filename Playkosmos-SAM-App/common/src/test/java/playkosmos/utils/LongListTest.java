@@ -0,0 +1,116 @@
+package playkosmos.utils;
+
+import com.google.gson.Gson;
+import org.junit.Assume;
+import org.junit.Test;
+import playkosmos.cbor.EntityCbor;
+import playkosmos.entity.Post;
+import playkosmos.json.GsonFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LongListTest {
+
+    private static final int IDS = 50_000;
+    // Above the Long.valueOf cache, as real user IDs are
+    private static final long FIRST_ID = 1_000_000L;
+
+    @Test
+    public void behavesAsAListOfLongs() {
+        LongList ids = new LongList();
+        List<Long> expected = new ArrayList<>();
+        for (long id = 1; id <= 20; id++) {
+            ids.addLong(id);
+            expected.add(id);
+        }
+        ids.add(0, 99L);
+        expected.add(0, 99L);
+        ids.remove(5);
+        expected.remove(5);
+        ids.set(3, 42L);
+        expected.set(3, 42L);
+
+        assertEquals(expected, ids);
+        assertEquals(expected.hashCode(), ids.hashCode());
+        assertTrue(ids.contains(42L));
+        assertFalse(ids.contains(42));
+        assertEquals(expected, ids.copy());
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), ids.toLongArray());
+
+        try {
+            ids.add(null);
+            fail("null IDs are not representable");
+        } catch (NullPointerException expectedException) {
+            assertEquals(expected.size(), ids.size());
+        }
+    }
+
+    @Test
+    public void gsonAndCborReadIdsIntoLongLists() throws IOException {
+        Gson gson = GsonFactory.getInstance();
+        Post post = gson.fromJson("{\"postId\":1,\"taggedUserIds\":[3,4],\"participantIds\":[]}", Post.class);
+        assertEquals(LongList.of(3L, 4L), post.getTaggedUserIds());
+        assertEquals(0, post.getParticipantIds().size());
+        assertEquals("[3,4]", gson.toJson(post.getTaggedUserIds()));
+        assertEquals(LongList.of(3L, 4L), gson.fromJson("[3,4]", LongList.class));
+        // Gson without the entity adapters still treats it as a collection
+        assertEquals(LongList.of(3L, 4L), new Gson().fromJson("[3,4]", LongList.class));
+
+        Post decoded = EntityCbor.readPost(EntityCbor.toBytes(post));
+        assertEquals(post.getTaggedUserIds(), decoded.getTaggedUserIds());
+        assertEquals(post.getParticipantIds(), decoded.getParticipantIds());
+    }
+
+    @Test
+    public void holdsIdsInAFractionOfTheMemoryOfBoxedLongs() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        // Warm both paths so class loading and JIT allocations are not counted
+        boxed();
+        primitive();
+
+        long before = allocatedBytes();
+        List<Long> boxed = boxed();
+        long boxedBytes = allocatedBytes() - before;
+
+        before = allocatedBytes();
+        LongList primitive = primitive();
+        long primitiveBytes = allocatedBytes() - before;
+
+        assertEquals(boxed, primitive);
+        // 8 bytes per ID against a 16 byte Long plus its 4-8 byte reference
+        assertTrue("LongList " + primitiveBytes + " bytes, ArrayList<Long> " + boxedBytes + " bytes",
+                primitiveBytes * 2 < boxedBytes);
+        assertTrue("LongList " + primitiveBytes + " bytes for " + IDS + " IDs",
+                primitiveBytes < (long) IDS * Long.BYTES + 1024);
+    }
+
+    private static List<Long> boxed() {
+        List<Long> ids = new ArrayList<>(IDS);
+        for (long id = FIRST_ID; id < FIRST_ID + IDS; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static LongList primitive() {
+        LongList ids = new LongList(IDS);
+        for (long id = FIRST_ID; id < FIRST_ID + IDS; id++) {
+            ids.addLong(id);
+        }
+        return ids;
+    }
+
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
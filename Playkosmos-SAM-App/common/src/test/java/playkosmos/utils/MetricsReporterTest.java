@@ -0,0 +1,50 @@
+package playkosmos.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsReporterTest {
+
+    private long now = 1_000;
+    private final List<String> lines = new ArrayList<>();
+    private final MetricsReporter reporter = new MetricsReporter(60_000, () -> now, lines::add);
+
+    @Test
+    public void writesOneLinePerInterval() {
+        reporter.register("rateLimit.local", () -> Map.of("admitted", 3L));
+
+        reporter.maybeReport();
+        assertEquals(0, lines.size());
+
+        now += TimeUnit.SECONDS.toNanos(60);
+        reporter.maybeReport();
+        reporter.maybeReport();
+        assertEquals(1, lines.size());
+        assertEquals("{\"metrics\":{\"rateLimit.local\":{\"admitted\":3}}}", lines.get(0));
+
+        now += TimeUnit.SECONDS.toNanos(60);
+        reporter.maybeReport();
+        assertEquals(2, lines.size());
+    }
+
+    @Test
+    public void reRegisteringReplacesTheSource() {
+        reporter.register("pool", () -> Map.of("active", 1));
+        reporter.register("pool", () -> Map.of("active", 2));
+
+        Map<String, Object> snapshot = reporter.snapshot();
+        assertEquals(1, snapshot.size());
+        assertEquals(Map.of("active", 2), snapshot.get("pool"));
+
+        now += TimeUnit.SECONDS.toNanos(60);
+        reporter.maybeReport();
+        assertTrue(lines.get(0).contains("\"active\":2"));
+    }
+}
@@ -0,0 +1,28 @@
+package playkosmos.utils;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class RequestBodiesTest {
+
+    private static final String JSON = "{\"email\":\"ada@example.com\",\"password\":\"caf\u00e9\"}";
+
+    @Test
+    public void decodesBodiesApiGatewayBase64Encoded() {
+        String encoded = Base64.getEncoder().encodeToString(JSON.getBytes(StandardCharsets.UTF_8));
+        assertEquals(JSON, RequestBodies.text(new APIGatewayProxyRequestEvent().withBody(encoded).withIsBase64Encoded(true)));
+    }
+
+    @Test
+    public void passesPlainBodiesThrough() {
+        assertEquals(JSON, RequestBodies.text(new APIGatewayProxyRequestEvent().withBody(JSON)));
+        assertEquals(JSON, RequestBodies.text(new APIGatewayProxyRequestEvent().withBody(JSON).withIsBase64Encoded(false)));
+        assertNull(RequestBodies.text(new APIGatewayProxyRequestEvent().withIsBase64Encoded(true)));
+    }
+}
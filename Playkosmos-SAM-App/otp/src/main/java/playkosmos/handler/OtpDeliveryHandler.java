@@ -0,0 +1,48 @@
+package playkosmos.handler;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SQSBatchResponse;
+import com.amazonaws.services.lambda.runtime.events.SQSEvent;
+import playkosmos.notification.OtpDelivery;
+import playkosmos.notification.OtpDeliveryProcessor;
+import playkosmos.notification.SqsNotificationQueue;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Consumes OTP_QUEUE_URL in batches. The event source mapping needs ReportBatchItemFailures so only the messages
+// listed here are redelivered, and a redrive policy so poison messages end up in a DLQ.
+public class OtpDeliveryHandler implements RequestHandler<SQSEvent, SQSBatchResponse> {
+
+    private final OtpDeliveryProcessor processor;
+
+    public OtpDeliveryHandler() {
+        this.processor = OtpDeliveryProcessor.getInstance();
+    }
+
+    @Override
+    public SQSBatchResponse handleRequest(SQSEvent event, Context context) {
+        List<SQSBatchResponse.BatchItemFailure> failures = new ArrayList<>();
+        List<OtpDelivery> batch = new ArrayList<>();
+        Map<OtpDelivery, String> messageIds = new IdentityHashMap<>();
+
+        for (SQSEvent.SQSMessage message : event.getRecords()) {
+            try {
+                OtpDelivery delivery = SqsNotificationQueue.parse(message.getBody());
+                batch.add(delivery);
+                messageIds.put(delivery, message.getMessageId());
+            } catch (RuntimeException e) {
+                context.getLogger().log("Unreadable OTP delivery " + message.getMessageId() + ": " + e.getMessage());
+                failures.add(new SQSBatchResponse.BatchItemFailure(message.getMessageId()));
+            }
+        }
+
+        for (OtpDelivery failed : processor.process(batch)) {
+            failures.add(new SQSBatchResponse.BatchItemFailure(messageIds.get(failed)));
+        }
+        return new SQSBatchResponse(failures);
+    }
+}
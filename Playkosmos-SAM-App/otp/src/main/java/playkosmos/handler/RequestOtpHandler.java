@@ -0,0 +1,147 @@
+package playkosmos.handler;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.google.gson.Gson;
+import playkosmos.dao.UserDAO;
+import playkosmos.dbutil.DatabaseConnectionManager;
+import playkosmos.entity.User;
+import playkosmos.json.GsonFactory;
+import playkosmos.notification.NotificationQueue;
+import playkosmos.notification.OtpDelivery;
+import playkosmos.otp.OtpStore;
+import playkosmos.ratelimit.RateLimitDecision;
+import playkosmos.ratelimit.RateLimitRule;
+import playkosmos.ratelimit.RateLimiter;
+import playkosmos.ratelimit.RequestIdentity;
+import playkosmos.utils.OtpGenerator;
+import playkosmos.utils.RequestBodies;
+import playkosmos.utils.SecretsManagerHelper;
+import playkosmos.utils.SnapStartPriming;
+import software.amazon.awssdk.regions.Region;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+public class RequestOtpHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    private static final RateLimitRule OTP_PER_IP = RateLimitRule.fromEnv("otp-ip", 10, 60);
+    private static final RateLimitRule OTP_PER_ACCOUNT = RateLimitRule.fromEnv("otp-account", 5, 600);
+
+    private final SecretsManagerHelper secretsManagerHelper;
+    private final Gson gson;
+    private final NotificationQueue notificationQueue;
+
+    public RequestOtpHandler() {
+        Region region = Region.of(System.getenv("REGION_NAME"));
+        String secretName = System.getenv("DB_SECRET");
+
+        this.secretsManagerHelper = SecretsManagerHelper.getInstance(String.valueOf(region), secretName);
+        this.gson = GsonFactory.getInstance();
+        this.notificationQueue = NotificationQueue.forEnvironment();
+
+        SnapStartPriming.register(gson, secretsManagerHelper);
+    }
+
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent requestEvent, Context context) {
+        LambdaLogger logger = context.getLogger();
+        String requestBody = RequestBodies.text(requestEvent);
+        Map<String, String> requestMap = gson.fromJson(requestBody, Map.class);
+
+        String emailOrPhone = requestMap.get("emailOrPhone");
+        logger.log(emailOrPhone);
+
+        if (emailOrPhone == null || emailOrPhone.isBlank()) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withBody(gson.toJson(Map.of("status", "error", "message", "Email or Phone number is required")));
+        }
+
+        // Throttle before the user lookup and before another OTP goes out to the same email or phone
+        RateLimitDecision decision = RateLimiter.forEnvironment().tryAcquire(
+                RequestIdentity.keys(OTP_PER_IP, RequestIdentity.sourceIp(requestEvent), OTP_PER_ACCOUNT, emailOrPhone));
+        if (!decision.isAllowed()) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(429)
+                    .withHeaders(Map.of("Retry-After", String.valueOf(decision.getRetryAfterSeconds())))
+                    .withBody(gson.toJson(Map.of("status", "error", "message", "Too many OTP requests, try again later")));
+        }
+
+        try {
+            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretsManagerHelper.getDatabaseCredentials());
+            UserDAO userDAO = new UserDAO(dcm);
+
+            User user = isValidEmail(emailOrPhone) ? userDAO.findUserByEmail(emailOrPhone) : userDAO.findUserByPhoneNumber(emailOrPhone);
+            if (user == null) {
+                return new APIGatewayProxyResponseEvent()
+                        .withStatusCode(404)
+                        .withBody(gson.toJson(Map.of("status", "error", "message", "User not found")));
+            }
+
+            String otp = generateOtp();
+
+            OtpStore.forEnvironment(userDAO).save(user, otp);
+
+            // Email or SMS delivery runs off the request path
+            OtpDelivery delivery = toDelivery(user, otp);
+            if (delivery == null) {
+                return new APIGatewayProxyResponseEvent()
+                        .withStatusCode(400)
+                        .withBody(gson.toJson(Map.of("status", "error", "message", "User has no email or phone number")));
+            }
+            notificationQueue.enqueue(delivery);
+
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(200)
+                    .withBody(gson.toJson(Map.of("status", "success", "message", "OTP sent")));
+
+        } catch (SQLException e) {
+            logger = context.getLogger();
+            logger.log("Error in requesting OTP: " + e.getMessage());
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(500)
+                    .withBody(gson.toJson(Map.of("status", "error", "message", e.getMessage())));
+        }
+    }
+
+    private String generateOtp() {
+        return OtpGenerator.generate();
+    }
+
+    private OtpDelivery toDelivery(User user, String otp) {
+        long requestedAt = System.currentTimeMillis();
+        if (user.getEmail() != null && isValidEmail(user.getEmail())) {
+            return new OtpDelivery(user.getId(), OtpDelivery.Channel.EMAIL, user.getEmail(), otp, requestedAt);
+        }
+        if (user.getPhoneNumber() != null && !user.getPhoneNumber().isEmpty()) {
+            return new OtpDelivery(user.getId(), OtpDelivery.Channel.SMS, user.getPhoneNumber(), otp, requestedAt);
+        }
+        return null;
+    }
+
+    private boolean isValidEmail(String input) {
+        return input.contains("@");
+    }
+}
+
+/*
+Based on the above parallel pulling of information from the database, Create a  table and a lamnda function that when called can
+pull information froom a post table in paraller.
+
+1. The User details (profile picture, full name, location, icon/ rank of the user)
+
+2. The description of the post and the users tagged to the post
+
+3. The list of pictures that is associated with the post
+
+4. The number of likes, number of shares, the number of comments, Q & A, Participant, Reviews
+
+5. The number of Users that are attending or associated with a particular post
+
+Given below is my UserDAO, update it and create a PostDAO that handles the creation and of all the various tables
+associated with the post
+*/
\ No newline at end of file
@@ -6,12 +6,19 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import playkosmos.dao.UserDAO;
 import playkosmos.dbutil.DatabaseConnectionManager;
 import playkosmos.entity.User;
+import playkosmos.json.GsonFactory;
+import playkosmos.otp.OtpStore;
+import playkosmos.ratelimit.RateLimitDecision;
+import playkosmos.ratelimit.RateLimitRule;
+import playkosmos.ratelimit.RateLimiter;
+import playkosmos.ratelimit.RequestIdentity;
 import playkosmos.utils.JwtUtils;
+import playkosmos.utils.RequestBodies;
 import playkosmos.utils.SecretsManagerHelper;
+import playkosmos.utils.SnapStartPriming;
 import software.amazon.awssdk.regions.Region;
 
 import java.sql.SQLException;
@@ -19,6 +26,9 @@ import java.util.Map;
 
 public class VerifyOtpHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
+    private static final RateLimitRule VERIFY_PER_IP = RateLimitRule.fromEnv("otp-verify-ip", 20, 60);
+    private static final RateLimitRule VERIFY_PER_ACCOUNT = RateLimitRule.fromEnv("otp-verify-account", 10, 600);
+
     private final SecretsManagerHelper secretsManagerHelper;
     private final Gson gson;
 
@@ -27,22 +37,38 @@ public class VerifyOtpHandler implements RequestHandler<APIGatewayProxyRequestEv
         String secretName = System.getenv("DB_SECRET");
 
         this.secretsManagerHelper = SecretsManagerHelper.getInstance(String.valueOf(region), secretName);
-        this.gson = new GsonBuilder().create();
+        this.gson = GsonFactory.getInstance();
+
+        SnapStartPriming.register(gson, secretsManagerHelper);
+        SnapStartPriming.addPrimer("jwt", JwtUtils::prime);
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent requestEvent, Context context) {
 
-        Map<String, String> requestBody = gson.fromJson(requestEvent.getBody(), Map.class);
+        Map<String, String> requestBody = gson.fromJson(RequestBodies.text(requestEvent), Map.class);
         String emailOrPhone = requestBody.get("email") != null ? requestBody.get("email") : requestBody.get("phoneNumber");
         String otp = requestBody.get("otp");
 
-        try {
+        if (emailOrPhone == null || emailOrPhone.isBlank()) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withBody(gson.toJson(Map.of("status", "error", "message", "Email or Phone number is required")));
+        }
 
-            String secret = secretsManagerHelper.getSecret();
-            Map<String, Object> secretMap = gson.fromJson(secret, Map.class);
+        // Every guess takes a token, so a caller cannot cycle through codes even across freshly issued OTPs
+        RateLimitDecision decision = RateLimiter.forEnvironment().tryAcquire(
+                RequestIdentity.keys(VERIFY_PER_IP, RequestIdentity.sourceIp(requestEvent), VERIFY_PER_ACCOUNT, emailOrPhone));
+        if (!decision.isAllowed()) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(429)
+                    .withHeaders(Map.of("Retry-After", String.valueOf(decision.getRetryAfterSeconds())))
+                    .withBody(gson.toJson(Map.of("status", "error", "message", "Too many OTP attempts, try again later")));
+        }
+
+        try {
 
-            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretMap);
+            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretsManagerHelper.getDatabaseCredentials());
             UserDAO userDAO = new UserDAO(dcm);
 
             User user = isValidEmail(emailOrPhone) ? userDAO.findUserByEmail(emailOrPhone) : userDAO.findUserByPhoneNumber(emailOrPhone);
@@ -52,7 +78,7 @@ public class VerifyOtpHandler implements RequestHandler<APIGatewayProxyRequestEv
                         .withBody(gson.toJson(Map.of("status", "error", "message", "User not found")));
             }
 
-            if (!userDAO.isOtpValid(user, otp)) {
+            if (!OtpStore.forEnvironment(userDAO).verify(user, otp)) {
                 return new APIGatewayProxyResponseEvent()
                         .withStatusCode(401)
                         .withBody(gson.toJson(Map.of("status", "error", "message", "Invalid OTP")));
@@ -0,0 +1,69 @@
+package playkosmos.notification;
+
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+import playkosmos.cache.LocalCache;
+import playkosmos.dbutil.RedisConnectionManager;
+import playkosmos.utils.EnvConfig;
+import playkosmos.utils.RuntimeLog;
+
+// Remembers delivered (user, otp) pairs for as long as the OTP can be used. Redis shares the record across
+// consumer containers; the per-container cache still catches SQS redeliveries to the same container without it.
+public class DeliveryDeduper {
+
+    private static DeliveryDeduper instance;
+    private final RedisCommands<String, String> commands;
+    private final LocalCache<String, Boolean> localCache;
+    private final long ttlSeconds;
+
+    public DeliveryDeduper(RedisCommands<String, String> commands, long ttlSeconds) {
+        this.commands = commands;
+        this.ttlSeconds = ttlSeconds;
+        this.localCache = new LocalCache<>("otp-delivered", 10_000, Long.MAX_VALUE, ttlSeconds * 1000, value -> 1);
+    }
+
+    public boolean isDelivered(String dedupeKey) {
+        if (localCache.get(dedupeKey) != null) {
+            return true;
+        }
+        if (commands != null) {
+            try {
+                return commands.exists(key(dedupeKey)) > 0;
+            } catch (RuntimeException e) {
+                // A duplicate OTP message is better than a missing one
+                RuntimeLog.log("OTP delivery dedupe lookup failed: " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    public void markDelivered(String dedupeKey) {
+        localCache.put(dedupeKey, Boolean.TRUE);
+        if (commands != null) {
+            try {
+                commands.set(key(dedupeKey), "1", SetArgs.Builder.ex(ttlSeconds));
+            } catch (RuntimeException e) {
+                RuntimeLog.log("OTP delivery dedupe write failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static String key(String dedupeKey) {
+        return "otp_delivered:" + dedupeKey;
+    }
+
+    public static synchronized DeliveryDeduper getInstance() {
+        if (instance == null) {
+            RedisCommands<String, String> commands = null;
+            if (RedisConnectionManager.isConfigured()) {
+                try {
+                    commands = RedisConnectionManager.getInstance().sync();
+                } catch (RuntimeException e) {
+                    RuntimeLog.log("OTP delivery dedupe is container-local, Redis is unavailable: " + e.getMessage());
+                }
+            }
+            instance = new DeliveryDeduper(commands, EnvConfig.longEnv("OTP_TTL_SECONDS", 300));
+        }
+        return instance;
+    }
+}
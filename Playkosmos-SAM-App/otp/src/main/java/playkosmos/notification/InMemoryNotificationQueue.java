@@ -0,0 +1,65 @@
+package playkosmos.notification;
+
+import playkosmos.utils.RuntimeLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Local and test stand-in for SQS. Tests enqueue and drain batches by hand; getInstance() also starts a daemon
+// consumer that feeds drained batches to the default OtpDeliveryProcessor.
+public class InMemoryNotificationQueue implements NotificationQueue {
+
+    private static InMemoryNotificationQueue instance;
+    private final BlockingQueue<OtpDelivery> deliveries = new LinkedBlockingQueue<>();
+
+    @Override
+    public void enqueue(OtpDelivery delivery) {
+        deliveries.add(delivery);
+    }
+
+    // Waits up to timeoutMillis for the first delivery, then takes whatever else is already queued
+    public List<OtpDelivery> drain(int maxBatchSize, long timeoutMillis) throws InterruptedException {
+        List<OtpDelivery> batch = new ArrayList<>();
+        OtpDelivery first = deliveries.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (first != null) {
+            batch.add(first);
+            deliveries.drainTo(batch, maxBatchSize - 1);
+        }
+        return batch;
+    }
+
+    public int size() {
+        return deliveries.size();
+    }
+
+    public void startConsumer(OtpDeliveryProcessor processor, int maxBatchSize) {
+        Thread consumer = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    List<OtpDelivery> batch = drain(maxBatchSize, 1_000);
+                    if (!batch.isEmpty()) {
+                        // Nothing redelivers locally, so failures are only logged by the processor
+                        processor.process(batch);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    RuntimeLog.log("OTP delivery consumer failed: " + e.getMessage());
+                }
+            }
+        }, "otp-delivery");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    public static synchronized InMemoryNotificationQueue getInstance() {
+        if (instance == null) {
+            instance = new InMemoryNotificationQueue();
+            instance.startConsumer(OtpDeliveryProcessor.getInstance(), 10);
+        }
+        return instance;
+    }
+}
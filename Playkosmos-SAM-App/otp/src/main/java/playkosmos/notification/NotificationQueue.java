@@ -0,0 +1,21 @@
+package playkosmos.notification;
+
+// Where RequestOtpHandler hands off OTP deliveries so no SMTP or SNS I/O runs on the request path. SQS in
+// deployed stacks (OTP_QUEUE_URL), otherwise, for tests and local runs only, an in-process queue with its own
+// consumer thread. Lambda freezes that thread as soon as the response is returned, so inside Lambda a missing
+// OTP_QUEUE_URL fails the cold start rather than silently never sending OTPs.
+public interface NotificationQueue {
+
+    void enqueue(OtpDelivery delivery);
+
+    static NotificationQueue forEnvironment() {
+        String queueUrl = System.getenv("OTP_QUEUE_URL");
+        if (queueUrl != null && !queueUrl.isBlank()) {
+            return SqsNotificationQueue.getInstance();
+        }
+        if (System.getenv("AWS_LAMBDA_FUNCTION_NAME") != null) {
+            throw new IllegalStateException("OTP_QUEUE_URL is not set");
+        }
+        return InMemoryNotificationQueue.getInstance();
+    }
+}
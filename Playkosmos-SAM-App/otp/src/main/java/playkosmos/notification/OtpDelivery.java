@@ -0,0 +1,24 @@
+package playkosmos.notification;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString(exclude = "otp")
+public class OtpDelivery {
+
+    public enum Channel { EMAIL, SMS }
+
+    private long userId;
+    private Channel channel;
+    private String destination;
+    private String otp;
+    private long requestedAt;
+
+    // The same OTP for the same user is only ever delivered once, however often it is enqueued or redelivered
+    public String dedupeKey() {
+        return userId + ":" + otp;
+    }
+}
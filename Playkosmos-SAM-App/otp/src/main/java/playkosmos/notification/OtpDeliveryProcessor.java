@@ -0,0 +1,105 @@
+package playkosmos.notification;
+
+import playkosmos.utils.EnvConfig;
+import playkosmos.utils.RuntimeLog;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Delivers one batch from the notification queue. Duplicates of a (user, otp) pair are skipped, each delivery is
+// retried with exponential backoff and jitter, and deliveries that still fail are returned so the queue can
+// redeliver them later. OTPs older than their TTL are dropped since they can no longer be verified.
+public class OtpDeliveryProcessor {
+
+    private static OtpDeliveryProcessor instance;
+    private final Map<OtpDelivery.Channel, OtpSender> senders;
+    private final DeliveryDeduper deduper;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxAgeMillis;
+
+    public OtpDeliveryProcessor(Map<OtpDelivery.Channel, OtpSender> senders, DeliveryDeduper deduper,
+                                int maxAttempts, long backoffMillis, long maxAgeMillis) {
+        this.senders = senders;
+        this.deduper = deduper;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMillis = backoffMillis;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    public List<OtpDelivery> process(List<OtpDelivery> batch) {
+        List<OtpDelivery> failed = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        long now = System.currentTimeMillis();
+
+        for (OtpDelivery delivery : batch) {
+            String dedupeKey = delivery.dedupeKey();
+            if (!seen.add(dedupeKey) || deduper.isDelivered(dedupeKey)) {
+                continue;
+            }
+            if (now - delivery.getRequestedAt() > maxAgeMillis) {
+                RuntimeLog.log("Dropping expired OTP delivery " + delivery);
+                continue;
+            }
+            OtpSender sender = senders.get(delivery.getChannel());
+            if (sender == null) {
+                RuntimeLog.log("No sender for OTP delivery " + delivery);
+                continue;
+            }
+
+            if (deliver(sender, delivery)) {
+                deduper.markDelivered(dedupeKey);
+            } else {
+                failed.add(delivery);
+            }
+        }
+        return failed;
+    }
+
+    private boolean deliver(OtpSender sender, OtpDelivery delivery) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                sender.send(delivery);
+                return true;
+            } catch (Exception e) {
+                RuntimeLog.log("OTP delivery attempt " + attempt + " failed for " + delivery + ": " + e.getMessage());
+                if (attempt < maxAttempts && !backoff(attempt)) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean backoff(int attempt) {
+        if (backoffMillis <= 0) {
+            return true;
+        }
+        long delay = backoffMillis * (1L << (attempt - 1));
+        try {
+            Thread.sleep(delay + ThreadLocalRandom.current().nextLong(backoffMillis));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public static synchronized OtpDeliveryProcessor getInstance() {
+        if (instance == null) {
+            Map<OtpDelivery.Channel, OtpSender> senders = new EnumMap<>(OtpDelivery.Channel.class);
+            senders.put(OtpDelivery.Channel.EMAIL, SmtpOtpSender.getInstance());
+            senders.put(OtpDelivery.Channel.SMS, SnsOtpSender.getInstance());
+            instance = new OtpDeliveryProcessor(senders, DeliveryDeduper.getInstance(),
+                    EnvConfig.intEnv("OTP_DELIVERY_MAX_ATTEMPTS", 3),
+                    EnvConfig.longEnv("OTP_DELIVERY_BACKOFF_MS", 200),
+                    EnvConfig.longEnv("OTP_TTL_SECONDS", 300) * 1000);
+        }
+        return instance;
+    }
+}
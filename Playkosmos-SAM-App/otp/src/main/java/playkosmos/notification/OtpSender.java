@@ -0,0 +1,6 @@
+package playkosmos.notification;
+
+public interface OtpSender {
+
+    void send(OtpDelivery delivery) throws Exception;
+}
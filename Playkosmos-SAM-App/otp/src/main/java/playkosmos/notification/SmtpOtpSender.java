@@ -0,0 +1,87 @@
+package playkosmos.notification;
+
+import playkosmos.utils.EnvConfig;
+
+import javax.mail.Message;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+import java.util.Properties;
+
+// Keeps one authenticated SMTP SSL connection open across deliveries instead of paying the TCP, TLS and AUTH
+// handshakes per message the way Transport.send does. A failed send drops the connection so the retry reconnects.
+public class SmtpOtpSender implements OtpSender, AutoCloseable {
+
+    private static SmtpOtpSender instance;
+    private final Session session;
+    private final String username;
+    private final String password;
+    private Transport transport;
+
+    public SmtpOtpSender(String host, int port, String username, String password) {
+        Properties props = new Properties();
+        props.put("mail.smtp.host", host);
+        props.put("mail.smtp.port", String.valueOf(port));
+        props.put("mail.smtp.auth", "true");
+        props.put("mail.smtp.socketFactory.port", String.valueOf(port));
+        props.put("mail.smtp.socketFactory.class", "javax.net.ssl.SSLSocketFactory");
+        props.put("mail.smtp.socketFactory.fallback", "false");
+        props.put("mail.smtp.ssl.enable", "true");
+        props.put("mail.smtp.connectiontimeout", "5000");
+        props.put("mail.smtp.timeout", "5000");
+
+        this.session = Session.getInstance(props);
+        this.username = username;
+        this.password = password;
+    }
+
+    @Override
+    public synchronized void send(OtpDelivery delivery) throws MessagingException {
+        Message message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(username));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(delivery.getDestination()));
+        message.setSubject("Your OTP Code");
+        message.setText("Dear User,\n\nYour OTP code is: " + delivery.getOtp() + "\n\nThank you.");
+        message.saveChanges();
+
+        try {
+            connectedTransport().sendMessage(message, message.getAllRecipients());
+        } catch (MessagingException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private Transport connectedTransport() throws MessagingException {
+        if (transport == null || !transport.isConnected()) {
+            transport = session.getTransport("smtp");
+            transport.connect(username, password);
+        }
+        return transport;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                // Already broken; the next send opens a fresh connection
+            }
+            transport = null;
+        }
+    }
+
+    public static synchronized SmtpOtpSender getInstance() {
+        if (instance == null) {
+            instance = new SmtpOtpSender(
+                    EnvConfig.stringEnv("SMTP_HOST", "smtp.gmail.com"),
+                    EnvConfig.intEnv("SMTP_PORT", 465),
+                    EnvConfig.requiredEnv("SMTP_USERNAME"),
+                    EnvConfig.requiredEnv("SMTP_PASSWORD"));
+        }
+        return instance;
+    }
+}
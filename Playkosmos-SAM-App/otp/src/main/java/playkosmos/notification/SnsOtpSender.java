@@ -0,0 +1,32 @@
+package playkosmos.notification;
+
+import playkosmos.utils.AwsClientFactory;
+import software.amazon.awssdk.services.sns.SnsClient;
+import software.amazon.awssdk.services.sns.model.PublishRequest;
+
+public class SnsOtpSender implements OtpSender {
+
+    private static SnsOtpSender instance;
+    private final SnsClient snsClient;
+
+    public SnsOtpSender(SnsClient snsClient) {
+        this.snsClient = snsClient;
+    }
+
+    @Override
+    public void send(OtpDelivery delivery) {
+        PublishRequest request = PublishRequest.builder()
+                .message("Your OTP code is: " + delivery.getOtp())
+                .phoneNumber(delivery.getDestination())
+                .build();
+
+        snsClient.publish(request);
+    }
+
+    public static synchronized SnsOtpSender getInstance() {
+        if (instance == null) {
+            instance = new SnsOtpSender(AwsClientFactory.getClient(SnsClient.class, SnsClient::builder));
+        }
+        return instance;
+    }
+}
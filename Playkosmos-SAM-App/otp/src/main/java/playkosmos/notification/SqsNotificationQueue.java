@@ -0,0 +1,46 @@
+package playkosmos.notification;
+
+import com.google.gson.Gson;
+import playkosmos.json.GsonFactory;
+import playkosmos.utils.AwsClientFactory;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+// Deliveries are consumed in batches by OtpDeliveryHandler through the queue's event source mapping
+public class SqsNotificationQueue implements NotificationQueue {
+
+    private static final Gson GSON = GsonFactory.getInstance();
+
+    private static SqsNotificationQueue instance;
+    private final SqsClient sqsClient;
+    private final String queueUrl;
+
+    public SqsNotificationQueue(SqsClient sqsClient, String queueUrl) {
+        this.sqsClient = sqsClient;
+        this.queueUrl = queueUrl;
+    }
+
+    @Override
+    public void enqueue(OtpDelivery delivery) {
+        try {
+            sqsClient.sendMessage(SendMessageRequest.builder()
+                    .queueUrl(queueUrl)
+                    .messageBody(GSON.toJson(delivery))
+                    .build());
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to enqueue OTP delivery for user " + delivery.getUserId(), e);
+        }
+    }
+
+    public static OtpDelivery parse(String body) {
+        return GSON.fromJson(body, OtpDelivery.class);
+    }
+
+    public static synchronized SqsNotificationQueue getInstance() {
+        if (instance == null) {
+            instance = new SqsNotificationQueue(AwsClientFactory.getClient(SqsClient.class, SqsClient::builder),
+                    System.getenv("OTP_QUEUE_URL"));
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,24 @@
+package playkosmos.otp;
+
+import lombok.RequiredArgsConstructor;
+import playkosmos.dao.UserDAO;
+import playkosmos.entity.User;
+
+import java.sql.SQLException;
+
+// Fallback for environments without REDIS_URL, backed by otp_table
+@RequiredArgsConstructor
+public class DatabaseOtpStore implements OtpStore {
+
+    private final UserDAO userDAO;
+
+    @Override
+    public void save(User user, String otp) throws SQLException {
+        userDAO.saveOtpToDatabase(user, otp);
+    }
+
+    @Override
+    public boolean verify(User user, String otp) throws SQLException {
+        return userDAO.isOtpValid(user, otp);
+    }
+}
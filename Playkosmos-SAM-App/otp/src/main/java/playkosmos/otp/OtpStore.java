@@ -0,0 +1,25 @@
+package playkosmos.otp;
+
+import playkosmos.dao.UserDAO;
+import playkosmos.dbutil.RedisConnectionManager;
+import playkosmos.entity.User;
+
+import java.sql.SQLException;
+
+// Holds issued OTPs until they are verified or expire. RequestOtpHandler and VerifyOtpHandler must resolve the
+// same store, so both go through forEnvironment.
+public interface OtpStore {
+
+    void save(User user, String otp) throws SQLException;
+
+    // RedisOtpStore also consumes the OTP on a successful check, so it verifies at most once, and deletes it after
+    // too many wrong guesses
+    boolean verify(User user, String otp) throws SQLException;
+
+    static OtpStore forEnvironment(UserDAO userDAO) {
+        if (RedisConnectionManager.isConfigured()) {
+            return RedisOtpStore.getInstance();
+        }
+        return new DatabaseOtpStore(userDAO);
+    }
+}
@@ -0,0 +1,95 @@
+package playkosmos.otp;
+
+import io.lettuce.core.RedisNoScriptException;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.sync.RedisCommands;
+import playkosmos.dbutil.RedisConnectionManager;
+import playkosmos.entity.User;
+import playkosmos.utils.EnvConfig;
+
+// One SET EX per issued OTP on the shared Lettuce connection; Redis expires the key, so nothing is cleaned up.
+// Wrong guesses are counted next to the OTP and the OTP is deleted after OTP_MAX_ATTEMPTS of them, so a 6 digit
+// code cannot be brute-forced within its TTL.
+public class RedisOtpStore implements OtpStore {
+
+    // KEYS[1] OTP, KEYS[2] failed attempts; ARGV[1] guess, ARGV[2] max attempts. The check, the count and the
+    // delete run as one script so concurrent guesses cannot all slip in under the limit.
+    static final String VERIFY_SCRIPT =
+            "local stored = redis.call('GET', KEYS[1])\n" +
+            "if not stored then\n" +
+            "  return 0\n" +
+            "end\n" +
+            "if stored == ARGV[1] then\n" +
+            "  redis.call('DEL', KEYS[1], KEYS[2])\n" +
+            "  return 1\n" +
+            "end\n" +
+            "local attempts = redis.call('INCR', KEYS[2])\n" +
+            "if attempts >= tonumber(ARGV[2]) then\n" +
+            "  redis.call('DEL', KEYS[1], KEYS[2])\n" +
+            "else\n" +
+            "  redis.call('PEXPIRE', KEYS[2], math.max(1, redis.call('PTTL', KEYS[1])))\n" +
+            "end\n" +
+            "return 0\n";
+
+    private static RedisOtpStore instance;
+    private final RedisCommands<String, String> commands;
+    private final long ttlSeconds;
+    private final int maxAttempts;
+    private volatile String scriptSha;
+
+    public RedisOtpStore(RedisCommands<String, String> commands, long ttlSeconds, int maxAttempts) {
+        this.commands = commands;
+        this.ttlSeconds = ttlSeconds;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public void save(User user, String otp) {
+        // Overwrites any OTP still pending for the user, so only the latest one verifies, and starts its count afresh
+        commands.del(attemptsKey(user));
+        commands.set(key(user), otp, SetArgs.Builder.ex(ttlSeconds));
+    }
+
+    @Override
+    public boolean verify(User user, String otp) {
+        if (otp == null) {
+            return false;
+        }
+        // Only the request whose script deletes the key wins, so concurrent verifications cannot both succeed
+        String[] keys = {key(user), attemptsKey(user)};
+        return eval(keys, otp, String.valueOf(maxAttempts)) == 1;
+    }
+
+    private Long eval(String[] keys, String... args) {
+        String sha = scriptSha;
+        if (sha == null) {
+            sha = commands.scriptLoad(VERIFY_SCRIPT);
+            scriptSha = sha;
+        }
+        try {
+            return commands.evalsha(sha, ScriptOutputType.INTEGER, keys, args);
+        } catch (RedisNoScriptException e) {
+            // The script cache was flushed, e.g. by a failover
+            scriptSha = null;
+            return commands.eval(VERIFY_SCRIPT, ScriptOutputType.INTEGER, keys, args);
+        }
+    }
+
+    private static String key(User user) {
+        return "otp:" + user.getId();
+    }
+
+    private static String attemptsKey(User user) {
+        return "otp_attempts:" + user.getId();
+    }
+
+    public static synchronized RedisOtpStore getInstance() {
+        if (instance == null) {
+            instance = new RedisOtpStore(RedisConnectionManager.getInstance().sync(),
+                    EnvConfig.longEnv("OTP_TTL_SECONDS", 300),
+                    EnvConfig.intEnv("OTP_MAX_ATTEMPTS", 5));
+        }
+        return instance;
+    }
+}
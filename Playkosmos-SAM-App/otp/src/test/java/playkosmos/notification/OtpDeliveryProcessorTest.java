@@ -0,0 +1,117 @@
+package playkosmos.notification;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Drives the processor from the in-memory queue with recording senders, so no SMTP, SNS or SQS is involved
+public class OtpDeliveryProcessorTest {
+
+    private InMemoryNotificationQueue queue;
+    private RecordingSender email;
+    private RecordingSender sms;
+    private OtpDeliveryProcessor processor;
+
+    @Before
+    public void setUp() {
+        queue = new InMemoryNotificationQueue();
+        email = new RecordingSender();
+        sms = new RecordingSender();
+        Map<OtpDelivery.Channel, OtpSender> senders = new EnumMap<>(OtpDelivery.Channel.class);
+        senders.put(OtpDelivery.Channel.EMAIL, email);
+        senders.put(OtpDelivery.Channel.SMS, sms);
+        processor = new OtpDeliveryProcessor(senders, new DeliveryDeduper(null, 300), 3, 0, 300_000);
+    }
+
+    @Test
+    public void deliversEachChannelInOneBatch() throws InterruptedException {
+        queue.enqueue(delivery(1, OtpDelivery.Channel.EMAIL, "a@example.com", "111111"));
+        queue.enqueue(delivery(2, OtpDelivery.Channel.SMS, "+2348000000000", "222222"));
+
+        List<OtpDelivery> failed = processor.process(queue.drain(10, 0));
+
+        assertTrue(failed.isEmpty());
+        assertEquals(List.of("111111"), email.sent);
+        assertEquals(List.of("222222"), sms.sent);
+    }
+
+    @Test
+    public void dedupesOnUserAndOtpWithinAndAcrossBatches() throws InterruptedException {
+        queue.enqueue(delivery(1, OtpDelivery.Channel.EMAIL, "a@example.com", "111111"));
+        queue.enqueue(delivery(1, OtpDelivery.Channel.EMAIL, "a@example.com", "111111"));
+        processor.process(queue.drain(10, 0));
+
+        // An SQS redelivery of an already delivered message
+        queue.enqueue(delivery(1, OtpDelivery.Channel.EMAIL, "a@example.com", "111111"));
+        processor.process(queue.drain(10, 0));
+
+        // A new OTP for the same user is not a duplicate
+        queue.enqueue(delivery(1, OtpDelivery.Channel.EMAIL, "a@example.com", "333333"));
+        processor.process(queue.drain(10, 0));
+
+        assertEquals(List.of("111111", "333333"), email.sent);
+    }
+
+    @Test
+    public void retriesTransientFailures() throws InterruptedException {
+        email.failuresBeforeSuccess = 2;
+        queue.enqueue(delivery(1, OtpDelivery.Channel.EMAIL, "a@example.com", "111111"));
+
+        List<OtpDelivery> failed = processor.process(queue.drain(10, 0));
+
+        assertTrue(failed.isEmpty());
+        assertEquals(3, email.attempts);
+        assertEquals(List.of("111111"), email.sent);
+    }
+
+    @Test
+    public void returnsDeliveriesThatExhaustRetriesAndAllowsRedelivery() throws InterruptedException {
+        email.failuresBeforeSuccess = 3;
+        OtpDelivery delivery = delivery(1, OtpDelivery.Channel.EMAIL, "a@example.com", "111111");
+        queue.enqueue(delivery);
+
+        List<OtpDelivery> failed = processor.process(queue.drain(10, 0));
+        assertEquals(List.of(delivery), failed);
+
+        // The failed delivery was not recorded, so the queue's redelivery goes out
+        List<OtpDelivery> retried = processor.process(failed);
+        assertTrue(retried.isEmpty());
+        assertEquals(List.of("111111"), email.sent);
+    }
+
+    @Test
+    public void dropsExpiredOtps() throws InterruptedException {
+        OtpDelivery stale = delivery(1, OtpDelivery.Channel.SMS, "+2348000000000", "111111");
+        stale.setRequestedAt(System.currentTimeMillis() - 600_000);
+        queue.enqueue(stale);
+
+        assertTrue(processor.process(queue.drain(10, 0)).isEmpty());
+        assertEquals(0, sms.attempts);
+    }
+
+    private static OtpDelivery delivery(long userId, OtpDelivery.Channel channel, String destination, String otp) {
+        return new OtpDelivery(userId, channel, destination, otp, System.currentTimeMillis());
+    }
+
+    private static final class RecordingSender implements OtpSender {
+        private final List<String> sent = new ArrayList<>();
+        private int failuresBeforeSuccess;
+        private int attempts;
+
+        @Override
+        public void send(OtpDelivery delivery) throws Exception {
+            attempts++;
+            if (failuresBeforeSuccess-- > 0) {
+                throw new Exception("connection reset");
+            }
+            sent.add(delivery.getOtp());
+        }
+    }
+}
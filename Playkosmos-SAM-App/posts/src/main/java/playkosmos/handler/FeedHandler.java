@@ -0,0 +1,108 @@
+package playkosmos.handler;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import playkosmos.cache.PostCache;
+import playkosmos.dao.FollowDAO;
+import playkosmos.dao.Page;
+import playkosmos.dao.PostDAO;
+import playkosmos.dao.UserDAO;
+import playkosmos.dbutil.DatabaseConnectionManager;
+import playkosmos.entity.Post;
+import playkosmos.entity.User;
+import playkosmos.feed.FeedService;
+import playkosmos.streaming.StreamingRequest;
+import playkosmos.streaming.StreamingResponse;
+import playkosmos.utils.ETags;
+import playkosmos.utils.SecretsManagerHelper;
+import playkosmos.utils.SnapStartPriming;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// GET /users/{userId}/feed?cursor=...&limit=...&fields=... pages the user's timeline and hydrates it with the batch post fetch.
+// A timeline also reveals who the user follows, so only the user themselves may read it. A page of full posts is
+// tagged from its posts' ETags and next cursor, so If-None-Match is answered before the posts are loaded.
+public class FeedHandler extends StreamingHandler {
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    private final SecretsManagerHelper secretsManagerHelper;
+    private final PostCache postCache;
+    private final FeedService feedService;
+
+    public FeedHandler() {
+        String region = System.getenv("REGION_NAME");
+        String secretName = System.getenv("DB_SECRET");
+
+        this.secretsManagerHelper = SecretsManagerHelper.getInstance(region, secretName);
+        this.postCache = PostCache.getInstance(gson);
+        this.feedService = FeedService.getInstance();
+
+        SnapStartPriming.register(gson, secretsManagerHelper);
+    }
+
+    @Override
+    protected StreamingResponse handle(StreamingRequest request, Context context) {
+        String username = request.getPrincipalId();
+
+        if (username == null || username.isEmpty()) {
+            return StreamingResponse.error(401, "Authorization failed: Missing username");
+        }
+
+        long userId;
+        Long cursor;
+        int limit;
+        Set<PostDAO.PostField> fields;
+        try {
+            userId = Long.parseLong(request.getPathParameter("userId"));
+            String cursorParam = request.getQueryParameter("cursor");
+            cursor = cursorParam == null || cursorParam.isBlank() ? null : Long.parseLong(cursorParam);
+            String limitParam = request.getQueryParameter("limit");
+            limit = limitParam != null ? Integer.parseInt(limitParam) : DEFAULT_PAGE_SIZE;
+            fields = PostDAO.PostField.parse(request.getQueryParameter("fields"));
+        } catch (IllegalArgumentException e) {
+            return StreamingResponse.error(400, "Invalid user ID, cursor, limit or fields");
+        }
+        boolean fullPosts = fields.equals(PostDAO.PostField.ALL);
+
+        try {
+            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretsManagerHelper.getDatabaseCredentials());
+
+            // Checked before the read, which may rebuild the feed from MySQL
+            User caller = new UserDAO(dcm).findUserByUsername(username);
+            if (caller == null || caller.getId() != userId) {
+                return StreamingResponse.error(403, "Only the user can read their feed");
+            }
+
+            PostDAO postDAO = new PostDAO(dcm);
+
+            Page<Long> page = feedService.read(new FollowDAO(dcm), postDAO, userId, cursor, limit);
+            String nextCursor = String.valueOf(page.getNextCursor());
+
+            String ifNoneMatch = request.getHeader("If-None-Match");
+            if (fullPosts && ifNoneMatch != null) {
+                String matched = ETags.match(ifNoneMatch, postCache.getCachedListETag(page.getItems(), nextCursor));
+                if (matched != null) {
+                    return StreamingResponse.notModified(matched);
+                }
+            }
+
+            List<Post> posts = fullPosts
+                    ? postCache.getAll(page.getItems(), postDAO::getPostsByIds)
+                    : postDAO.getPostsByIds(page.getItems(), fields);
+
+            // Deleted posts are skipped, so a page may hold fewer posts than its IDs
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("posts", posts);
+            body.put("nextCursor", page.getNextCursor());
+            StreamingResponse response = StreamingResponse.ok(body);
+            return fullPosts ? response.withETag(postCache.getListETag(posts, nextCursor)) : response;
+
+        } catch (Exception e) {
+            context.getLogger().log("Error retrieving feed: " + e.getMessage());
+            return StreamingResponse.error(500, "Internal server error");
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package playkosmos.handler;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.google.gson.Gson;
+import playkosmos.dao.FollowDAO;
+import playkosmos.dao.UserDAO;
+import playkosmos.dbutil.DatabaseConnectionManager;
+import playkosmos.entity.User;
+import playkosmos.feed.FeedService;
+import playkosmos.json.GsonFactory;
+import playkosmos.utils.SecretsManagerHelper;
+import playkosmos.utils.SnapStartPriming;
+
+import java.util.Map;
+
+// POST /users/{userId}/follow follows userId and DELETE unfollows it; the follower is the authorized caller
+public class FollowHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    private final SecretsManagerHelper secretsManagerHelper;
+    private final Gson gson;
+    private final FeedService feedService;
+
+    public FollowHandler() {
+        String region = System.getenv("REGION_NAME");
+        String secretName = System.getenv("DB_SECRET");
+
+        this.secretsManagerHelper = SecretsManagerHelper.getInstance(region, secretName);
+        this.gson = GsonFactory.getInstance();
+        this.feedService = FeedService.getInstance();
+
+        SnapStartPriming.register(gson, secretsManagerHelper);
+    }
+
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent requestEvent, Context context) {
+        String username = (String) requestEvent.getRequestContext()
+                .getAuthorizer()
+                .get("principalId");
+
+        if (username == null || username.isEmpty()) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(401)
+                    .withBody("Authorization failed: Missing username");
+        }
+
+        long followeeId;
+        try {
+            followeeId = Long.parseLong(requestEvent.getPathParameters().get("userId"));
+        } catch (RuntimeException e) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(400)
+                    .withBody(gson.toJson(Map.of("status", "error", "message", "Invalid user ID")));
+        }
+
+        boolean unfollow = "DELETE".equalsIgnoreCase(requestEvent.getHttpMethod());
+        try {
+            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretsManagerHelper.getDatabaseCredentials());
+
+            User follower = new UserDAO(dcm).findUserByUsername(username);
+            if (follower == null) {
+                return new APIGatewayProxyResponseEvent()
+                        .withStatusCode(404)
+                        .withBody(gson.toJson(Map.of("status", "error", "message", "User not found")));
+            }
+            long followerId = follower.getId();
+            if (followerId == followeeId) {
+                return new APIGatewayProxyResponseEvent()
+                        .withStatusCode(400)
+                        .withBody(gson.toJson(Map.of("status", "error", "message", "Users cannot follow themselves")));
+            }
+
+            FollowDAO followDAO = new FollowDAO(dcm);
+
+            boolean changed = unfollow
+                    ? followDAO.unfollow(followerId, followeeId)
+                    : followDAO.follow(followerId, followeeId);
+            if (changed) {
+                try {
+                    if (unfollow) {
+                        feedService.onUnfollow(followerId, followeeId);
+                    } else {
+                        feedService.onFollow(followDAO, followerId, followeeId);
+                    }
+                } catch (RuntimeException e) {
+                    // The follow is committed; the feed catches up when it is next rebuilt
+                    context.getLogger().log("Error updating feed after follow change: " + e.getMessage());
+                }
+            }
+
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(200)
+                    .withBody(gson.toJson(Map.of("status", "success", "message", unfollow ? "Unfollowed" : "Followed")));
+
+        } catch (Exception e) {
+            context.getLogger().log("Error changing follow: " + e.getMessage());
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(500)
+                    .withBody(gson.toJson(Map.of("status", "error", "message", "Internal server error")));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package playkosmos.handler;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import playkosmos.cache.PostCache;
+import playkosmos.dao.PostDAO;
+import playkosmos.dbutil.DatabaseConnectionManager;
+import playkosmos.entity.Post;
+import playkosmos.streaming.StreamingRequest;
+import playkosmos.streaming.StreamingResponse;
+import playkosmos.utils.ETags;
+import playkosmos.utils.SecretsManagerHelper;
+import playkosmos.utils.SnapStartPriming;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// GET /posts?ids=1,2,3&fields=summary loads up to PostDAO.MAX_BATCH_SIZE posts in one invocation. Full posts go
+// through the post cache; projections are read straight from MySQL since the cache only holds full aggregates.
+// Full-post responses carry an ETag built from the posts' cached tags, so a matching If-None-Match is answered
+// without loading any post.
+public class PostBatchHandler extends StreamingHandler {
+
+    private final SecretsManagerHelper secretsManagerHelper;
+    private final PostCache postCache;
+
+    public PostBatchHandler() {
+        String region = System.getenv("REGION_NAME");
+        String secretName = System.getenv("DB_SECRET");
+
+        this.secretsManagerHelper = SecretsManagerHelper.getInstance(region, secretName);
+        this.postCache = PostCache.getInstance(gson);
+
+        SnapStartPriming.register(gson, secretsManagerHelper);
+    }
+
+    @Override
+    protected StreamingResponse handle(StreamingRequest request, Context context) {
+        List<Long> postIds = new ArrayList<>();
+        Set<PostDAO.PostField> fields;
+        try {
+            String ids = request.getQueryParameter("ids");
+            if (ids == null || ids.isBlank()) {
+                throw new IllegalArgumentException("ids is required");
+            }
+            for (String id : ids.split(",")) {
+                if (!id.isBlank()) {
+                    postIds.add(Long.parseLong(id.trim()));
+                }
+            }
+            if (postIds.size() > PostDAO.MAX_BATCH_SIZE) {
+                throw new IllegalArgumentException("Too many post IDs");
+            }
+            fields = PostDAO.PostField.parse(request.getQueryParameter("fields"));
+        } catch (IllegalArgumentException e) {
+            return StreamingResponse.error(400,
+                    "ids must be a comma-separated list of at most " + PostDAO.MAX_BATCH_SIZE + " post IDs; fields must be all, summary or a list of post fields");
+        }
+        boolean fullPosts = fields.equals(PostDAO.PostField.ALL);
+
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (fullPosts && ifNoneMatch != null) {
+            String matched = ETags.match(ifNoneMatch, postCache.getCachedListETag(postIds, ""));
+            if (matched != null) {
+                return StreamingResponse.notModified(matched);
+            }
+        }
+
+        try {
+            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretsManagerHelper.getDatabaseCredentials());
+            PostDAO postDAO = new PostDAO(dcm);
+
+            if (!fullPosts) {
+                return StreamingResponse.ok(Map.of("posts", postDAO.getPostsByIds(postIds, fields)));
+            }
+            List<Post> posts = postCache.getAll(postIds, postDAO::getPostsByIds);
+            return StreamingResponse.ok(Map.of("posts", posts)).withETag(postCache.getListETag(posts, ""));
+
+        } catch (Exception e) {
+            context.getLogger().log("Error retrieving posts: " + e.getMessage());
+            return StreamingResponse.error(500, "Internal server error");
+        }
+    }
+}
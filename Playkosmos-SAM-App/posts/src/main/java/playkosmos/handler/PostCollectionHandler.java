@@ -0,0 +1,74 @@
+package playkosmos.handler;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import playkosmos.dao.Page;
+import playkosmos.dao.PageCursor;
+import playkosmos.dao.PostDAO;
+import playkosmos.dbutil.DatabaseConnectionManager;
+import playkosmos.streaming.StreamingRequest;
+import playkosmos.streaming.StreamingResponse;
+import playkosmos.utils.SecretsManagerHelper;
+import playkosmos.utils.SnapStartPriming;
+
+// GET /posts/{postId}/{collection}?cursor=...&limit=... for comments, likes, reviews, questions and answers
+public class PostCollectionHandler extends StreamingHandler {
+
+    private final SecretsManagerHelper secretsManagerHelper;
+
+    public PostCollectionHandler() {
+        String region = System.getenv("REGION_NAME");
+        String secretName = System.getenv("DB_SECRET");
+
+        this.secretsManagerHelper = SecretsManagerHelper.getInstance(region, secretName);
+
+        SnapStartPriming.register(gson, secretsManagerHelper);
+    }
+
+    @Override
+    protected StreamingResponse handle(StreamingRequest request, Context context) {
+        long postId;
+        int limit;
+        PageCursor cursor;
+        try {
+            postId = Long.parseLong(request.getPathParameter("postId"));
+            limit = request.getQueryParameter("limit") != null
+                    ? Integer.parseInt(request.getQueryParameter("limit"))
+                    : PostDAO.EMBEDDED_PAGE_SIZE;
+            cursor = PageCursor.decode(request.getQueryParameter("cursor"));
+        } catch (IllegalArgumentException e) {
+            return StreamingResponse.error(400, "Invalid post ID, limit or cursor");
+        }
+
+        try {
+            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretsManagerHelper.getDatabaseCredentials());
+            PostDAO postDAO = new PostDAO(dcm);
+
+            Page<?> page;
+            switch (String.valueOf(request.getPathParameter("collection"))) {
+                case "comments":
+                    page = postDAO.getCommentsPage(postId, cursor, limit);
+                    break;
+                case "likes":
+                    page = postDAO.getLikesPage(postId, cursor, limit);
+                    break;
+                case "reviews":
+                    page = postDAO.getReviewsPage(postId, cursor, limit);
+                    break;
+                case "questions":
+                    page = postDAO.getQuestionsPage(postId, cursor, limit);
+                    break;
+                case "answers":
+                    page = postDAO.getAnswersPage(postId, cursor, limit);
+                    break;
+                default:
+                    return StreamingResponse.error(404, "Unknown collection");
+            }
+
+            return StreamingResponse.ok(page);
+
+        } catch (Exception e) {
+            context.getLogger().log("Error retrieving post collection: " + e.getMessage());
+            return StreamingResponse.error(500, "Internal server error");
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package playkosmos.handler;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.google.gson.JsonParseException;
+import playkosmos.cache.PostCache;
+import playkosmos.cbor.EntityCbor;
+import playkosmos.dao.FollowDAO;
+import playkosmos.dao.PostDAO;
+import playkosmos.dao.UserDAO;
+import playkosmos.dbutil.DatabaseConnectionManager;
+import playkosmos.entity.Post;
+import playkosmos.entity.User;
+import playkosmos.feed.FeedService;
+import playkosmos.streaming.StreamingRequest;
+import playkosmos.streaming.StreamingResponse;
+import playkosmos.streaming.WireFormat;
+import playkosmos.utils.SecretsManagerHelper;
+import playkosmos.utils.SnapStartPriming;
+import software.amazon.awssdk.regions.Region;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Map;
+
+// Accepts the post as JSON or, with Content-Type: application/cbor, in the CBOR wire format. The author is the
+// authorized caller; a body userId naming anyone else is refused.
+public class PostCreationHandler extends StreamingHandler {
+
+    private final SecretsManagerHelper secretsManagerHelper;
+    private final PostCache postCache;
+    private final FeedService feedService;
+
+    public PostCreationHandler() {
+        Region region = Region.of(System.getenv("REGION_NAME"));
+        String secretName = System.getenv("DB_SECRET");
+
+        this.secretsManagerHelper = SecretsManagerHelper.getInstance(String.valueOf(region), secretName);
+        this.postCache = PostCache.getInstance(gson);
+        this.feedService = FeedService.getInstance();
+
+        SnapStartPriming.register(gson, secretsManagerHelper);
+    }
+
+    @Override
+    protected StreamingResponse handle(StreamingRequest request, Context context) {
+        String username = request.getPrincipalId();
+        if (username == null || username.isEmpty()) {
+            return StreamingResponse.error(401, "Authorization failed: Missing username");
+        }
+
+        // Without a binary media type covering application/cbor, API Gateway hands the body over as text and the
+        // non-UTF-8 bytes are already lost
+        boolean cbor = WireFormat.fromContentType(request.getHeader("Content-Type")) == WireFormat.CBOR;
+        if (cbor && request.getBody() != null && !request.isBase64Encoded()) {
+            return StreamingResponse.error(415, "CBOR request bodies are not enabled for this API");
+        }
+
+        Post post;
+        try {
+            post = readPost(request);
+        } catch (IOException | JsonParseException | IllegalArgumentException e) {
+            return StreamingResponse.error(400, "Invalid post");
+        }
+        if (post == null) {
+            return StreamingResponse.error(400, "Invalid post");
+        }
+
+        try {
+            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretsManagerHelper.getDatabaseCredentials());
+
+            User author = new UserDAO(dcm).findUserByUsername(username);
+            if (author == null) {
+                return StreamingResponse.error(404, "User not found");
+            }
+            if (post.getUserId() != null && !post.getUserId().equals(author.getId())) {
+                return StreamingResponse.error(403, "Posts can only be created as the authorized user");
+            }
+            post.setUserId(author.getId());
+
+            PostDAO postDAO = new PostDAO(dcm);
+            postDAO.savePost(post);
+            postCache.invalidate(post.getPostId());
+            try {
+                feedService.publish(new FollowDAO(dcm), post);
+            } catch (SQLException | RuntimeException e) {
+                // The post is committed; followers still see it once their feed is rebuilt from MySQL
+                context.getLogger().log("Error fanning out post " + post.getPostId() + ": " + e.getMessage());
+            }
+
+            return StreamingResponse.ok(Map.of("status", "success", "message", "Post created successfully"));
+
+        } catch (SQLException e) {
+            LambdaLogger logger = context.getLogger();
+            logger.log("Error creating post: " + e.getMessage());
+            return StreamingResponse.error(500, e.getMessage());
+        }
+    }
+
+    private Post readPost(StreamingRequest request) throws IOException {
+        byte[] body = request.getBodyBytes();
+        if (WireFormat.fromContentType(request.getHeader("Content-Type")) == WireFormat.CBOR) {
+            return EntityCbor.readPost(body);
+        }
+        return gson.fromJson(new String(body, StandardCharsets.UTF_8), Post.class);
+    }
+}
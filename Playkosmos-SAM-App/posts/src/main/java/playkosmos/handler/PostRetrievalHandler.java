@@ -0,0 +1,64 @@
+package playkosmos.handler;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import playkosmos.cache.PostCache;
+import playkosmos.dao.PostDAO;
+import playkosmos.dbutil.DatabaseConnectionManager;
+import playkosmos.entity.Post;
+import playkosmos.streaming.StreamingRequest;
+import playkosmos.streaming.StreamingResponse;
+import playkosmos.utils.ETags;
+import playkosmos.utils.SecretsManagerHelper;
+import playkosmos.utils.SnapStartPriming;
+
+public class PostRetrievalHandler extends StreamingHandler {
+
+    private final SecretsManagerHelper secretsManagerHelper;
+    private final PostCache postCache;
+
+    public PostRetrievalHandler() {
+        String region = System.getenv("REGION_NAME");
+        String secretName = System.getenv("DB_SECRET");
+
+        this.secretsManagerHelper = SecretsManagerHelper.getInstance(region, secretName);
+        this.postCache = PostCache.getInstance(gson);
+
+        SnapStartPriming.register(gson, secretsManagerHelper);
+    }
+
+    @Override
+    protected StreamingResponse handle(StreamingRequest request, Context context) {
+        long postId;
+
+        try {
+            postId = Long.parseLong(request.getPathParameter("postId"));
+        } catch (NumberFormatException e) {
+            return StreamingResponse.error(400, "Invalid post ID");
+        }
+
+        // A client that already holds the current representation gets a 304 before the aggregate is loaded
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            String matched = ETags.match(ifNoneMatch, postCache.getETag(postId));
+            if (matched != null) {
+                return StreamingResponse.notModified(matched);
+            }
+        }
+
+        try {
+            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretsManagerHelper.getDatabaseCredentials());
+            PostDAO postDAO = new PostDAO(dcm);
+
+            Post post = postCache.get(postId, postDAO::getPostAggregateById);
+            if (post == null) {
+                return StreamingResponse.error(404, "Post not found");
+            }
+
+            return StreamingResponse.ok(post).withETag(postCache.getETag(post));
+
+        } catch (Exception e) {
+            context.getLogger().log("Error retrieving post: " + e.getMessage());
+            return StreamingResponse.error(500, "Internal server error");
+        }
+    }
+}
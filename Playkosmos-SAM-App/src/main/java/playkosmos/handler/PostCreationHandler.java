@@ -1,64 +0,0 @@
-package playkosmos.handler;
-
-import com.amazonaws.services.lambda.runtime.Context;
-import com.amazonaws.services.lambda.runtime.LambdaLogger;
-import com.amazonaws.services.lambda.runtime.RequestHandler;
-import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
-import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import playkosmos.dao.PostDAO;
-import playkosmos.dbutil.DatabaseConnectionManager;
-import playkosmos.entity.Post;
-import playkosmos.utils.LocalDateTimeTypeAdapter;
-import playkosmos.utils.LocalDateTypeAdapter;
-import playkosmos.utils.SecretsManagerHelper;
-import software.amazon.awssdk.regions.Region;
-
-import java.sql.SQLException;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.Map;
-
-public class PostCreationHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
-
-    private final SecretsManagerHelper secretsManagerHelper;
-    private final Gson gson;
-
-    public PostCreationHandler() {
-        Region region = Region.of(System.getenv("REGION_NAME"));
-        String secretName = System.getenv("DB_SECRET");
-
-        this.secretsManagerHelper = SecretsManagerHelper.getInstance(String.valueOf(region), secretName);
-        this.gson = new GsonBuilder()
-                .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
-                .create();
-    }
-
-    @Override
-    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent requestEvent, Context context) {
-        String requestBody = requestEvent.getBody();
-        Post post = gson.fromJson(requestBody, Post.class);  // Deserialize request body into Post object
-
-        try {
-            String secret = secretsManagerHelper.getSecret();
-            Map<String, Object> secretMap = gson.fromJson(secret, Map.class);
-
-            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretMap);
-            PostDAO postDAO = new PostDAO(dcm);
-            postDAO.savePost(post);
-
-            return new APIGatewayProxyResponseEvent()
-                    .withStatusCode(200)
-                    .withBody(gson.toJson(Map.of("status", "success", "message", "Post created successfully")));
-
-        } catch (SQLException e) {
-            LambdaLogger logger = context.getLogger();
-            logger.log("Error creating post: " + e.getMessage());
-            return new APIGatewayProxyResponseEvent()
-                    .withStatusCode(500)
-                    .withBody(gson.toJson(Map.of("status", "error", "message", e.getMessage())));
-        }
-    }
-}
\ No newline at end of file
@@ -5,16 +5,13 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import playkosmos.utils.LocalDateTimeTypeAdapter;
-import playkosmos.utils.LocalDateTypeAdapter;
+import playkosmos.json.GsonFactory;
 import playkosmos.utils.SecretsManagerHelper;
+import playkosmos.utils.SnapStartPriming;
 import software.amazon.awssdk.regions.Region;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 
 public abstract class BaseHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
@@ -27,11 +24,11 @@ public abstract class BaseHandler implements RequestHandler<APIGatewayProxyReque
         String secretName = System.getenv("DB_SECRET");
 
         this.secretsManagerHelper = SecretsManagerHelper.getInstance(String.valueOf(region), secretName);
-        this.gson = new GsonBuilder()
-                .registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter())
-                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeTypeAdapter())
-                .create();
+        this.gson = GsonFactory.getInstance();
         this.passwordEncoder = new BCryptPasswordEncoder();
+
+        SnapStartPriming.register(gson, secretsManagerHelper);
+        SnapStartPriming.addPrimer("bcrypt", () -> passwordEncoder.encode("snapstart-priming"));
     }
 
     @Override
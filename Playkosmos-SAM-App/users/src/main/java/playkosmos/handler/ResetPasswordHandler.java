@@ -6,15 +6,17 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import org.springframework.security.crypto.bcrypt.BCrypt;
 import playkosmos.dao.UserDAO;
 import playkosmos.dbutil.DatabaseConnectionManager;
 import playkosmos.entity.User;
+import playkosmos.json.GsonFactory;
 import playkosmos.utils.JwtUtils;
+import playkosmos.utils.RequestBodies;
 import playkosmos.utils.SecretsManagerHelper;
+import playkosmos.utils.SnapStartPriming;
 import software.amazon.awssdk.regions.Region;
 
 import javax.crypto.SecretKey;
@@ -32,7 +34,10 @@ public class ResetPasswordHandler implements RequestHandler<APIGatewayProxyReque
         String secretName = System.getenv("DB_SECRET");
 
         this.secretsManagerHelper = SecretsManagerHelper.getInstance(String.valueOf(region), secretName);
-        this.gson = new GsonBuilder().create();
+        this.gson = GsonFactory.getInstance();
+
+        SnapStartPriming.register(gson, secretsManagerHelper);
+        SnapStartPriming.addPrimer("jwt", JwtUtils::prime);
     }
 
     @Override
@@ -48,7 +53,7 @@ public class ResetPasswordHandler implements RequestHandler<APIGatewayProxyReque
                     .withBody("Authorization failed: Missing username");
         }
 
-        String requestBody = requestEvent.getBody();
+        String requestBody = RequestBodies.text(requestEvent);
         Map<String, String> requestMap = gson.fromJson(requestBody, Map.class);
         String newPassword = requestMap.get("newPassword");
 
@@ -60,10 +65,7 @@ public class ResetPasswordHandler implements RequestHandler<APIGatewayProxyReque
 
         try {
 
-            String secret = secretsManagerHelper.getSecret();
-            Map<String, Object> secretMap = gson.fromJson(secret, Map.class);
-
-            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretMap);
+            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretsManagerHelper.getDatabaseCredentials());
             UserDAO userDAO = new UserDAO(dcm);
 
             User user = userDAO.findUserByUsername(username);
@@ -6,14 +6,20 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import playkosmos.dao.UserDAO;
 import playkosmos.dbutil.DatabaseConnectionManager;
 import playkosmos.entity.User;
+import playkosmos.json.GsonFactory;
+import playkosmos.ratelimit.RateLimitDecision;
+import playkosmos.ratelimit.RateLimitRule;
+import playkosmos.ratelimit.RateLimiter;
+import playkosmos.ratelimit.RequestIdentity;
 import playkosmos.utils.JwtUtils;
+import playkosmos.utils.RequestBodies;
 import playkosmos.utils.SecretsManagerHelper;
+import playkosmos.utils.SnapStartPriming;
 import software.amazon.awssdk.regions.Region;
 
 import java.sql.SQLException;
@@ -21,6 +27,9 @@ import java.util.Map;
 
 public class UserLoginHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
+    private static final RateLimitRule LOGIN_PER_IP = RateLimitRule.fromEnv("login-ip", 30, 60);
+    private static final RateLimitRule LOGIN_PER_ACCOUNT = RateLimitRule.fromEnv("login-account", 10, 300);
+
     private final SecretsManagerHelper secretsManagerHelper;
     private final Gson gson;
     private final PasswordEncoder passwordEncoder;
@@ -30,14 +39,18 @@ public class UserLoginHandler implements RequestHandler<APIGatewayProxyRequestEv
         String secretName = System.getenv("DB_SECRET");
 
         this.secretsManagerHelper = SecretsManagerHelper.getInstance(String.valueOf(region), secretName);
-        this.gson = new GsonBuilder().create();
+        this.gson = GsonFactory.getInstance();
         this.passwordEncoder = new BCryptPasswordEncoder();
+
+        SnapStartPriming.register(gson, secretsManagerHelper);
+        SnapStartPriming.addPrimer("jwt", JwtUtils::prime);
+        SnapStartPriming.addPrimer("bcrypt", () -> passwordEncoder.encode("snapstart-priming"));
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent requestEvent, Context context) {
 
-        Map<String, String> requestBody = gson.fromJson(requestEvent.getBody(), Map.class);
+        Map<String, String> requestBody = gson.fromJson(RequestBodies.text(requestEvent), Map.class);
         String emailOrPhone = requestBody.get("email") != null ? requestBody.get("email") : requestBody.get("phoneNumber");
         String password = requestBody.get("password");
 
@@ -47,12 +60,18 @@ public class UserLoginHandler implements RequestHandler<APIGatewayProxyRequestEv
                     .withBody(gson.toJson(Map.of("status", "error", "message", "Email or Phone number and password are required")));
         }
 
+        // Throttle before the user lookup and the BCrypt check
+        RateLimitDecision decision = RateLimiter.forEnvironment().tryAcquire(
+                RequestIdentity.keys(LOGIN_PER_IP, RequestIdentity.sourceIp(requestEvent), LOGIN_PER_ACCOUNT, emailOrPhone));
+        if (!decision.isAllowed()) {
+            return new APIGatewayProxyResponseEvent()
+                    .withStatusCode(429)
+                    .withHeaders(Map.of("Retry-After", String.valueOf(decision.getRetryAfterSeconds())))
+                    .withBody(gson.toJson(Map.of("status", "error", "message", "Too many login attempts, try again later")));
+        }
 
         try {
-            String secret = secretsManagerHelper.getSecret();
-            Map<String, Object> secretMap = gson.fromJson(secret, Map.class);
-
-            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretMap);
+            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretsManagerHelper.getDatabaseCredentials());
             UserDAO userDAO = new UserDAO(dcm);
 
             User user;
@@ -63,7 +82,8 @@ public class UserLoginHandler implements RequestHandler<APIGatewayProxyRequestEv
             }
 
 
-            if (user == null || !passwordEncoder.matches(password, user.getPassword())) {
+            String passwordHash = user == null ? null : userDAO.findPasswordHash(user.getId());
+            if (passwordHash == null || !passwordEncoder.matches(password, passwordHash)) {
                 return new APIGatewayProxyResponseEvent()
                         .withStatusCode(401)
                         .withBody(gson.toJson(Map.of("status", "error", "message", "Invalid credentials")));
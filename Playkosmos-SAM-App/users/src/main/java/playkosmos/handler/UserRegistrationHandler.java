@@ -6,20 +6,20 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import playkosmos.dao.UserDAO;
 import playkosmos.dbutil.DatabaseConnectionManager;
 import playkosmos.entity.User;
-import playkosmos.utils.LocalDateTypeAdapter;
+import playkosmos.json.GsonFactory;
+import playkosmos.utils.RequestBodies;
 import playkosmos.utils.SecretsManagerHelper;
+import playkosmos.utils.SnapStartPriming;
 import playkosmos.utils.ValidationResult;
 import playkosmos.utils.ValidationUtils;
 import software.amazon.awssdk.regions.Region;
 
 import java.sql.SQLException;
-import java.time.LocalDate;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -36,14 +36,17 @@ public class UserRegistrationHandler implements RequestHandler<APIGatewayProxyRe
         String secretName = System.getenv("DB_SECRET");
 
         this.secretsManagerHelper = SecretsManagerHelper.getInstance(String.valueOf(region), secretName);
-        this.gson = new GsonBuilder().registerTypeAdapter(LocalDate.class, new LocalDateTypeAdapter()).create();
+        this.gson = GsonFactory.getInstance();
         this.passwordEncoder = new BCryptPasswordEncoder();
+
+        SnapStartPriming.register(gson, secretsManagerHelper);
+        SnapStartPriming.addPrimer("bcrypt", () -> passwordEncoder.encode("snapstart-priming"));
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent requestEvent, Context context) {
 
-        User user = gson.fromJson(requestEvent.getBody(), User.class);
+        User user = gson.fromJson(RequestBodies.text(requestEvent), User.class);
 
         CompletableFuture<ValidationResult> usernameValid = ValidationUtils.validateUsername(user.getUsername());
         CompletableFuture<ValidationResult> contactValid = ValidationUtils.validateContact(user.getEmail(), user.getPhoneNumber(), user.getCountryCode());
@@ -78,10 +81,7 @@ public class UserRegistrationHandler implements RequestHandler<APIGatewayProxyRe
 
             user.setPassword(passwordEncoder.encode(user.getPassword()));
 
-            String secret = secretsManagerHelper.getSecret();
-            Map<String, Object> secretMap = gson.fromJson(secret, Map.class);
-
-            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretMap);
+            DatabaseConnectionManager dcm = DatabaseConnectionManager.getInstance(secretsManagerHelper.getDatabaseCredentials());
             UserDAO userDAO = new UserDAO(dcm);
             userDAO.saveUserToDatabase(user);
 
@@ -4,18 +4,13 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.security.SignatureException;
 import playkosmos.utils.JwtUtils;
 
-import javax.crypto.SecretKey;
-
 
 public class JwtTestHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
-    private static final SecretKey SECRET_KEY = JwtUtils.getSecretKey();
-
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent requestEvent, Context context) {
 
@@ -31,11 +26,7 @@ public class JwtTestHandler implements RequestHandler<APIGatewayProxyRequestEven
 
         try {
 
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            Claims claims = JwtUtils.parseClaims(token);
 
             String username = claims.getSubject();
 